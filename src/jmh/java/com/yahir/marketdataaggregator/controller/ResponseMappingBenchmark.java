@@ -0,0 +1,67 @@
+package com.yahir.marketdataaggregator.controller;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a best price into the DTO every price endpoint serves.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseMappingBenchmark {
+
+    @Param({"100", "10000"})
+    public int symbols;
+
+    private AggregatedPrice[] prices;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        Instant base = Instant.parse("2026-01-01T00:00:00Z");
+        prices = new AggregatedPrice[symbols];
+        for (int i = 0; i < symbols; i++) {
+            prices[i] = new AggregatedPrice("SYM" + i, 100 + i * 0.37, base.plusMillis(i), "SourceA");
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public MarketDataController.ResponseDTO toDTO(Cursor cursor) {
+        return MarketDataController.toDTO(prices[next(cursor)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public MarketDataController.ResponseDTO toDTOFourThreads(Cursor cursor) {
+        return MarketDataController.toDTO(prices[next(cursor)]);
+    }
+
+    private int next(Cursor cursor) {
+        int i = cursor.next;
+        cursor.next = i + 1 == symbols ? 0 : i + 1;
+        return i;
+    }
+}
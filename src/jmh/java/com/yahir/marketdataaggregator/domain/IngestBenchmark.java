@@ -0,0 +1,134 @@
+package com.yahir.marketdataaggregator.domain;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cost of {@link MarketDataAggregator#ingest} per tick, across symbol-universe sizes, tick mixes and thread counts.
+ * <p>
+ * Every ingest benchmark builds its tick inside the measured operation, as a source would; {@link #buildTick}
+ * measures that on its own so it can be subtracted from the ingest numbers. Run with the gc profiler (the
+ * profile's default arguments) to get {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestBenchmark {
+
+    public enum Mix { NEWER, STALE, OUTLIER, TIE, MIXED }
+
+    private static final Instant BASE = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant STALE_TIMESTAMP = BASE.minusSeconds(120);
+    private static final double PRICE = 100;
+
+    @Param({"100", "10000", "100000"})
+    public int symbols;
+
+    @Param({"NEWER", "STALE", "OUTLIER", "TIE", "MIXED"})
+    public Mix mix;
+
+    private MarketDataAggregator aggregator;
+    private String[] symbolNames;
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int threadId = -1;
+        long sequence;
+        int next;
+        long pass;
+    }
+
+    @Setup
+    public void setUp() {
+        // The aggregator logs every decision; logback's default console appender would dominate the numbers
+        ((Logger) LoggerFactory.getLogger(MarketDataAggregator.class)).setLevel(Level.ERROR);
+        aggregator = new MarketDataAggregator(Clock.fixed(BASE, ZoneId.of("UTC")));
+        symbolNames = new String[symbols];
+        for (int i = 0; i < symbols; i++) {
+            symbolNames[i] = "SYM" + i;
+            aggregator.ingest(new PriceTick(symbolNames[i], PRICE, BASE, "SourceB"));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public IngestOutcome ingest(ThreadState thread) {
+        return aggregator.ingest(nextTick(thread));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public IngestOutcome ingestFourThreads(ThreadState thread) {
+        return aggregator.ingest(nextTick(thread));
+    }
+
+    @Benchmark
+    public PriceTick buildTick(ThreadState thread) {
+        return nextTick(thread);
+    }
+
+    private PriceTick nextTick(ThreadState thread) {
+        int symbol = nextSymbol(thread);
+        Mix kind = mix == Mix.MIXED ? mixed(symbol) : mix;
+        String name = symbolNames[symbol];
+        return switch (kind) {
+            case STALE -> new PriceTick(name, PRICE, STALE_TIMESTAMP, "SourceA");
+            case OUTLIER -> new PriceTick(name, PRICE * 2, newer(thread), "SourceA");
+            // Sources alternate on every pass over the universe, so the tie-break both keeps and replaces
+            case TIE -> new PriceTick(name, PRICE, BASE, (thread.pass & 1) == 0 ? "SourceA" : "SourceC");
+            default -> new PriceTick(name, PRICE + (thread.sequence & 7) * 0.01, newer(thread), "SourceA");
+        };
+    }
+
+    // 70% newer, then stale, outlier and tie at 10% each
+    private static Mix mixed(int symbol) {
+        return switch (symbol % 10) {
+            case 7 -> Mix.STALE;
+            case 8 -> Mix.OUTLIER;
+            case 9 -> Mix.TIE;
+            default -> Mix.NEWER;
+        };
+    }
+
+    // Interleaved across threads so timestamps keep moving forward for every symbol
+    private Instant newer(ThreadState thread) {
+        if (thread.threadId < 0) {
+            thread.threadId = threadIds.getAndIncrement();
+        }
+        return BASE.plusNanos(++thread.sequence * 8 + thread.threadId);
+    }
+
+    private int nextSymbol(ThreadState thread) {
+        int symbol = thread.next;
+        if (symbol + 1 == symbols) {
+            thread.next = 0;
+            thread.pass++;
+        } else {
+            thread.next = symbol + 1;
+        }
+        return symbol;
+    }
+}
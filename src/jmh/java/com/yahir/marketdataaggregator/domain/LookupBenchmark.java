@@ -0,0 +1,89 @@
+package com.yahir.marketdataaggregator.domain;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading the best-price table and of the tie-break decision, across symbol-universe sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+
+    private static final Instant BASE = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Param({"100", "10000", "100000"})
+    public int symbols;
+
+    private MarketDataAggregator aggregator;
+    private String[] symbolNames;
+    private AggregatedPrice[] bests;
+    private PriceTick[] ties;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(MarketDataAggregator.class)).setLevel(Level.ERROR);
+        aggregator = new MarketDataAggregator(Clock.fixed(BASE, ZoneId.of("UTC")));
+        symbolNames = new String[symbols];
+        bests = new AggregatedPrice[symbols];
+        ties = new PriceTick[symbols];
+        for (int i = 0; i < symbols; i++) {
+            symbolNames[i] = "SYM" + i;
+            aggregator.ingest(new PriceTick(symbolNames[i], 100, BASE, "SourceB"));
+            bests[i] = aggregator.getBest(symbolNames[i]).orElseThrow();
+            ties[i] = new PriceTick(symbolNames[i], 100 + (i & 1), BASE, (i & 2) == 0 ? "SourceA" : "SourceC");
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<AggregatedPrice> getBest(Cursor cursor) {
+        return aggregator.getBest(symbolNames[next(cursor)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<AggregatedPrice> getBestFourThreads(Cursor cursor) {
+        return aggregator.getBest(symbolNames[next(cursor)]);
+    }
+
+    @Benchmark
+    public boolean shouldReplace(Cursor cursor) {
+        int i = next(cursor);
+        return aggregator.shouldReplace(ties[i], bests[i]);
+    }
+
+    private int next(Cursor cursor) {
+        int symbol = cursor.next;
+        cursor.next = symbol + 1 == symbols ? 0 : symbol + 1;
+        return symbol;
+    }
+}
@@ -0,0 +1,123 @@
+package com.yahir.marketdataaggregator.domain;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tick cost of the fixed-percentage outlier test against the current best and of {@link RollingOutlierFilter},
+ * on their own and inside {@link MarketDataAggregator#ingest}, across symbol-universe sizes.
+ * <p>
+ * Prices cycle through a small jitter around 100 with one tick in sixteen far outside it, so both tests see mostly
+ * inliers and some outliers. The rolling filter's statistics are warmed up in setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutlierFilterBenchmark {
+
+    public enum Filter { FIXED, EWMA }
+
+    private static final Instant BASE = Instant.parse("2026-01-01T00:00:00Z");
+    private static final double[] PRICES = new double[16];
+
+    static {
+        for (int i = 0; i < PRICES.length; i++) {
+            PRICES[i] = 100 + (i % 5 - 2) * 0.05;
+        }
+        PRICES[15] = 103;
+    }
+
+    @Param({"100", "10000", "100000"})
+    public int symbols;
+
+    @Param({"FIXED", "EWMA"})
+    public Filter filter;
+
+    private MarketDataAggregator aggregator;
+    private RollingOutlierFilter rollingFilter;
+    private String[] symbolNames;
+    private int[] symbolIds;
+    private AggregatedPrice[] bests;
+    private PriceTick[] ticks;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        long sequence;
+    }
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(MarketDataAggregator.class)).setLevel(Level.ERROR);
+        Clock clock = Clock.fixed(BASE, ZoneId.of("UTC"));
+        rollingFilter = new RollingOutlierFilter(0.05, 4, 20, 0.25, 0.001);
+        aggregator = new MarketDataAggregator(clock, Duration.ofSeconds(60), 0.25,
+                filter == Filter.EWMA ? new RollingOutlierFilter(0.05, 4, 20, 0.25, 0.001) : null);
+        symbolNames = new String[symbols];
+        symbolIds = new int[symbols];
+        SymbolDictionary dictionary = new SymbolDictionary();
+        bests = new AggregatedPrice[symbols];
+        ticks = new PriceTick[symbols * PRICES.length];
+        for (int i = 0; i < symbols; i++) {
+            symbolNames[i] = "SYM" + i;
+            symbolIds[i] = dictionary.symbols().idOf(symbolNames[i]);
+            bests[i] = new AggregatedPrice(symbolNames[i], 100, BASE, "SourceB");
+            for (int p = 0; p < PRICES.length; p++) {
+                ticks[i * PRICES.length + p] = new PriceTick(symbolNames[i], PRICES[p], BASE, "SourceA");
+            }
+            for (int n = 0; n < 40; n++) {
+                rollingFilter.accept(symbolIds[i], PRICES[n % 5]);
+                aggregator.ingest(new PriceTick(symbolNames[i], PRICES[n % 5], BASE.minusSeconds(40 - n), "SourceB"));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean check(Cursor cursor) {
+        int symbol = next(cursor);
+        PriceTick tick = ticks[symbol * PRICES.length + (int) (cursor.sequence & 15)];
+        return filter == Filter.EWMA
+                ? rollingFilter.rejects(symbolIds[symbol], tick.getPrice())
+                : aggregator.isOutlier(tick, bests[symbol]);
+    }
+
+    @Benchmark
+    public IngestOutcome ingest(Cursor cursor) {
+        int symbol = next(cursor);
+        double price = PRICES[(int) (cursor.sequence & 15)];
+        return aggregator.ingest(new PriceTick(symbolNames[symbol], price, BASE.plusNanos(cursor.sequence), "SourceA"));
+    }
+
+    // Walks the universe, moving on to the next price of the cycle after each pass
+    private int next(Cursor cursor) {
+        int symbol = cursor.next;
+        if (symbol + 1 == symbols) {
+            cursor.next = 0;
+            cursor.sequence++;
+        } else {
+            cursor.next = symbol + 1;
+        }
+        return symbol;
+    }
+}
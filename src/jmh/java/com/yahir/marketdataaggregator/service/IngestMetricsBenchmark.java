@@ -0,0 +1,107 @@
+package com.yahir.marketdataaggregator.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cost that {@link IngestMetrics} adds to {@link MarketDataAggregator#ingest}, compared with the same ingest and no
+ * listener. STALE ingests pre-built ticks that are all rejected, the cheapest path and so the one where counting
+ * weighs most; NEWER builds a tick per operation that always replaces the best.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestMetricsBenchmark {
+
+    public enum Mix { STALE, NEWER }
+
+    private static final Instant BASE = Instant.parse("2026-01-01T00:00:00Z");
+    private static final int SYMBOLS = 10_000;
+    private static final String[] SOURCES = {"SourceA", "SourceB", "SourceC"};
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    @Param({"STALE", "NEWER"})
+    public Mix mix;
+
+    private MarketDataAggregator aggregator;
+    private String[] symbolNames;
+    private PriceTick[] staleTicks;
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int threadId = -1;
+        long sequence;
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(MarketDataAggregator.class)).setLevel(Level.ERROR);
+        aggregator = new MarketDataAggregator(Clock.fixed(BASE, ZoneId.of("UTC")));
+        if (metrics) {
+            new IngestMetrics(aggregator, new SimpleMeterRegistry());
+        }
+        symbolNames = new String[SYMBOLS];
+        staleTicks = new PriceTick[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            symbolNames[i] = "SYM" + i;
+            aggregator.ingest(new PriceTick(symbolNames[i], 100, BASE, "SourceB"));
+            staleTicks[i] = new PriceTick(symbolNames[i], 100, BASE.minusSeconds(120), SOURCES[i % SOURCES.length]);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public IngestOutcome ingest(ThreadState thread) {
+        return aggregator.ingest(nextTick(thread));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public IngestOutcome ingestFourThreads(ThreadState thread) {
+        return aggregator.ingest(nextTick(thread));
+    }
+
+    private PriceTick nextTick(ThreadState thread) {
+        int symbol = thread.next;
+        thread.next = symbol + 1 == SYMBOLS ? 0 : symbol + 1;
+        if (mix == Mix.STALE) {
+            return staleTicks[symbol];
+        }
+        if (thread.threadId < 0) {
+            thread.threadId = threadIds.getAndIncrement();
+        }
+        // Interleaved across threads so timestamps keep moving forward for every symbol
+        Instant timeStamp = BASE.plusNanos(++thread.sequence * 8 + thread.threadId);
+        return new PriceTick(symbolNames[symbol], 100, timeStamp, SOURCES[symbol % SOURCES.length]);
+    }
+}
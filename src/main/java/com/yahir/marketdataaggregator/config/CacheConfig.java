@@ -0,0 +1,74 @@
+package com.yahir.marketdataaggregator.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yahir.marketdataaggregator.service.PricePage;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(PriceCacheProperties.class)
+public class CacheConfig {
+
+    // Defaults per cache: max total weight (prices held) and time to live
+    static final Map<String, PriceCacheProperties.Spec> DEFAULT_SPECS = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_SPECS.put("bestPrice", new PriceCacheProperties.Spec(100_000L, Duration.ofMinutes(10)));
+        DEFAULT_SPECS.put("allBestPrices", new PriceCacheProperties.Spec(1_000_000L, Duration.ofMinutes(10)));
+        DEFAULT_SPECS.put("allPrices", new PriceCacheProperties.Spec(1_000_000L, Duration.ofMinutes(1)));
+        DEFAULT_SPECS.put("allPricesForSymbol", new PriceCacheProperties.Spec(1_000_000L, Duration.ofMinutes(5)));
+        DEFAULT_SPECS.put("allPricesBetween", new PriceCacheProperties.Spec(1_000_000L, Duration.ofMinutes(5)));
+        DEFAULT_SPECS.put("priceHistoryForSymbolBetween", new PriceCacheProperties.Spec(1_000_000L, Duration.ofMinutes(5)));
+    }
+
+    @Bean
+    public CacheManager cacheManager(PriceCacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Static mode: unknown cache names are not silently created as unbounded caches
+        cacheManager.setCacheNames(List.of());
+        DEFAULT_SPECS.forEach((name, defaults) -> {
+            PriceCacheProperties.Spec override = findSpec(properties, name);
+            long maxWeight = override != null && override.getMaxWeight() != null ? override.getMaxWeight() : defaults.getMaxWeight();
+            Duration ttl = override != null && override.getTtl() != null ? override.getTtl() : defaults.getTtl();
+            cacheManager.registerCustomCache(name, Caffeine.newBuilder()
+                    .maximumWeight(maxWeight)
+                    .weigher(CacheConfig::weigh)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .build());
+        });
+        return cacheManager;
+    }
+
+    static int weigh(Object key, Object value) {
+        if (value instanceof PricePage page) {
+            return page.prices().size() + 1;
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.size() + 1;
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.size() + 1;
+        }
+        return 1;
+    }
+
+    // Relaxed binding may change the case of map keys, so match cache names case-insensitively
+    private static PriceCacheProperties.Spec findSpec(PriceCacheProperties properties, String name) {
+        for (Map.Entry<String, PriceCacheProperties.Spec> entry : properties.getSpecs().entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.yahir.marketdataaggregator.config;
+
+import com.yahir.marketdataaggregator.service.RecentPriceBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Hit and miss counts of the Caffeine caches are published by Spring Boot as cache.gets; these add the ratios,
+// and the same figures for the recent-history buffer that sits in front of the database
+@Configuration
+public class MetricsConfig {
+
+    static final String HIT_RATIO = "marketdata.cache.hit.ratio";
+
+    @Bean
+    public MeterBinder cacheHitRatioMetrics(CacheManager cacheManager) {
+        return registry -> {
+            for (String name : cacheManager.getCacheNames()) {
+                Cache cache = cacheManager.getCache(name);
+                if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+                    Gauge.builder(HIT_RATIO, caffeine, c -> c.stats().hitRate())
+                            .description("Share of lookups answered from the cache since startup")
+                            .tag("cache", name)
+                            .register(registry);
+                }
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder recentPriceBufferMetrics(RecentPriceBuffer recentPrices) {
+        return registry -> {
+            FunctionCounter.builder("marketdata.recent.gets", recentPrices, buffer -> buffer.getStats().hits())
+                    .description("History range lookups on the recent-price buffer")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("marketdata.recent.gets", recentPrices, buffer -> buffer.getStats().misses())
+                    .description("History range lookups on the recent-price buffer")
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder(HIT_RATIO, recentPrices, MetricsConfig::hitRatio)
+                    .tag("cache", "recentPrices")
+                    .register(registry);
+        };
+    }
+
+    private static double hitRatio(RecentPriceBuffer buffer) {
+        RecentPriceBuffer.BufferStats stats = buffer.getStats();
+        long lookups = stats.hits() + stats.misses();
+        // Matches Caffeine, which reports 1.0 before the first lookup
+        return lookups == 0 ? 1.0 : (double) stats.hits() / lookups;
+    }
+}
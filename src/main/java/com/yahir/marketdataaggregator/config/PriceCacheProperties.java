@@ -0,0 +1,54 @@
+package com.yahir.marketdataaggregator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-cache limits, e.g. {@code price-cache.specs.allPricesBetween.max-weight=200000}. Weight is the number of
+ * prices an entry holds, so history caches are bounded by rows rather than by entry count.
+ */
+@ConfigurationProperties(prefix = "price-cache")
+public class PriceCacheProperties {
+
+    private Map<String, Spec> specs = new HashMap<>();
+
+    public Map<String, Spec> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, Spec> specs) {
+        this.specs = specs;
+    }
+
+    public static class Spec {
+        private Long maxWeight;
+        private Duration ttl;
+
+        public Spec() {
+        }
+
+        public Spec(Long maxWeight, Duration ttl) {
+            this.maxWeight = maxWeight;
+            this.ttl = ttl;
+        }
+
+        public Long getMaxWeight() {
+            return maxWeight;
+        }
+
+        public void setMaxWeight(Long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.yahir.marketdataaggregator.config;
+
+import com.yahir.marketdataaggregator.controller.PriceWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final PriceWebSocketHandler priceWebSocketHandler;
+    private final String path;
+    private final String[] allowedOrigins;
+
+    public WebSocketConfig(PriceWebSocketHandler priceWebSocketHandler,
+                           @Value("${ws.path:/ws/prices}") String path,
+                           @Value("${ws.allowed-origins:}") String[] allowedOrigins) {
+        this.priceWebSocketHandler = priceWebSocketHandler;
+        this.path = path;
+        this.allowedOrigins = allowedOrigins;
+    }
+
+    // With no origins listed only same-origin pages may connect
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(priceWebSocketHandler, path).setAllowedOrigins(allowedOrigins);
+    }
+}
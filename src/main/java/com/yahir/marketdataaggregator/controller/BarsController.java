@@ -0,0 +1,62 @@
+package com.yahir.marketdataaggregator.controller;
+
+import com.yahir.marketdataaggregator.domain.Candle;
+import com.yahir.marketdataaggregator.domain.CandleInterval;
+import com.yahir.marketdataaggregator.exception.InvalidBarRequestException;
+import com.yahir.marketdataaggregator.exception.InvalidSymbolException;
+import com.yahir.marketdataaggregator.service.CandleRollup;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.yahir.marketdataaggregator.domain.PriceFormat.toDecimal;
+
+@RequestMapping("/api")
+@RestController
+public class BarsController {
+
+    public record BarDTO(String symbol, String interval, Instant openTime, BigDecimal open, BigDecimal high,
+                         BigDecimal low, BigDecimal close, long ticks){}
+
+    private final CandleRollup candleRollup;
+
+    public BarsController(CandleRollup candleRollup) {
+        this.candleRollup = candleRollup;
+    }
+
+    @GetMapping("/bars/{symbol}")
+    public List<BarDTO> getBars(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "1m") String interval,
+            @RequestParam String inStart,
+            @RequestParam String inEnd
+    ) {
+        if (symbol == null || symbol.isBlank() || symbol.equalsIgnoreCase("null")) {
+            throw new InvalidSymbolException("Symbol cannot be null or empty");
+        }
+        CandleInterval candleInterval = CandleInterval.fromLabel(interval)
+                .orElseThrow(() -> new InvalidBarRequestException("Unsupported interval: " + interval + " (use 1s, 1m, 5m or 1h)"));
+        Instant start = Instant.parse(inStart);
+        Instant end = Instant.parse(inEnd);
+        if (end.isBefore(start)) {
+            throw new InvalidBarRequestException("inEnd must not be before inStart");
+        }
+
+        List<BarDTO> bars = new ArrayList<>();
+        candleRollup.getBars(symbol, candleInterval, start, end).forEach(candle -> bars.add(toDTO(candle)));
+        return bars;
+    }
+
+    private BarDTO toDTO(Candle candle) {
+        return new BarDTO(candle.getSymbol(), candle.getInterval().getLabel(), candle.getOpenTime(),
+                toDecimal(candle.getOpenPrice()), toDecimal(candle.getHighPrice()), toDecimal(candle.getLowPrice()),
+                toDecimal(candle.getClosePrice()), candle.getTickCount());
+    }
+}
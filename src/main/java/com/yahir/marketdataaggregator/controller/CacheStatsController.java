@@ -0,0 +1,43 @@
+package com.yahir.marketdataaggregator.controller;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequestMapping("/api/cache")
+@RestController
+public class CacheStatsController {
+
+    public record CacheStatsDTO(String name, long hits, long misses, double hitRatio, long evictions,
+                                long evictionWeight, long size, long weight, long maxWeight){}
+
+    private final CacheManager cacheManager;
+
+    public CacheStatsController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @GetMapping("/stats")
+    public List<CacheStatsDTO> getCacheStats() {
+        List<CacheStatsDTO> stats = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+                CacheStats cacheStats = caffeine.stats();
+                Policy.Eviction<?, ?> eviction = caffeine.policy().eviction().orElse(null);
+                long weight = eviction == null ? -1 : eviction.weightedSize().orElse(-1);
+                long maxWeight = eviction == null ? -1 : eviction.getMaximum();
+                stats.add(new CacheStatsDTO(name, cacheStats.hitCount(), cacheStats.missCount(), cacheStats.hitRate(),
+                        cacheStats.evictionCount(), cacheStats.evictionWeight(), caffeine.estimatedSize(), weight, maxWeight));
+            }
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,74 @@
+package com.yahir.marketdataaggregator.controller;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.ConsensusMode;
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
+import com.yahir.marketdataaggregator.exception.InvalidConsensusRequestException;
+import com.yahir.marketdataaggregator.exception.InvalidSymbolException;
+import com.yahir.marketdataaggregator.exception.SymbolNotFoundException;
+import com.yahir.marketdataaggregator.service.ConsensusPricer;
+import com.yahir.marketdataaggregator.service.MarketDataService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+
+import static com.yahir.marketdataaggregator.domain.PriceFormat.toDecimal;
+
+@RequestMapping("/api")
+@RestController
+public class ConsensusController {
+
+    // The consensus across sources, with the best price the aggregator picked for comparison
+    public record ConsensusDTO(String symbol, String mode, BigDecimal price, int sources, Instant timeStamp,
+                               BigDecimal bestPrice, String bestSource){}
+
+    private final ConsensusPricer consensusPricer;
+    private final MarketDataService marketDataService;
+
+    public ConsensusController(ConsensusPricer consensusPricer, MarketDataService marketDataService) {
+        this.consensusPricer = consensusPricer;
+        this.marketDataService = marketDataService;
+    }
+
+    @GetMapping("/prices/{symbol}/consensus")
+    public ConsensusDTO getConsensus(@PathVariable String symbol) {
+        validate(symbol);
+        ConsensusPricer.Consensus consensus = consensusPricer.getConsensus(symbol)
+                .orElseThrow(() -> new SymbolNotFoundException("Symbol not found with name: " + symbol));
+        Optional<AggregatedPrice> best = marketDataService.getBest(symbol);
+        return new ConsensusDTO(consensus.symbol(), consensus.mode().getLabel(), toDecimal(consensus.price()),
+                consensus.sources(), consensus.timeStamp(),
+                best.map(price -> toDecimal(price.getPrice())).orElse(null),
+                best.map(AggregatedPrice::getSource).orElse(null));
+    }
+
+    @PutMapping("/prices/{symbol}/consensus")
+    public ConsensusDTO setMode(@PathVariable String symbol, @RequestParam String mode) {
+        validate(symbol);
+        ConsensusMode consensusMode = ConsensusMode.fromLabel(mode)
+                .orElseThrow(() -> new InvalidConsensusRequestException(
+                        "Unsupported mode: " + mode + " (use latest, median, trimmed-mean or weighted)"));
+        if (!consensusPricer.setMode(symbol, consensusMode)) {
+            // Only symbols the aggregator has seen get a mode, so requests cannot grow the symbol dictionary
+            throw new SymbolNotFoundException("Symbol not found with name: " + symbol);
+        }
+        if (consensusPricer.getConsensus(symbol).isEmpty()) {
+            // No usable quotes yet; the mode applies from the next one
+            return new ConsensusDTO(SymbolDictionary.canonicalSymbol(symbol), consensusMode.getLabel(), null, 0, null, null, null);
+        }
+        return getConsensus(symbol);
+    }
+
+    private void validate(String symbol) {
+        if (symbol == null || symbol.isBlank() || symbol.equalsIgnoreCase("null")) {
+            throw new InvalidSymbolException("Symbol cannot be null or empty");
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package com.yahir.marketdataaggregator.controller;
 
 import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.PriceFormat;
+import com.yahir.marketdataaggregator.exception.InvalidPageRequestException;
 import com.yahir.marketdataaggregator.exception.InvalidSymbolException;
 import com.yahir.marketdataaggregator.exception.SymbolNotFoundException;
 import com.yahir.marketdataaggregator.repository.PriceRepository;
 import com.yahir.marketdataaggregator.service.MarketDataService;
+import com.yahir.marketdataaggregator.service.PageCursor;
+import com.yahir.marketdataaggregator.service.PricePage;
+import com.yahir.marketdataaggregator.service.RecentPriceBuffer;
 import org.jspecify.annotations.NonNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,12 +28,22 @@ public class MarketDataController {
 
     public record ResponseDTO(String symbol, BigDecimal price, Instant timeStamp, String source){}
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final MarketDataService marketDataService;
     private final PriceRepository priceRepository;
+    private final RecentPriceBuffer recentPrices;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public MarketDataController(MarketDataService service, PriceRepository priceRepository) {
+    public MarketDataController(MarketDataService service, PriceRepository priceRepository, RecentPriceBuffer recentPrices,
+                                @Value("${history.page-size.default:500}") int defaultPageSize,
+                                @Value("${history.page-size.max:5000}") int maxPageSize) {
         this.marketDataService = service;
         this.priceRepository = priceRepository;
+        this.recentPrices = recentPrices;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @GetMapping("/prices/{symbol}")
@@ -69,46 +84,56 @@ public class MarketDataController {
     }
 
     @GetMapping("/prices/history")
-    public List<ResponseDTO> getAllPricesFromDataBase() {
-        List<ResponseDTO> responseDTOS = new ArrayList<>();
-        List<AggregatedPrice> tempList = marketDataService.getAllPrices();
-        tempList.forEach((price) -> responseDTOS.add(toDTO(price)));
-        return responseDTOS;
+    public ResponseEntity<List<ResponseDTO>> getAllPricesFromDataBase(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        PricePage page = marketDataService.getAllPrices(parseCursor(cursor), pageSize(limit));
+        return toPageResponse(page);
     }
 
     @GetMapping("/prices/history/{symbol}")
-    public List<ResponseDTO> getSymbolHistory(@PathVariable String symbol) {
-        List<ResponseDTO> responseDTOS = new ArrayList<>();
-        List<AggregatedPrice> tempList = marketDataService.getAllPricesForSymbol(symbol);
-        tempList.forEach((price) -> responseDTOS.add(toDTO(price)));
-        return responseDTOS;
+    public ResponseEntity<List<ResponseDTO>> getSymbolHistory(
+            @PathVariable String symbol,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        PricePage page = marketDataService.getAllPricesForSymbol(symbol, parseCursor(cursor), pageSize(limit));
+        return toPageResponse(page);
     }
 
     @GetMapping("/prices/history/range")
-    public List<ResponseDTO> getPricesByTimeRange(
+    public ResponseEntity<List<ResponseDTO>> getPricesByTimeRange(
             @RequestParam String inStart,
-            @RequestParam String inEnd
+            @RequestParam String inEnd,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
     ) {
-        List<ResponseDTO> responseDTOS = new ArrayList<>();
         Instant start = Instant.parse(inStart);
         Instant end = Instant.parse(inEnd);
-        List<AggregatedPrice> tempList = marketDataService.getAllPricesBetween(start, end);
-        tempList.forEach((price) -> responseDTOS.add(toDTO(price)));
-        return responseDTOS;
+        PricePage page = marketDataService.getAllPricesBetween(start, end, parseCursor(cursor), pageSize(limit));
+        return toPageResponse(page);
     }
 
     @GetMapping("/prices/history/{symbol}/range")
-    public List<ResponseDTO> getSymbolHistoryInRange(
+    public ResponseEntity<List<ResponseDTO>> getSymbolHistoryInRange(
             @PathVariable String symbol,
             @RequestParam String inStart,
-            @RequestParam String inEnd
+            @RequestParam String inEnd,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
     ) {
-        List<ResponseDTO> responseDTOS = new ArrayList<>();
         Instant start = Instant.parse(inStart);
         Instant end = Instant.parse(inEnd);
-        List<AggregatedPrice> tempList = marketDataService.getPriceHistoryForSymbolBetween(symbol, start, end);
-        tempList.forEach((price) -> responseDTOS.add(toDTO(price)));
-        return responseDTOS;
+        if (cursor == null || cursor.isBlank()) {
+            // A recent window that fits in one page is answered from memory; anything else goes to the table
+            Optional<List<AggregatedPrice>> recent = recentPrices.range(symbol, start, end, pageSize(limit));
+            if (recent.isPresent()) {
+                return toPageResponse(new PricePage(recent.get(), null));
+            }
+        }
+        PricePage page = marketDataService.getPriceHistoryForSymbolBetween(symbol, start, end, parseCursor(cursor), pageSize(limit));
+        return toPageResponse(page);
     }
 
     @NonNull
@@ -122,12 +147,45 @@ public class MarketDataController {
         return ResponseEntity.ok(dto);
     }
 
+    private PageCursor parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new InvalidPageRequestException("limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    // The body stays a plain list; the token for the next page travels in a header and is absent on the last page
+    private ResponseEntity<List<ResponseDTO>> toPageResponse(PricePage page) {
+        List<ResponseDTO> responseDTOS = new ArrayList<>(page.prices().size());
+        page.prices().forEach((price) -> responseDTOS.add(toDTO(price)));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.next() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.next().encode());
+        }
+        return response.body(responseDTOS);
+    }
+
     private boolean isEmptyOrNull(String symbol) {
         return symbol == null || symbol.isBlank() || symbol.equalsIgnoreCase("null");
     }
 
-    private ResponseDTO toDTO(AggregatedPrice price) {
-        BigDecimal priceAsDecimal = new BigDecimal(price.getPrice()).setScale(2, RoundingMode.UP);
-        return new ResponseDTO(price.getSymbol(), priceAsDecimal, price.getTimeStamp(), price.getSource());
+    // Package-private so the serving benchmarks can measure it directly
+    static ResponseDTO toDTO(AggregatedPrice price) {
+        return new ResponseDTO(price.getSymbol(), PriceFormat.toDecimal(price.getPrice()), price.getTimeStamp(),
+                price.getSource());
     }
 }
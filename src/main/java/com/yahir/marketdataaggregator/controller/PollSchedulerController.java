@@ -0,0 +1,73 @@
+package com.yahir.marketdataaggregator.controller;
+
+import com.yahir.marketdataaggregator.exception.InvalidScheduleRequestException;
+import com.yahir.marketdataaggregator.exception.InvalidSymbolException;
+import com.yahir.marketdataaggregator.exception.SymbolNotFoundException;
+import com.yahir.marketdataaggregator.service.PollScheduler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+
+@RequestMapping("/api/scheduler")
+@RestController
+@ConditionalOnProperty(
+        prefix = "poller",
+        name = "enabled",
+        havingValue = "true"
+)
+public class PollSchedulerController {
+
+    private final PollScheduler pollScheduler;
+
+    public PollSchedulerController(PollScheduler pollScheduler) {
+        this.pollScheduler = pollScheduler;
+    }
+
+    @GetMapping("/symbols")
+    public List<PollScheduler.SymbolSchedule> getSchedules() {
+        return pollScheduler.getSchedules();
+    }
+
+    @PutMapping("/symbols/{symbol}")
+    public ResponseEntity<?> schedule(@PathVariable String symbol, @RequestParam(required = false) String cadence) {
+        if (symbol == null || symbol.isBlank()) {
+            throw new InvalidSymbolException("Symbol cannot be null or empty");
+        }
+        if (cadence == null) {
+            pollScheduler.schedule(symbol);
+        } else {
+            pollScheduler.schedule(symbol, parseCadence(cadence));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private Duration parseCadence(String cadence) {
+        Duration parsed;
+        try {
+            parsed = DurationStyle.detectAndParse(cadence);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidScheduleRequestException("Invalid cadence: " + cadence);
+        }
+        if (parsed.isNegative() || parsed.isZero()) {
+            throw new InvalidScheduleRequestException("Cadence must be positive");
+        }
+        return parsed;
+    }
+
+    @DeleteMapping("/symbols/{symbol}")
+    public ResponseEntity<?> unschedule(@PathVariable String symbol) {
+        if (!pollScheduler.unschedule(symbol)) {
+            throw new SymbolNotFoundException("Symbol not scheduled: " + symbol);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/stats")
+    public PollScheduler.SchedulerStats getStats() {
+        return pollScheduler.getStats();
+    }
+}
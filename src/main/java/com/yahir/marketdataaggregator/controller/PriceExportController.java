@@ -0,0 +1,67 @@
+package com.yahir.marketdataaggregator.controller;
+
+import com.yahir.marketdataaggregator.exception.InvalidExportRequestException;
+import com.yahir.marketdataaggregator.exception.InvalidSymbolException;
+import com.yahir.marketdataaggregator.service.PriceCacheKeys;
+import com.yahir.marketdataaggregator.service.PriceExportService;
+import com.yahir.marketdataaggregator.service.PriceExportService.Format;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+
+@RequestMapping("/api")
+@RestController
+public class PriceExportController {
+
+    private final PriceExportService priceExportService;
+
+    public PriceExportController(PriceExportService priceExportService) {
+        this.priceExportService = priceExportService;
+    }
+
+    /**
+     * Full history for one symbol as NDJSON (default) or CSV. Rows are written while they are read from the
+     * database, so the export size is not bounded by memory.
+     */
+    @GetMapping("/prices/export/{symbol}")
+    public ResponseEntity<StreamingResponseBody> exportSymbolHistory(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String inStart,
+            @RequestParam(required = false) String inEnd
+    ) {
+        if (symbol == null || symbol.isBlank() || symbol.equalsIgnoreCase("null")) {
+            throw new InvalidSymbolException("Symbol cannot be null or empty");
+        }
+        if ((inStart == null) != (inEnd == null)) {
+            throw new InvalidExportRequestException("inStart and inEnd must be given together");
+        }
+        Format exportFormat = parseFormat(format);
+        Instant start = inStart == null ? null : Instant.parse(inStart);
+        Instant end = inEnd == null ? null : Instant.parse(inEnd);
+        String filename = PriceCacheKeys.symbol(symbol).replaceAll("[^A-Z0-9._-]", "_") + "." + exportFormat.name().toLowerCase();
+
+        StreamingResponseBody body = out -> priceExportService.export(symbol, start, end, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    private Format parseFormat(String format) {
+        for (Format candidate : Format.values()) {
+            if (candidate.name().equalsIgnoreCase(format.trim())) {
+                return candidate;
+            }
+        }
+        throw new InvalidExportRequestException("Unsupported export format: " + format);
+    }
+}
@@ -0,0 +1,46 @@
+package com.yahir.marketdataaggregator.controller;
+
+import com.yahir.marketdataaggregator.service.BestPriceBroadcaster;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+
+@RequestMapping("/api")
+@RestController
+public class PriceStreamController {
+
+    private final BestPriceBroadcaster broadcaster;
+    private final Duration streamTimeout;
+
+    public PriceStreamController(BestPriceBroadcaster broadcaster,
+                                 @Value("${stream.sse-timeout:30m}") Duration streamTimeout) {
+        this.broadcaster = broadcaster;
+        this.streamTimeout = streamTimeout;
+    }
+
+    /**
+     * Server-Sent Events stream of best-price changes, optionally filtered with {@code ?symbols=AAPL,BTCUSD}.
+     * Each event is named {@code best-price} and carries the same fields as {@code GET /api/prices/{symbol}}.
+     */
+    @GetMapping(path = "/prices/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBestPrices(@RequestParam(required = false) List<String> symbols) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        BestPriceBroadcaster.Subscription subscription = broadcaster.subscribe(
+                symbols == null ? List.of() : symbols,
+                event -> emitter.send(SseEmitter.event()
+                        .name("best-price")
+                        .id(event.symbol() + "@" + event.timeStamp())
+                        .data(event, MediaType.APPLICATION_JSON)));
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        return emitter;
+    }
+}
@@ -0,0 +1,83 @@
+package com.yahir.marketdataaggregator.controller;
+
+import com.yahir.marketdataaggregator.service.PriceFanOut;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WebSocket endpoint for best-price updates. Clients send
+ * {@code {"action":"subscribe","symbols":["AAPL","BTCUSD"]}} or {@code "unsubscribe"} at any time and receive
+ * {@code {"type":"price",...}} messages for their current subscriptions.
+ */
+@Component
+public class PriceWebSocketHandler extends TextWebSocketHandler {
+
+    public record ControlReply(String type, List<String> symbols, String message) {}
+
+    private static final Logger log = LoggerFactory.getLogger(PriceWebSocketHandler.class);
+    private static final String CLIENT_ATTRIBUTE = PriceFanOut.Client.class.getName();
+
+    private final PriceFanOut priceFanOut;
+    private final JsonMapper jsonMapper;
+
+    public PriceWebSocketHandler(PriceFanOut priceFanOut, JsonMapper jsonMapper) {
+        this.priceFanOut = priceFanOut;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.getAttributes().put(CLIENT_ATTRIBUTE, priceFanOut.connect(session));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        PriceFanOut.Client client = (PriceFanOut.Client) session.getAttributes().get(CLIENT_ATTRIBUTE);
+        if (client == null) {
+            return;
+        }
+        ControlReply reply;
+        try {
+            JsonNode request = jsonMapper.readTree(message.getPayload());
+            String action = request.path("action").asString("");
+            List<String> symbols = new ArrayList<>();
+            request.path("symbols").forEach(symbol -> symbols.add(symbol.asString("")));
+            reply = switch (action) {
+                case "subscribe" -> new ControlReply("subscribed", priceFanOut.subscribe(client, symbols), null);
+                case "unsubscribe" -> new ControlReply("unsubscribed", priceFanOut.unsubscribe(client, symbols), null);
+                default -> new ControlReply("error", null, "Unknown action: " + action);
+            };
+        } catch (JacksonException e) {
+            reply = new ControlReply("error", null, "Malformed request");
+        } catch (IllegalArgumentException e) {
+            reply = new ControlReply("error", null, e.getMessage());
+        }
+        // Replies go through the client's decorated session so they never interleave with a price send
+        client.getSession().sendMessage(new TextMessage(jsonMapper.writeValueAsBytes(reply)));
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("WebSocket transport error for session {}: {}", session.getId(), exception.toString());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        PriceFanOut.Client client = (PriceFanOut.Client) session.getAttributes().remove(CLIENT_ATTRIBUTE);
+        if (client != null) {
+            priceFanOut.disconnect(client);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.yahir.marketdataaggregator.controller;
+
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.exception.InvalidReplayRequestException;
+import com.yahir.marketdataaggregator.service.ReplayEngine;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RequestMapping("/api")
+@RestController
+public class ReplayController {
+
+    public record ReplayResponse(long ticks, long skipped, long elapsedMillis, long ticksPerSecond,
+                                 Map<IngestOutcome, Long> outcomes, List<MarketDataController.ResponseDTO> bestPrices){}
+
+    private final ReplayEngine replayEngine;
+    private final MarketDataAggregator liveAggregator;
+
+    public ReplayController(ReplayEngine replayEngine, MarketDataAggregator liveAggregator) {
+        this.replayEngine = replayEngine;
+        this.liveAggregator = liveAggregator;
+    }
+
+    /**
+     * Replays a recording under replay.dir. Thresholds default to the live aggregator's so only the ones being
+     * experimented with need to be given.
+     */
+    @PostMapping("/replay")
+    public ReplayResponse replay(
+            @RequestParam String file,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "0") double speed,
+            @RequestParam(required = false) String staleThreshold,
+            @RequestParam(required = false) Double outlierPct
+    ) {
+        ReplayEngine.Format replayFormat;
+        try {
+            replayFormat = ReplayEngine.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidReplayRequestException("Unsupported format: " + format + " (use csv or journal)");
+        }
+        ReplayEngine.ReplayOptions options = new ReplayEngine.ReplayOptions(
+                staleThreshold == null ? liveAggregator.getStaleThreshold() : parseDuration(staleThreshold),
+                outlierPct == null ? liveAggregator.getOutlierPct() : outlierPct,
+                speed);
+
+        ReplayEngine.ReplayReport report = replayEngine.replay(file, replayFormat, options);
+        List<MarketDataController.ResponseDTO> best = new ArrayList<>(report.bestPrices().size());
+        report.bestPrices().values().forEach(price -> best.add(MarketDataController.toDTO(price)));
+        return new ReplayResponse(report.ticks(), report.skipped(), report.elapsedMillis(),
+                Math.round(report.ticksPerSecond()), report.outcomes(), best);
+    }
+
+    private Duration parseDuration(String value) {
+        try {
+            return DurationStyle.detectAndParse(value);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidReplayRequestException("Invalid staleThreshold: " + value);
+        }
+    }
+}
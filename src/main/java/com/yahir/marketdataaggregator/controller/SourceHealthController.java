@@ -0,0 +1,24 @@
+package com.yahir.marketdataaggregator.controller;
+
+import com.yahir.marketdataaggregator.service.SourceHealth;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RequestMapping("/api/sources")
+@RestController
+public class SourceHealthController {
+
+    private final SourceHealth sourceHealth;
+
+    public SourceHealthController(SourceHealth sourceHealth) {
+        this.sourceHealth = sourceHealth;
+    }
+
+    @GetMapping("/health")
+    public List<SourceHealth.SourceStatus> getSourceHealth() {
+        return sourceHealth.getStatus();
+    }
+}
@@ -4,11 +4,20 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 import java.time.Instant;
 import java.util.Objects;
 
+// Both indexes end in (timeStamp, id), the order every history query returns, so range scans need no sort step
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_aggregated_price_symbol_ts", columnList = "symbol, timeStamp, id"),
+        @Index(name = "idx_aggregated_price_ts", columnList = "timeStamp, id")
+})
 public class AggregatedPrice {
     private String symbol;
     private double price;
@@ -16,12 +25,20 @@ public class AggregatedPrice {
     private String source;
     private String reason;
 
+    // Dictionary ids, copied from the tick on the ingest path; rows read back or built from names have none
+    @Transient
+    private int symbolId = SymbolDictionary.NO_ID;
+    @Transient
+    private int sourceId = SymbolDictionary.NO_ID;
+
+    // Sequence ids (allocated 50 at a time) instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "aggregated_price_seq")
+    @SequenceGenerator(name = "aggregated_price_seq", sequenceName = "aggregated_price_seq", allocationSize = 50)
     private Long id;
 
     public AggregatedPrice(String symbol, double price, Instant timeStamp, String source, String reason) {
-        this.symbol = symbol.trim().toUpperCase();
+        this.symbol = SymbolDictionary.canonicalSymbol(Objects.requireNonNull(symbol, "symbol"));
         this.price = price;
         this.timeStamp = timeStamp;
         this.source = source;
@@ -29,7 +46,7 @@ public class AggregatedPrice {
     }
 
     public AggregatedPrice(String symbol, double price, Instant timeStamp, String source) {
-        this.symbol = symbol.trim().toUpperCase();
+        this.symbol = SymbolDictionary.canonicalSymbol(Objects.requireNonNull(symbol, "symbol"));
         this.price = price;
         this.timeStamp = timeStamp;
         this.source = source;
@@ -40,6 +57,18 @@ public class AggregatedPrice {
         this.price = priceTick.getPrice();
         this.timeStamp = priceTick.getTimeStamp();
         this.source = priceTick.getSource();
+        this.symbolId = priceTick.getSymbolId();
+        this.sourceId = priceTick.getSourceId();
+    }
+
+    public AggregatedPrice(AggregatedPrice other) {
+        this.symbol = other.symbol;
+        this.price = other.price;
+        this.timeStamp = other.timeStamp;
+        this.source = other.source;
+        this.reason = other.reason;
+        this.symbolId = other.symbolId;
+        this.sourceId = other.sourceId;
     }
 
     public AggregatedPrice() {
@@ -51,6 +80,15 @@ public class AggregatedPrice {
 
     public void setSymbol(String symbol) {
         this.symbol = symbol;
+        this.symbolId = SymbolDictionary.NO_ID;
+    }
+
+    /**
+     * The symbol's id in the dictionary of the aggregator that published this price; {@link SymbolDictionary#NO_ID}
+     * for any other price.
+     */
+    public int getSymbolId() {
+        return symbolId;
     }
 
     public double getPrice() {
@@ -75,6 +113,11 @@ public class AggregatedPrice {
 
     public void setSource(String source) {
         this.source = source;
+        this.sourceId = SymbolDictionary.NO_ID;
+    }
+
+    public int getSourceId() {
+        return sourceId;
     }
 
     public String getReason() {
@@ -0,0 +1,10 @@
+package com.yahir.marketdataaggregator.domain;
+
+/**
+ * Notified after {@link MarketDataAggregator#ingest} publishes a new best price. Runs on the ingesting thread,
+ * so implementations must return quickly and hand any real work off elsewhere.
+ */
+@FunctionalInterface
+public interface BestPriceListener {
+    void bestChanged(AggregatedPrice best);
+}
@@ -0,0 +1,150 @@
+package com.yahir.marketdataaggregator.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * One open-high-low-close bar of best prices for a symbol. Bars are mutable while open and persisted once closed.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_candle_symbol_interval_open",
+        columnNames = {"symbol", "bar_interval", "openTime"}))
+public class Candle {
+    private String symbol;
+    // "interval" is a reserved word in several SQL dialects
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bar_interval", length = 16)
+    private CandleInterval interval;
+    private Instant openTime;
+    private double openPrice;
+    private double highPrice;
+    private double lowPrice;
+    private double closePrice;
+    private long tickCount;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "candle_seq")
+    @SequenceGenerator(name = "candle_seq", sequenceName = "candle_seq", allocationSize = 50)
+    private Long id;
+
+    public Candle(String symbol, CandleInterval interval, Instant openTime, double price) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.openTime = openTime;
+        this.openPrice = price;
+        this.highPrice = price;
+        this.lowPrice = price;
+        this.closePrice = price;
+        this.tickCount = 1;
+    }
+
+    public Candle(Candle other) {
+        this.symbol = other.symbol;
+        this.interval = other.interval;
+        this.openTime = other.openTime;
+        this.openPrice = other.openPrice;
+        this.highPrice = other.highPrice;
+        this.lowPrice = other.lowPrice;
+        this.closePrice = other.closePrice;
+        this.tickCount = other.tickCount;
+    }
+
+    public Candle() {
+    }
+
+    public void update(double price) {
+        if (price > highPrice) {
+            highPrice = price;
+        }
+        if (price < lowPrice) {
+            lowPrice = price;
+        }
+        closePrice = price;
+        tickCount++;
+    }
+
+    /**
+     * Folds in a later part of the same bar, such as the rest of a bar that was saved while still open at shutdown.
+     */
+    public void merge(Candle later) {
+        highPrice = Math.max(highPrice, later.highPrice);
+        lowPrice = Math.min(lowPrice, later.lowPrice);
+        closePrice = later.closePrice;
+        tickCount += later.tickCount;
+    }
+
+    public Instant getCloseTime() {
+        return openTime.plusMillis(interval.getMillis());
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public CandleInterval getInterval() {
+        return interval;
+    }
+
+    public Instant getOpenTime() {
+        return openTime;
+    }
+
+    public double getOpenPrice() {
+        return openPrice;
+    }
+
+    public double getHighPrice() {
+        return highPrice;
+    }
+
+    public double getLowPrice() {
+        return lowPrice;
+    }
+
+    public double getClosePrice() {
+        return closePrice;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || !this.getClass().equals(o.getClass())) {
+            return false;
+        }
+        Candle other = (Candle) o;
+        return Double.compare(other.openPrice, openPrice) == 0
+                && Double.compare(other.highPrice, highPrice) == 0
+                && Double.compare(other.lowPrice, lowPrice) == 0
+                && Double.compare(other.closePrice, closePrice) == 0
+                && tickCount == other.tickCount
+                && Objects.equals(symbol, other.symbol)
+                && interval == other.interval
+                && Objects.equals(openTime, other.openTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(symbol, interval, openTime, openPrice, highPrice, lowPrice, closePrice, tickCount);
+    }
+}
@@ -0,0 +1,46 @@
+package com.yahir.marketdataaggregator.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+public enum CandleInterval {
+    ONE_SECOND("1s", Duration.ofSeconds(1)),
+    ONE_MINUTE("1m", Duration.ofMinutes(1)),
+    FIVE_MINUTES("5m", Duration.ofMinutes(5)),
+    ONE_HOUR("1h", Duration.ofHours(1));
+
+    private final String label;
+    private final long millis;
+
+    CandleInterval(String label, Duration length) {
+        this.label = label;
+        this.millis = length.toMillis();
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    // Bars are aligned to the epoch, so a 1m bar always opens on a whole minute
+    public long bucketStart(long epochMillis) {
+        return Math.floorDiv(epochMillis, millis) * millis;
+    }
+
+    public Instant bucketStart(Instant timeStamp) {
+        return Instant.ofEpochMilli(bucketStart(timeStamp.toEpochMilli()));
+    }
+
+    public static Optional<CandleInterval> fromLabel(String label) {
+        for (CandleInterval interval : values()) {
+            if (interval.label.equalsIgnoreCase(label.trim())) {
+                return Optional.of(interval);
+            }
+        }
+        return Optional.empty();
+    }
+}
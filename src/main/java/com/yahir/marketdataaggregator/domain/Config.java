@@ -12,4 +12,9 @@ public class Config {
     public Clock fixedClock() {
         return Clock.systemUTC();
     }
+
+    @Bean
+    public SymbolDictionary symbolDictionary() {
+        return new SymbolDictionary();
+    }
 }
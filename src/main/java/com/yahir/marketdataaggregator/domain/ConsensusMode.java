@@ -0,0 +1,35 @@
+package com.yahir.marketdataaggregator.domain;
+
+import java.util.Optional;
+
+/**
+ * How the consensus price of a symbol is formed from the latest quote of each source.
+ */
+public enum ConsensusMode {
+    // The most recent quote, whichever source it came from
+    LATEST("latest"),
+    MEDIAN("median"),
+    // Mean after dropping the same share of the lowest and highest quotes
+    TRIMMED_MEAN("trimmed-mean"),
+    // Mean weighted by a configured weight per source
+    WEIGHTED("weighted");
+
+    private final String label;
+
+    ConsensusMode(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static Optional<ConsensusMode> fromLabel(String label) {
+        for (ConsensusMode mode : values()) {
+            if (mode.label.equalsIgnoreCase(label.trim())) {
+                return Optional.of(mode);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,126 @@
+package com.yahir.marketdataaggregator.domain;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A lock-free map from {@link SymbolDictionary} ids to values: an array indexed by id, split into fixed-size
+ * pages that are allocated the first time an id in their range is used. Lookups and updates neither hash nor box
+ * the key. Values can be replaced but not removed.
+ */
+public final class IdTable<V> {
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    // Replaced wholesale when a page is added, so a page reference read from it is always safely published
+    private volatile AtomicReferenceArray<V>[] pages = newPages(0);
+    private final AtomicInteger size = new AtomicInteger();
+
+    public V get(int id) {
+        AtomicReferenceArray<V>[] current = pages;
+        int page = id >>> PAGE_BITS;
+        if (page >= current.length || current[page] == null) {
+            return null;
+        }
+        return current[page].get(id & PAGE_MASK);
+    }
+
+    /**
+     * Stores {@code value} unless the id already has one, and returns the existing value or null.
+     */
+    public V putIfAbsent(int id, V value) {
+        AtomicReferenceArray<V> page = page(id);
+        V existing = page.compareAndExchange(id & PAGE_MASK, null, value);
+        if (existing == null) {
+            size.incrementAndGet();
+        }
+        return existing;
+    }
+
+    public V computeIfAbsent(int id, IntFunction<? extends V> factory) {
+        V existing = get(id);
+        if (existing != null) {
+            return existing;
+        }
+        V created = factory.apply(id);
+        existing = putIfAbsent(id, created);
+        return existing == null ? created : existing;
+    }
+
+    /**
+     * Replaces the value only if it is still {@code expected}, compared by identity.
+     */
+    public boolean compareAndSet(int id, V expected, V value) {
+        if (expected == null) {
+            return putIfAbsent(id, value) == null;
+        }
+        return page(id).compareAndSet(id & PAGE_MASK, expected, value);
+    }
+
+    public V getAndSet(int id, V value) {
+        V previous = page(id).getAndSet(id & PAGE_MASK, value);
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    /**
+     * The number of ids holding a value.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Visits every id holding a value, in id order.
+     */
+    public void forEach(ObjIntConsumer<? super V> action) {
+        AtomicReferenceArray<V>[] current = pages;
+        for (int page = 0; page < current.length; page++) {
+            if (current[page] == null) {
+                continue;
+            }
+            for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                V value = current[page].get(slot);
+                if (value != null) {
+                    action.accept(value, (page << PAGE_BITS) | slot);
+                }
+            }
+        }
+    }
+
+    private AtomicReferenceArray<V> page(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id " + id);
+        }
+        AtomicReferenceArray<V>[] current = pages;
+        int page = id >>> PAGE_BITS;
+        if (page < current.length && current[page] != null) {
+            return current[page];
+        }
+        return addPage(page);
+    }
+
+    private synchronized AtomicReferenceArray<V> addPage(int page) {
+        AtomicReferenceArray<V>[] current = pages;
+        if (page < current.length && current[page] != null) {
+            return current[page];
+        }
+        AtomicReferenceArray<V>[] grown = page < current.length ? current.clone()
+                : Arrays.copyOf(current, Math.max(page + 1, current.length * 2));
+        grown[page] = new AtomicReferenceArray<>(PAGE_SIZE);
+        pages = grown;
+        return grown[page];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> AtomicReferenceArray<V>[] newPages(int length) {
+        return (AtomicReferenceArray<V>[]) new AtomicReferenceArray<?>[length];
+    }
+}
@@ -0,0 +1,10 @@
+package com.yahir.marketdataaggregator.domain;
+
+/**
+ * Notified of every tick that reaches {@link MarketDataAggregator#ingest}, with the decision taken for it.
+ * Runs on the ingesting thread after any {@link BestPriceListener}, so implementations must return quickly.
+ */
+@FunctionalInterface
+public interface IngestListener {
+    void ingested(PriceTick tick, IngestOutcome outcome);
+}
@@ -0,0 +1,16 @@
+package com.yahir.marketdataaggregator.domain;
+
+public enum IngestOutcome {
+    EMPTY,
+    STALE,
+    ACCEPTED,
+    OUTLIER,
+    REPLACED,
+    TIE_REPLACED,
+    TIE_KEPT,
+    OLDER;
+
+    public boolean changedBest() {
+        return this == ACCEPTED || this == REPLACED || this == TIE_REPLACED;
+    }
+}
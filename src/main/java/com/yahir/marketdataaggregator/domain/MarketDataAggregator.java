@@ -2,6 +2,8 @@ package com.yahir.marketdataaggregator.domain;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Clock;
@@ -14,62 +16,157 @@ import static java.lang.Math.abs;
 @Component
 public class MarketDataAggregator {
     private final Clock clock;
-    private final Duration staleThreshold = Duration.ofSeconds(60);
-    private final double outlierPct = 0.25;
-    private final Map<String, AggregatedPrice> bestBySymbol = new HashMap<>();
+    private final Duration staleThreshold;
+    private final long staleThresholdMillis;
+    private final double outlierPct;
+    // Null for the fixed outlierPct test against the current best
+    private final RollingOutlierFilter rollingFilter;
+    // Resolves the ids of every tick ingested here; ids are only meaningful next to this dictionary
+    private final SymbolDictionary dictionary;
+    // Indexed by symbol id, so the per-tick lookup and compare-and-set never hash the symbol
+    private final IdTable<AggregatedPrice> bestBySymbol = new IdTable<>();
+    // Copy-on-write arrays rather than CopyOnWriteArrayList: iterating those allocates an iterator per tick whenever
+    // the JIT cannot prove it does not escape
+    private volatile BestPriceListener[] listeners = new BestPriceListener[0];
+    private volatile IngestListener[] ingestListeners = new IngestListener[0];
     private static final Logger log = LoggerFactory.getLogger(MarketDataAggregator.class);
 
     public MarketDataAggregator(Clock clock) {
+        this(clock, Duration.ofSeconds(60), 0.25);
+    }
+
+    public MarketDataAggregator(Clock clock, Duration staleThreshold, double outlierPct) {
+        this(clock, staleThreshold, outlierPct, null);
+    }
+
+    @Autowired
+    public MarketDataAggregator(Clock clock, SymbolDictionary dictionary,
+                                @Value("${aggregator.stale-threshold:60s}") Duration staleThreshold,
+                                @Value("${aggregator.outlier-pct:0.25}") double outlierPct,
+                                @Value("${aggregator.outlier-filter:fixed}") String outlierFilter,
+                                @Value("${aggregator.ewma.alpha:0.05}") double alpha,
+                                @Value("${aggregator.ewma.k:4}") double k,
+                                @Value("${aggregator.ewma.warm-up:20}") int warmUp,
+                                @Value("${aggregator.ewma.min-pct:0.001}") double minPct) {
+        this(clock, staleThreshold, outlierPct, switch (outlierFilter) {
+            case "fixed" -> null;
+            case "ewma" -> new RollingOutlierFilter(alpha, k, warmUp, outlierPct, minPct);
+            default -> throw new IllegalArgumentException("aggregator.outlier-filter must be fixed or ewma");
+        }, dictionary);
+    }
+
+    /**
+     * With a {@link RollingOutlierFilter}, outliers are judged by it instead of by the fixed {@code outlierPct}
+     * move from the current best; {@code outlierPct} then only applies while a symbol's filter warms up.
+     */
+    public MarketDataAggregator(Clock clock, Duration staleThreshold, double outlierPct,
+                                RollingOutlierFilter rollingFilter) {
+        this(clock, staleThreshold, outlierPct, rollingFilter, new SymbolDictionary());
+    }
+
+    public MarketDataAggregator(Clock clock, Duration staleThreshold, double outlierPct,
+                                RollingOutlierFilter rollingFilter, SymbolDictionary dictionary) {
+        if (staleThreshold.isNegative()) {
+            throw new IllegalArgumentException("staleThreshold must not be negative");
+        }
+        if (!(outlierPct > 0)) {
+            throw new IllegalArgumentException("outlierPct must be positive");
+        }
         this.clock = clock;
+        this.staleThreshold = staleThreshold;
+        this.staleThresholdMillis = staleThreshold.toMillis();
+        this.outlierPct = outlierPct;
+        this.rollingFilter = rollingFilter;
+        this.dictionary = dictionary;
     }
 
-    public void ingest(PriceTick tick) {
+    public Duration getStaleThreshold() {
+        return staleThreshold;
+    }
+
+    public double getOutlierPct() {
+        return outlierPct;
+    }
+
+    public SymbolDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public IngestOutcome ingest(PriceTick tick) {
+        tick.resolve(dictionary);
+        IngestOutcome outcome = apply(tick);
+        if (ingestListeners.length > 0) {
+            notifyIngestListeners(tick, outcome);
+        }
+        return outcome;
+    }
+
+    // Every tick passes through here, so nothing on the rejected paths allocates: the clock is read as millis rather
+    // than an Instant and log arguments are only built when their level is enabled. Only a tick that becomes the
+    // new best allocates, for the AggregatedPrice that is published to readers and listeners.
+    private IngestOutcome apply(PriceTick tick) {
         if (tick.isEmpty()) {
             log.debug("Ignored empty tick for symbol={} source={}", tick.getSymbol(), tick.getSource());
-            return;
+            return IngestOutcome.EMPTY;
         }
 
-        Instant now = clock.instant();
-        if (isStale(tick, now)) {
-            log.warn("Rejected stale tick for symbol={} ts={} now={} source={}",
-                    tick.getSymbol(), tick.getTimeStamp(), now, tick.getSource());
-            return;
+        long nowMillis = clock.millis();
+        if (isStale(tick, nowMillis)) {
+            if (log.isWarnEnabled()) {
+                log.warn("Rejected stale tick for symbol={} ts={} now={} source={}",
+                        tick.getSymbol(), tick.getTimeStamp(), Instant.ofEpochMilli(nowMillis), tick.getSource());
+            }
+            return IngestOutcome.STALE;
         }
 
-        String tickSymbol = tick.getSymbol();
-        AggregatedPrice current = bestBySymbol.get(tickSymbol);
+        // Lock-free update: decide against the current snapshot and publish with a compare-and-set,
+        // retrying only when another thread changed the same symbol in between.
+        int symbolId = tick.getSymbolId();
+        AggregatedPrice candidate = null;
+        while (true) {
+            AggregatedPrice current = bestBySymbol.get(symbolId);
 
-        if (current == null) {
-            bestBySymbol.put(tickSymbol, new AggregatedPrice(tick));
-            log.info("Accepted new best price for symbol={} price={} source={} ts={}",
-                    tickSymbol, tick.getPrice(), tick.getSource(), tick.getTimeStamp());
-            return;
-        }
-        if (isOutlier(tick, current)) {
-            log.warn("Rejected outlier tick symbol={} price={} currentPrice={} pctThreshold={} source={}",
-                    tickSymbol, tick.getPrice(), current.getPrice(), outlierPct, tick.getSource());
-            return;
-        }
-        if (tick.getTimeStamp().isAfter(current.getTimeStamp())) {
-            bestBySymbol.put(tickSymbol, new AggregatedPrice(tick));
-            log.info("Replaced best price for symbol=[} oldTs={} newTs={} newPrice={} source={}",
-                    tickSymbol, tick.getTimeStamp(), current.getTimeStamp(), tick.getSource());
-            return;
-        }
+            if (current == null) {
+                if (candidate == null) {
+                    candidate = new AggregatedPrice(tick);
+                }
+                if (bestBySymbol.putIfAbsent(symbolId, candidate) == null) {
+                    if (rollingFilter != null) {
+                        rollingFilter.accept(symbolId, tick.getPrice());
+                    }
+                    if (log.isInfoEnabled()) {
+                        log.info("Accepted new best price for symbol={} price={} source={} ts={}",
+                                tick.getSymbol(), tick.getPrice(), tick.getSource(), tick.getTimeStamp());
+                    }
+                    notifyListeners(candidate);
+                    return IngestOutcome.ACCEPTED;
+                }
+                continue;
+            }
 
-        if (tick.getTimeStamp().equals(current.getTimeStamp())) {
-            if (shouldReplace(tick, current)) {
-                bestBySymbol.put(tickSymbol, new AggregatedPrice(tick));
-                log.info("Tie-break replaced best for symbol={} timeStamp={} newSource={}",
-                        tickSymbol, tick.getTimeStamp(), tick.getSource());
-                return;
+            IngestOutcome outcome = decide(tick, current);
+            if (!outcome.changedBest()) {
+                logRejected(outcome, tick, current);
+                if (outcome == IngestOutcome.OUTLIER && rollingFilter != null
+                        && tick.getTimeStamp().isAfter(current.getTimeStamp())) {
+                    // Stands in for the best the filter stopped, so a lasting move still widens the band; older
+                    // and tie-kept ticks never reach the statistics
+                    rollingFilter.accept(symbolId, tick.getPrice());
+                }
+                return outcome;
+            }
+            if (candidate == null) {
+                candidate = new AggregatedPrice(tick);
+            }
+            if (bestBySymbol.compareAndSet(symbolId, current, candidate)) {
+                if (rollingFilter != null) {
+                    rollingFilter.accept(symbolId, tick.getPrice());
+                }
+                logReplaced(outcome, tick, current);
+                notifyListeners(candidate);
+                return outcome;
             }
-            log.debug("Tie-break dropped tick for symbol={} source={} (kept {})",
-                    tickSymbol, tick.getSource(), tick.getTimeStamp());
-            return;
         }
-        log.debug("Tick ignored for symbol={} (older than current) tickTs={} currentTs={}",
-                tickSymbol, tick.getTimeStamp(), current.getTimeStamp());
     }
 
     public Optional<AggregatedPrice> getBest(String symbol) {
@@ -77,26 +174,138 @@ public class MarketDataAggregator {
             log.error("symbol is empty");
             return Optional.empty();
         }
-        String tickSymbol = symbol.trim().toUpperCase();
-        if (bestBySymbol.containsKey(tickSymbol) && bestBySymbol.get(tickSymbol).getPrice() > 0) {
-            return Optional.ofNullable(bestBySymbol.get(tickSymbol));
+        int symbolId = dictionary.symbols().find(symbol);
+        AggregatedPrice best = symbolId == SymbolDictionary.NO_ID ? null : bestBySymbol.get(symbolId);
+        if (best != null && best.getPrice() > 0) {
+            return Optional.of(best);
         } else {
             return Optional.empty();
         }
     }
 
+    /**
+     * A snapshot of every symbol's best price, keyed by symbol name.
+     */
     public Map<String, AggregatedPrice> getAllBest() {
-        return Collections.unmodifiableMap(bestBySymbol);
+        Map<String, AggregatedPrice> all = new LinkedHashMap<>();
+        bestBySymbol.forEach((best, symbolId) -> all.put(best.getSymbol(), best));
+        return Collections.unmodifiableMap(all);
     }
 
-    private boolean isStale(PriceTick priceTick, Instant now) {
-        if (priceTick.getTimeStamp().isBefore(now.minus(staleThreshold))) {
-            return true;
+    public synchronized void addListener(BestPriceListener listener) {
+        listeners = added(listeners, listener);
+    }
+
+    public synchronized void removeListener(BestPriceListener listener) {
+        listeners = removed(listeners, listener);
+    }
+
+    public synchronized void addIngestListener(IngestListener listener) {
+        ingestListeners = added(ingestListeners, listener);
+    }
+
+    public synchronized void removeIngestListener(IngestListener listener) {
+        ingestListeners = removed(ingestListeners, listener);
+    }
+
+    private static <T> T[] added(T[] array, T element) {
+        T[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = element;
+        return copy;
+    }
+
+    private static <T> T[] removed(T[] array, T element) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i].equals(element)) {
+                T[] copy = Arrays.copyOf(array, array.length - 1);
+                System.arraycopy(array, i + 1, copy, i, array.length - i - 1);
+                return copy;
+            }
         }
-        return false;
+        return array;
     }
 
-    private boolean isOutlier(PriceTick priceTick, AggregatedPrice best) {
+    private void notifyIngestListeners(PriceTick tick, IngestOutcome outcome) {
+        for (IngestListener listener : ingestListeners) {
+            try {
+                listener.ingested(tick, outcome);
+            } catch (RuntimeException e) {
+                log.warn("Ingest listener failed for symbol={}: {}", tick.getSymbol(), e.toString());
+            }
+        }
+    }
+
+    private void notifyListeners(AggregatedPrice best) {
+        for (BestPriceListener listener : listeners) {
+            try {
+                listener.bestChanged(best);
+            } catch (RuntimeException e) {
+                log.warn("Best price listener failed for symbol={}: {}", best.getSymbol(), e.toString());
+            }
+        }
+    }
+
+    private IngestOutcome decide(PriceTick tick, AggregatedPrice current) {
+        // The rolling test only reads the statistics, so repeating it on a compare-and-set retry is harmless
+        if (rollingFilter == null ? isOutlier(tick, current) : rollingFilter.rejects(tick.getSymbolId(), tick.getPrice())) {
+            return IngestOutcome.OUTLIER;
+        }
+        if (tick.getTimeStamp().isAfter(current.getTimeStamp())) {
+            return IngestOutcome.REPLACED;
+        }
+        if (tick.getTimeStamp().equals(current.getTimeStamp())) {
+            return shouldReplace(tick, current) ? IngestOutcome.TIE_REPLACED : IngestOutcome.TIE_KEPT;
+        }
+        return IngestOutcome.OLDER;
+    }
+
+    private void logReplaced(IngestOutcome outcome, PriceTick tick, AggregatedPrice current) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        if (outcome == IngestOutcome.TIE_REPLACED) {
+            log.info("Tie-break replaced best for symbol={} timeStamp={} newSource={}",
+                    tick.getSymbol(), tick.getTimeStamp(), tick.getSource());
+            return;
+        }
+        log.info("Replaced best price for symbol={} oldTs={} newTs={} newPrice={} source={}",
+                tick.getSymbol(), current.getTimeStamp(), tick.getTimeStamp(), tick.getPrice(), tick.getSource());
+    }
+
+    private void logRejected(IngestOutcome outcome, PriceTick tick, AggregatedPrice current) {
+        if (outcome == IngestOutcome.OUTLIER ? !log.isWarnEnabled() : !log.isDebugEnabled()) {
+            return;
+        }
+        if (outcome == IngestOutcome.OUTLIER && rollingFilter != null) {
+            int symbolId = tick.getSymbolId();
+            log.warn("Rejected outlier tick symbol={} price={} mean={} stdDev={} k={} source={}", tick.getSymbol(),
+                    tick.getPrice(), rollingFilter.mean(symbolId), rollingFilter.stdDev(symbolId),
+                    rollingFilter.getK(), tick.getSource());
+            return;
+        }
+        switch (outcome) {
+            case OUTLIER -> log.warn("Rejected outlier tick symbol={} price={} currentPrice={} pctThreshold={} source={}",
+                    tick.getSymbol(), tick.getPrice(), current.getPrice(), outlierPct, tick.getSource());
+            case TIE_KEPT -> log.debug("Tie-break dropped tick for symbol={} source={} (kept source={})",
+                    tick.getSymbol(), tick.getSource(), current.getSource());
+            default -> log.debug("Tick ignored for symbol={} (older than current) tickTs={} currentTs={}",
+                    tick.getSymbol(), tick.getTimeStamp(), current.getTimeStamp());
+        }
+    }
+
+    private boolean isStale(PriceTick priceTick, long nowMillis) {
+        // Compares against the cut-off in seconds and nanos rather than building an Instant for it
+        long cutoffMillis = nowMillis - staleThresholdMillis;
+        long cutoffSeconds = Math.floorDiv(cutoffMillis, 1000);
+        Instant timeStamp = priceTick.getTimeStamp();
+        if (timeStamp.getEpochSecond() != cutoffSeconds) {
+            return timeStamp.getEpochSecond() < cutoffSeconds;
+        }
+        return timeStamp.getNano() < Math.floorMod(cutoffMillis, 1000) * 1_000_000;
+    }
+
+    // Package-private so the outlier benchmark can compare it with RollingOutlierFilter
+    boolean isOutlier(PriceTick priceTick, AggregatedPrice best) {
         if (best.getPrice() <= 0) {
             return false;
         }
@@ -107,15 +316,14 @@ public class MarketDataAggregator {
         return false;
     }
 
-    private boolean shouldReplace(PriceTick priceTick, AggregatedPrice best) {
-
-        AggregatedPrice newTick = new AggregatedPrice(priceTick);
-        List<AggregatedPrice> prices = Arrays.asList(newTick, best);
-
-        prices.sort(Comparator.comparing((AggregatedPrice n) -> n.getSource().toUpperCase())
-                .thenComparing(AggregatedPrice::getPrice));
-
-        return prices.getFirst().equals(newTick);
-
+    // Package-private so the aggregation benchmarks can measure the tie-break on its own
+    // On a timestamp tie the source that sorts first ignoring case wins, then the lower price; a tick equal to the
+    // current best on both replaces it.
+    boolean shouldReplace(PriceTick priceTick, AggregatedPrice best) {
+        int bySource = priceTick.getSource().compareToIgnoreCase(best.getSource());
+        if (bySource != 0) {
+            return bySource < 0;
+        }
+        return Double.compare(priceTick.getPrice(), best.getPrice()) <= 0;
     }
 }
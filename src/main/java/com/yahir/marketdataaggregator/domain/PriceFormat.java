@@ -0,0 +1,20 @@
+package com.yahir.marketdataaggregator.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * How prices are shown to clients, the same on every endpoint, stream and export.
+ */
+public final class PriceFormat {
+
+    private PriceFormat() {
+    }
+
+    /**
+     * The price to two decimal places, rounded up.
+     */
+    public static BigDecimal toDecimal(double price) {
+        return new BigDecimal(price).setScale(2, RoundingMode.UP);
+    }
+}
@@ -1,12 +1,18 @@
 package com.yahir.marketdataaggregator.domain;
 
 import java.time.Instant;
+import java.util.Objects;
 
 public class PriceTick {
     private String symbol;
     private double price;
     private Instant timeStamp;
     private String source;
+    // Dictionary ids, resolved by the aggregator that ingests the tick against its own dictionary, so listeners
+    // never hash or normalize the strings again
+    private SymbolDictionary dictionary;
+    private int symbolId = SymbolDictionary.NO_ID;
+    private int sourceId = SymbolDictionary.NO_ID;
 
     public PriceTick() {
         this.symbol = null;
@@ -16,10 +22,10 @@ public class PriceTick {
     }
 
     public PriceTick(String symbol, double price, Instant timeStamp, String source) {
-        this.symbol = symbol.trim().toUpperCase();
+        setSymbol(Objects.requireNonNull(symbol, "symbol"));
         this.price = price;
         this.timeStamp = timeStamp;
-        this.source = source;
+        setSource(source);
     }
 
     public String getSymbol() {
@@ -27,7 +33,17 @@ public class PriceTick {
     }
 
     public void setSymbol(String symbol) {
-        this.symbol = symbol;
+        this.symbol = symbol == null ? null : SymbolDictionary.canonicalSymbol(symbol);
+        this.dictionary = null;
+        this.symbolId = SymbolDictionary.NO_ID;
+    }
+
+    /**
+     * The symbol's id in the dictionary of the aggregator that ingested the tick; {@link SymbolDictionary#NO_ID}
+     * before that.
+     */
+    public int getSymbolId() {
+        return symbolId;
     }
 
     public double getPrice() {
@@ -52,6 +68,28 @@ public class PriceTick {
 
     public void setSource(String source) {
         this.source = source;
+        this.dictionary = null;
+        this.sourceId = SymbolDictionary.NO_ID;
+    }
+
+    public int getSourceId() {
+        return sourceId;
+    }
+
+    // Called by the aggregator before it looks at the tick; a tick ingested again by the same aggregator keeps its ids
+    void resolve(SymbolDictionary dictionary) {
+        if (this.dictionary == dictionary) {
+            return;
+        }
+        symbolId = dictionary.symbols().idOf(symbol);
+        if (symbolId != SymbolDictionary.NO_ID) {
+            symbol = dictionary.symbols().nameOf(symbolId);
+        }
+        sourceId = dictionary.sources().idOf(source);
+        if (sourceId != SymbolDictionary.NO_ID) {
+            source = dictionary.sources().nameOf(sourceId);
+        }
+        this.dictionary = dictionary;
     }
 
     public boolean isEmpty() {
@@ -0,0 +1,137 @@
+package com.yahir.marketdataaggregator.domain;
+
+/**
+ * Per-symbol outlier test against an exponentially weighted mean and variance of the symbol's recent prices. A tick
+ * more than {@code k} standard deviations from the mean is rejected, so the band follows each symbol's own volatility
+ * rather than one percentage for every symbol. The deviation never counts as less than {@code minPct} of the mean,
+ * which keeps a run of identical prices from rejecting the first tick that moves.
+ * <p>
+ * Testing a price leaves the estimate alone; prices are folded in separately through {@link #accept}, so the caller
+ * decides which ticks the estimate learns from. Until a symbol has seen {@code warmUp} prices its variance means
+ * little, and ticks are instead rejected when they are more than {@code warmUpPct} away from the mean; such prices are
+ * left out of it. After that, a price outside the band is folded in clamped to the edge of the band: a single
+ * bad print moves it no more than a price at the edge would, while a lasting move in the price widens the band until
+ * the new level is accepted.
+ * <p>
+ * Each symbol's state is a handful of primitives updated in place under its own lock, so a test costs O(1) and,
+ * after the symbol's first accepted price, allocates nothing.
+ */
+public final class RollingOutlierFilter {
+
+    private final double alpha;
+    private final double k;
+    private final int warmUp;
+    private final double warmUpPct;
+    private final double minPct;
+    private final IdTable<Stats> bySymbol = new IdTable<>();
+
+    public RollingOutlierFilter(double alpha, double k, int warmUp, double warmUpPct, double minPct) {
+        if (!(alpha > 0 && alpha < 1)) {
+            throw new IllegalArgumentException("alpha must be in (0, 1)");
+        }
+        if (!(k > 0) || !(warmUpPct > 0) || minPct < 0) {
+            throw new IllegalArgumentException("k and warmUpPct must be positive and minPct must not be negative");
+        }
+        if (warmUp < 1) {
+            throw new IllegalArgumentException("warmUp must be at least 1");
+        }
+        this.alpha = alpha;
+        this.k = k;
+        this.warmUp = warmUp;
+        this.warmUpPct = warmUpPct;
+        this.minPct = minPct;
+    }
+
+    /**
+     * Tests the price against the symbol's estimate without changing it. Returns true if it is an outlier.
+     */
+    public boolean rejects(int symbolId, double price) {
+        Stats stats = bySymbol.get(symbolId);
+        if (stats == null) {
+            return false;
+        }
+        synchronized (stats) {
+            return stats.rejects(price, this);
+        }
+    }
+
+    /**
+     * Folds the price into the symbol's estimate, clamped to the band once the symbol is warmed up.
+     */
+    public void accept(int symbolId, double price) {
+        Stats stats = bySymbol.get(symbolId);
+        if (stats == null) {
+            stats = bySymbol.computeIfAbsent(symbolId, id -> new Stats());
+        }
+        synchronized (stats) {
+            stats.accept(price, this);
+        }
+    }
+
+    /**
+     * The symbol's current mean and standard deviation, for logging; NaN if it has not seen a tick yet.
+     */
+    public double mean(int symbolId) {
+        Stats stats = bySymbol.get(symbolId);
+        if (stats == null) {
+            return Double.NaN;
+        }
+        synchronized (stats) {
+            return stats.count == 0 ? Double.NaN : stats.mean;
+        }
+    }
+
+    public double stdDev(int symbolId) {
+        Stats stats = bySymbol.get(symbolId);
+        if (stats == null) {
+            return Double.NaN;
+        }
+        synchronized (stats) {
+            return stats.count == 0 ? Double.NaN : Math.sqrt(stats.variance);
+        }
+    }
+
+    public double getK() {
+        return k;
+    }
+
+    // Static, so the factory lambda captures nothing and is not allocated per lookup
+    private static final class Stats {
+        private long count;
+        private double mean;
+        private double variance;
+
+        private boolean rejects(double price, RollingOutlierFilter filter) {
+            return count > 0 && Math.abs(price - mean) > band(filter);
+        }
+
+        private void accept(double price, RollingOutlierFilter filter) {
+            if (count == 0) {
+                count = 1;
+                mean = price;
+                return;
+            }
+            double band = band(filter);
+            double deviation = price - mean;
+            if (Math.abs(deviation) > band) {
+                if (count < filter.warmUp) {
+                    // Too few prices yet to tell a bad print from a move, so it is left out
+                    return;
+                }
+                deviation = Math.copySign(band, deviation);
+            }
+            // Plain averages over the first prices, so the estimate does not lean on the first one for long
+            double weight = Math.max(filter.alpha, 1.0 / (count + 1));
+            double step = weight * deviation;
+            mean += step;
+            variance = (1 - weight) * (variance + deviation * step);
+            count++;
+        }
+
+        private double band(RollingOutlierFilter filter) {
+            return count < filter.warmUp
+                    ? filter.warmUpPct * Math.abs(mean)
+                    : Math.max(filter.k * Math.sqrt(variance), filter.minPct * Math.abs(mean));
+        }
+    }
+}
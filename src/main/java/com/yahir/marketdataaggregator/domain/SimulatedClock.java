@@ -0,0 +1,45 @@
+package com.yahir.marketdataaggregator.domain;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A clock that only moves when told to, so recorded ticks can be replayed through the aggregator with the
+ * staleness decisions they originally got, at whatever speed the replay runs.
+ */
+public class SimulatedClock extends Clock {
+    // Shared with the views returned by withZone so they all follow set()
+    private final AtomicReference<Instant> now;
+    private final ZoneId zone;
+
+    public SimulatedClock(Instant start) {
+        this(new AtomicReference<>(start), ZoneOffset.UTC);
+    }
+
+    private SimulatedClock(AtomicReference<Instant> now, ZoneId zone) {
+        this.now = now;
+        this.zone = zone;
+    }
+
+    public void set(Instant instant) {
+        now.set(instant);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new SimulatedClock(now, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return now.get();
+    }
+}
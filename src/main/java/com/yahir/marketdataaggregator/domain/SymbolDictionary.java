@@ -0,0 +1,108 @@
+package com.yahir.marketdataaggregator.domain;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns each distinct symbol and source a small integer id, once, so the ingest path and the in-memory
+ * structures behind it can key on ids and share one canonical string per name. Ids are dense, start at 0 and are
+ * never reused; a dictionary only grows.
+ * <p>
+ * Ids only mean something next to the {@link MarketDataAggregator} that assigned them: each aggregator resolves
+ * the ticks it ingests against its own dictionary. The live one is a bean shared with the services around it,
+ * while a replay builds a fresh dictionary and leaves the live names untouched.
+ * <p>
+ * Symbols are trimmed and upper-cased before every lookup, so each symbol is stored once whatever spelling it
+ * arrives in. Only ticks add names; lookups from requests use {@link Names#find} and leave the dictionary unchanged.
+ */
+public final class SymbolDictionary {
+
+    public static final int NO_ID = -1;
+
+    private final Names symbols = new Names(true);
+    private final Names sources = new Names(false);
+
+    public Names symbols() {
+        return symbols;
+    }
+
+    public Names sources() {
+        return sources;
+    }
+
+    /**
+     * The form symbols are stored in.
+     */
+    public static String canonicalSymbol(String name) {
+        return name.trim().toUpperCase(Locale.ROOT);
+    }
+
+    public static final class Names {
+
+        private final boolean normalize;
+        // Canonical names to ids
+        private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+        private volatile String[] names = new String[64];
+        private volatile int size;
+
+        private Names(boolean normalize) {
+            this.normalize = normalize;
+        }
+
+        /**
+         * The id of {@code name}, assigning the next one if the name is new; {@link #NO_ID} for null.
+         */
+        public int idOf(String name) {
+            if (name == null) {
+                return NO_ID;
+            }
+            String canonical = canonical(name);
+            Integer id = ids.get(canonical);
+            return id != null ? id : ids.computeIfAbsent(canonical, this::append);
+        }
+
+        /**
+         * The id of {@code name} if it has been seen before, otherwise {@link #NO_ID}.
+         */
+        public int find(String name) {
+            if (name == null) {
+                return NO_ID;
+            }
+            Integer id = ids.get(canonical(name));
+            return id == null ? NO_ID : id;
+        }
+
+        public String nameOf(int id) {
+            if (id < 0 || id >= size) {
+                throw new IllegalArgumentException("Unknown id " + id);
+            }
+            return names[id];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private String canonical(String name) {
+            return normalize ? canonicalSymbol(name) : name;
+        }
+
+        // Runs inside computeIfAbsent, so a name is appended at most once; the id is only handed out after the name
+        // is stored, which makes it visible to whoever resolves the id
+        private synchronized Integer append(String canonical) {
+            int id = size;
+            String[] current = names;
+            if (id == current.length) {
+                current = Arrays.copyOf(current, id * 2);
+                current[id] = canonical;
+                names = current;
+            } else {
+                current[id] = canonical;
+            }
+            size = id + 1;
+            return id;
+        }
+    }
+}
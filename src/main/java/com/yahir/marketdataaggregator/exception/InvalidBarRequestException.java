@@ -0,0 +1,8 @@
+package com.yahir.marketdataaggregator.exception;
+
+public class InvalidBarRequestException extends RuntimeException {
+
+    public InvalidBarRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.yahir.marketdataaggregator.exception;
+
+public class InvalidConsensusRequestException extends RuntimeException {
+
+    public InvalidConsensusRequestException(String message) {
+        super(message);
+    }
+}
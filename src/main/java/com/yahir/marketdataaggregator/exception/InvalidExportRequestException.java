@@ -0,0 +1,8 @@
+package com.yahir.marketdataaggregator.exception;
+
+public class InvalidExportRequestException extends RuntimeException {
+
+    public InvalidExportRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.yahir.marketdataaggregator.exception;
+
+public class InvalidPageRequestException extends RuntimeException {
+
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+}
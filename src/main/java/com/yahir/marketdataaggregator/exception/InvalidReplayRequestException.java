@@ -0,0 +1,8 @@
+package com.yahir.marketdataaggregator.exception;
+
+public class InvalidReplayRequestException extends RuntimeException {
+
+    public InvalidReplayRequestException(String message) {
+        super(message);
+    }
+}
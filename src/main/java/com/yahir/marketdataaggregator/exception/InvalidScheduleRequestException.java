@@ -0,0 +1,8 @@
+package com.yahir.marketdataaggregator.exception;
+
+public class InvalidScheduleRequestException extends RuntimeException {
+
+    public InvalidScheduleRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package com.yahir.marketdataaggregator.repository;
+
+import com.yahir.marketdataaggregator.domain.Candle;
+import com.yahir.marketdataaggregator.domain.CandleInterval;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CandleRepository extends JpaRepository<Candle, Long> {
+
+    // Served by the unique (symbol, bar_interval, openTime) index, in index order
+    @Query("select c from Candle c where c.symbol = :symbol and c.interval = :interval " +
+            "and c.openTime >= :start and c.openTime <= :end " +
+            "order by c.symbol, c.interval, c.openTime")
+    List<Candle> findBars(@Param("symbol") String symbol, @Param("interval") CandleInterval interval,
+                          @Param("start") Instant start, @Param("end") Instant end, Limit limit);
+
+    // A superset of the rows matching any of the given bars, which the caller narrows down by interval
+    @Query("select c from Candle c where c.symbol in :symbols and c.openTime in :openTimes")
+    List<Candle> findExisting(@Param("symbols") Collection<String> symbols,
+                              @Param("openTimes") Collection<Instant> openTimes);
+}
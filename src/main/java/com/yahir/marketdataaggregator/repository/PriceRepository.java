@@ -1,15 +1,87 @@
 package com.yahir.marketdataaggregator.repository;
 
 import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PriceRepository extends JpaRepository<AggregatedPrice, Long> {
-    List<AggregatedPrice> findBySymbol(String symbol);
-    List<AggregatedPrice> findByTimeStampBetween(Instant start, Instant end);
-    List<AggregatedPrice> findBySymbolAndTimeStampBetween(String symbol, Instant start, Instant end);
+    // Every history query returns rows in the order of the index it scans: (symbol, timeStamp, id) when filtering
+    // on a symbol, (timeStamp, id) otherwise. Symbol queries also order by the (constant) symbol so that engines
+    // which only match an ORDER BY against a full index prefix, such as H2, can skip the sort as well.
+
+    @Query("select p from AggregatedPrice p where p.symbol = :symbol order by p.symbol, p.timeStamp, p.id")
+    List<AggregatedPrice> findBySymbol(@Param("symbol") String symbol);
+
+    @Query("select p from AggregatedPrice p where p.timeStamp between :start and :end order by p.timeStamp, p.id")
+    List<AggregatedPrice> findByTimeStampBetween(@Param("start") Instant start, @Param("end") Instant end);
+
+    @Query("select p from AggregatedPrice p where p.symbol = :symbol and p.timeStamp between :start and :end " +
+            "order by p.symbol, p.timeStamp, p.id")
+    List<AggregatedPrice> findBySymbolAndTimeStampBetween(@Param("symbol") String symbol, @Param("start") Instant start,
+                                                          @Param("end") Instant end);
+
+    // Keyset pages ordered by (timeStamp, id): each page seeks past the last row of the previous one,
+    // so the cost of a page does not grow with how deep the client has paged. The "timeStamp >= :ts" bound
+    // gives the index a start key; the rest only filters out rows sharing the cursor's timestamp.
+
+    List<AggregatedPrice> findAllByOrderByTimeStampAscIdAsc(Limit limit);
+
+    @Query("select p from AggregatedPrice p where p.timeStamp >= :ts and (p.timeStamp > :ts or p.id > :id) " +
+            "order by p.timeStamp asc, p.id asc")
+    List<AggregatedPrice> findPageAfter(@Param("ts") Instant ts, @Param("id") long id, Limit limit);
+
+    @Query("select p from AggregatedPrice p where p.symbol = :symbol order by p.symbol, p.timeStamp, p.id")
+    List<AggregatedPrice> findSymbolPage(@Param("symbol") String symbol, Limit limit);
+
+    @Query("select p from AggregatedPrice p where p.symbol = :symbol " +
+            "and p.timeStamp >= :ts and (p.timeStamp > :ts or p.id > :id) " +
+            "order by p.symbol, p.timeStamp, p.id")
+    List<AggregatedPrice> findSymbolPageAfter(@Param("symbol") String symbol, @Param("ts") Instant ts,
+                                              @Param("id") long id, Limit limit);
+
+    @Query("select p from AggregatedPrice p where p.timeStamp >= :start and p.timeStamp <= :end " +
+            "and p.timeStamp >= :ts and (p.timeStamp > :ts or p.id > :id) " +
+            "order by p.timeStamp asc, p.id asc")
+    List<AggregatedPrice> findRangePageAfter(@Param("start") Instant start, @Param("end") Instant end,
+                                             @Param("ts") Instant ts, @Param("id") long id, Limit limit);
+
+    @Query("select p from AggregatedPrice p where p.symbol = :symbol and p.timeStamp >= :start and p.timeStamp <= :end " +
+            "and p.timeStamp >= :ts and (p.timeStamp > :ts or p.id > :id) " +
+            "order by p.symbol, p.timeStamp, p.id")
+    List<AggregatedPrice> findSymbolRangePageAfter(@Param("symbol") String symbol, @Param("start") Instant start,
+                                                   @Param("end") Instant end, @Param("ts") Instant ts,
+                                                   @Param("id") long id, Limit limit);
+
+    // Forward-only streams for bulk export. They must be consumed inside a transaction and closed; the fetch size
+    // keeps the driver from materialising the whole result (PostgreSQL only honours it with autocommit off).
+    // Read-only entities skip Hibernate's dirty-checking snapshots.
+
+    String EXPORT_FETCH_SIZE = "1000";
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from AggregatedPrice p where p.symbol = :symbol order by p.symbol, p.timeStamp, p.id")
+    Stream<AggregatedPrice> streamBySymbol(@Param("symbol") String symbol);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from AggregatedPrice p where p.symbol = :symbol and p.timeStamp >= :start and p.timeStamp <= :end " +
+            "order by p.symbol, p.timeStamp, p.id")
+    Stream<AggregatedPrice> streamBySymbolBetween(@Param("symbol") String symbol, @Param("start") Instant start,
+                                                  @Param("end") Instant end);
 }
@@ -0,0 +1,177 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.BestPriceListener;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceFormat;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes best-price changes to subscribers. The ingest thread only marks a symbol dirty for each interested
+ * subscriber; delivery happens on a per-subscriber virtual thread that sends the aggregator's current best for
+ * every dirty symbol. A slow subscriber therefore sees conflated updates (only the latest value per symbol)
+ * and never holds back ingest or other subscribers.
+ */
+@Component
+public class BestPriceBroadcaster {
+
+    public record BestPriceEvent(String symbol, BigDecimal price, Instant timeStamp, String source) {}
+
+    public record BroadcastStats(int subscribers, long sent, long conflated, long failed) {}
+
+    @FunctionalInterface
+    public interface EventSink {
+        void send(BestPriceEvent event) throws IOException;
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(BestPriceBroadcaster.class);
+
+    private final MarketDataAggregator aggregator;
+    private final BestPriceListener listener = this::onBestChanged;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService deliveryExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("price-stream-", 0).factory());
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public BestPriceBroadcaster(MarketDataAggregator aggregator) {
+        this.aggregator = aggregator;
+        aggregator.addListener(listener);
+    }
+
+    /**
+     * Subscribes {@code sink} to the given symbols, or to every symbol when {@code symbols} is empty.
+     * The current best of each matching symbol is sent straight away.
+     */
+    public Subscription subscribe(Collection<String> symbols, EventSink sink) {
+        Set<String> filter = symbols.stream()
+                .filter(symbol -> symbol != null && !symbol.isBlank())
+                .map(PriceCacheKeys::symbol)
+                .collect(Collectors.toUnmodifiableSet());
+        Subscription subscription = new Subscription(filter, sink);
+        subscriptions.add(subscription);
+
+        if (filter.isEmpty()) {
+            aggregator.getAllBest().keySet().forEach(subscription::markDirty);
+        } else {
+            filter.forEach(subscription::markDirty);
+        }
+        return subscription;
+    }
+
+    public BroadcastStats getStats() {
+        return new BroadcastStats(subscriptions.size(), sent.get(), conflated.get(), failed.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        aggregator.removeListener(listener);
+        subscriptions.forEach(Subscription::cancel);
+        deliveryExecutor.shutdownNow();
+    }
+
+    private void onBestChanged(AggregatedPrice best) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.wants(best.getSymbol())) {
+                subscription.markDirty(best.getSymbol());
+            }
+        }
+    }
+
+    private static BestPriceEvent toEvent(AggregatedPrice price) {
+        return new BestPriceEvent(price.getSymbol(), PriceFormat.toDecimal(price.getPrice()), price.getTimeStamp(),
+                price.getSource());
+    }
+
+    public final class Subscription {
+        private final Set<String> symbols;
+        private final EventSink sink;
+        private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Only touched by the draining thread
+        private final Map<String, AggregatedPrice> lastSent = new HashMap<>();
+        private volatile boolean cancelled;
+
+        private Subscription(Set<String> symbols, EventSink sink) {
+            this.symbols = symbols;
+            this.sink = sink;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private boolean wants(String symbol) {
+            return symbols.isEmpty() || symbols.contains(symbol);
+        }
+
+        private void markDirty(String symbol) {
+            if (!dirty.add(symbol)) {
+                // Still waiting to be sent; the newer value will be picked up by the pending send
+                conflated.incrementAndGet();
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    deliveryExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                Iterator<String> pending = dirty.iterator();
+                while (pending.hasNext() && !cancelled) {
+                    String symbol = pending.next();
+                    pending.remove();
+                    send(symbol);
+                }
+                draining.set(false);
+                // A symbol marked dirty after the last pass but before the flag was cleared would otherwise be missed
+            } while (!cancelled && !dirty.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void send(String symbol) {
+            AggregatedPrice best = aggregator.getBest(symbol).orElse(null);
+            if (best == null || lastSent.get(symbol) == best) {
+                return;
+            }
+            try {
+                sink.send(toEvent(best));
+                lastSent.put(symbol, best);
+                sent.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                failed.incrementAndGet();
+                log.debug("Dropping price stream subscriber after send failure: {}", e.toString());
+                cancel();
+            }
+        }
+    }
+}
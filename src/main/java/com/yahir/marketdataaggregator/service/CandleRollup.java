@@ -0,0 +1,331 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.BestPriceListener;
+import com.yahir.marketdataaggregator.domain.Candle;
+import com.yahir.marketdataaggregator.domain.CandleInterval;
+import com.yahir.marketdataaggregator.domain.IdTable;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
+import com.yahir.marketdataaggregator.repository.CandleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains 1s/1m/5m/1h OHLC bars from every best-price change, at constant cost per tick. Closed bars are
+ * persisted in batches from a background thread, and {@link #getBars} answers from those bars plus the ones
+ * still open in memory, without ever reading the raw price table.
+ * <p>
+ * A bar closes as soon as a tick for a later bucket arrives. A bar whose symbol goes quiet is closed by the
+ * sweeper once {@code closeGrace} has passed its end; the grace matches the aggregator's staleness window, so
+ * no tick can still arrive for a bar after it has been swept.
+ * <p>
+ * A bar is saved over an existing row for the same symbol, interval and open time rather than next to it, since
+ * a restart in the middle of a bar saves it once at shutdown and again when it closes. Bars whose save fails stay
+ * queued and are retried, backing off up to a minute between flushes while the database stays unavailable.
+ */
+@Component
+public class CandleRollup {
+
+    public record RollupStats(int symbols, int pendingClosed, long closed, long persisted, long failed) {}
+
+    private static final Logger log = LoggerFactory.getLogger(CandleRollup.class);
+    private static final CandleInterval[] INTERVALS = CandleInterval.values();
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final MarketDataAggregator aggregator;
+    private final CandleRepository candleRepository;
+    private final Clock clock;
+    private final Duration flushInterval;
+    private final Duration closeGrace;
+    private final int maxBars;
+    private final BestPriceListener listener = this::onBestChanged;
+
+    private final IdTable<SymbolBars> openBars = new IdTable<>();
+    private final Queue<Candle> closedBars = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("candle-flusher").daemon().factory());
+
+    private final AtomicLong closed = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    // Flusher thread only: a failed flush keeps its bars queued and holds off the next attempt
+    private int failedFlushes;
+    private long retryAtNanos;
+    // Flusher thread only: how many bars at the head of the queue failed before and are already counted in failed
+    private int failedQueued;
+    private final Timer savedTimer;
+    private final Timer failedTimer;
+
+    public CandleRollup(MarketDataAggregator aggregator, CandleRepository candleRepository, Clock clock,
+                        Duration flushInterval, Duration closeGrace, int maxBars) {
+        this(aggregator, candleRepository, clock, Metrics.globalRegistry, flushInterval, closeGrace, maxBars);
+    }
+
+    @Autowired
+    public CandleRollup(MarketDataAggregator aggregator, CandleRepository candleRepository, Clock clock,
+                        MeterRegistry meterRegistry,
+                        @Value("${candles.flush-interval:1s}") Duration flushInterval,
+                        @Value("${candles.close-grace:60s}") Duration closeGrace,
+                        @Value("${candles.max-bars:5000}") int maxBars) {
+        this.aggregator = aggregator;
+        this.candleRepository = candleRepository;
+        this.clock = clock;
+        this.flushInterval = flushInterval;
+        this.closeGrace = closeGrace;
+        this.maxBars = maxBars;
+        this.savedTimer = RepositoryMetrics.saves(meterRegistry, "candles", "success");
+        this.failedTimer = RepositoryMetrics.saves(meterRegistry, "candles", "failure");
+        aggregator.addListener(listener);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::sweepAndFlush, flushInterval.toNanos(), flushInterval.toNanos(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        aggregator.removeListener(listener);
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Persist whatever is still open so a clean restart does not lose the current bars
+        openBars.forEach((bars, symbolId) -> bars.closeAll(Long.MAX_VALUE));
+        retryAtNanos = 0;
+        flush();
+    }
+
+    /**
+     * Bars for {@code symbol} opening within [start, end], oldest first, including bars that are still open.
+     */
+    public List<Candle> getBars(String symbol, CandleInterval interval, Instant start, Instant end) {
+        String key = PriceCacheKeys.symbol(symbol);
+        List<Candle> bars = new ArrayList<>(candleRepository.findBars(key, interval, start, end, Limit.of(maxBars)));
+        // Closed but not yet flushed, or still open: both only live in memory
+        for (Candle candle : closedBars) {
+            if (matches(candle, key, interval, start, end)) {
+                bars.add(candle);
+            }
+        }
+        int symbolId = aggregator.getDictionary().symbols().find(key);
+        SymbolBars symbolBars = symbolId == SymbolDictionary.NO_ID ? null : openBars.get(symbolId);
+        if (symbolBars != null) {
+            Candle open = symbolBars.snapshot(interval);
+            if (open != null && matches(open, key, interval, start, end)) {
+                bars.add(open);
+            }
+        }
+        // A bar can be seen both in the queue and in the table while a flush is running
+        List<Candle> result = new ArrayList<>(bars.size());
+        bars.sort(Comparator.comparing(Candle::getOpenTime));
+        for (Candle candle : bars) {
+            if (result.isEmpty() || !result.getLast().getOpenTime().equals(candle.getOpenTime())) {
+                result.add(candle);
+            }
+        }
+        return result.size() > maxBars ? result.subList(0, maxBars) : result;
+    }
+
+    public RollupStats getStats() {
+        return new RollupStats(openBars.size(), closedBars.size(), closed.get(), persisted.get(), failed.get());
+    }
+
+    /**
+     * Closes bars that ended more than {@code closeGrace} ago and persists every closed bar. Runs on the
+     * flusher thread every {@code flushInterval}.
+     */
+    public void sweepAndFlush() {
+        try {
+            long cutoff = clock.millis() - closeGrace.toMillis();
+            openBars.forEach((bars, symbolId) -> bars.closeAll(cutoff));
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Candle sweep failed", e);
+        }
+    }
+
+    private void flush() {
+        if (retryAtNanos != 0 && System.nanoTime() - retryAtNanos < 0) {
+            return;
+        }
+        List<Candle> batch = new ArrayList<>();
+        for (Candle candle : closedBars) {
+            batch.add(candle);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (!save(batch)) {
+            // A retried batch starts with the bars that failed last time, so each bar counts once
+            failed.addAndGet(batch.size() - failedQueued);
+            failedQueued = batch.size();
+            long backoff = Math.min(flushInterval.toNanos() << Math.min(failedFlushes, 20), MAX_BACKOFF_NANOS);
+            failedFlushes++;
+            retryAtNanos = System.nanoTime() + backoff;
+            log.error("Failed to persist {} closed candles, retrying in {}ms", batch.size(),
+                    TimeUnit.NANOSECONDS.toMillis(backoff));
+            return;
+        }
+        failedFlushes = 0;
+        retryAtNanos = 0;
+        failedQueued = 0;
+        persisted.addAndGet(batch.size());
+        // Removed only after the save so a concurrent getBars never misses a bar in between
+        for (int i = 0; i < batch.size(); i++) {
+            closedBars.poll();
+        }
+    }
+
+    private boolean save(List<Candle> batch) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            long start = System.nanoTime();
+            try {
+                candleRepository.saveAll(rows(batch));
+                savedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return true;
+            } catch (RuntimeException e) {
+                failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.warn("Candle flush attempt {} of {} failed for {} bars: {}",
+                        attempt, MAX_ATTEMPTS, batch.size(), e.toString());
+                if (attempt < MAX_ATTEMPTS) {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(100L * attempt);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // The rows to save for the batch: existing rows with the queued bar merged in, new rows for the rest. Queued bars
+    // are copied rather than saved themselves, so a failed attempt never leaves them holding an id.
+    private List<Candle> rows(List<Candle> batch) {
+        Set<String> symbols = new HashSet<>();
+        Set<Instant> openTimes = new HashSet<>();
+        for (Candle candle : batch) {
+            symbols.add(candle.getSymbol());
+            openTimes.add(candle.getOpenTime());
+        }
+        Map<BarKey, Candle> existing = new HashMap<>();
+        for (Candle row : candleRepository.findExisting(symbols, openTimes)) {
+            existing.put(new BarKey(row.getSymbol(), row.getInterval(), row.getOpenTime()), row);
+        }
+        List<Candle> rows = new ArrayList<>(batch.size());
+        for (Candle candle : batch) {
+            Candle row = existing.get(new BarKey(candle.getSymbol(), candle.getInterval(), candle.getOpenTime()));
+            if (row == null) {
+                rows.add(new Candle(candle));
+            } else {
+                row.merge(candle);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private record BarKey(String symbol, CandleInterval interval, Instant openTime) {}
+
+    private void onBestChanged(AggregatedPrice best) {
+        openBars.computeIfAbsent(best.getSymbolId(), symbolId -> new SymbolBars(aggregator.getDictionary().symbols().nameOf(symbolId)))
+                .update(best.getTimeStamp().toEpochMilli(), best.getPrice());
+    }
+
+    private static boolean matches(Candle candle, String symbol, CandleInterval interval, Instant start, Instant end) {
+        return candle.getSymbol().equals(symbol)
+                && candle.getInterval() == interval
+                && !candle.getOpenTime().isBefore(start)
+                && !candle.getOpenTime().isAfter(end);
+    }
+
+    private final class SymbolBars {
+        private final String symbol;
+        // Indexed by CandleInterval ordinal; guarded by this
+        private final Candle[] open = new Candle[INTERVALS.length];
+        // End of the last bar closed per interval, so a closed bar is never opened a second time
+        private final long[] closedUntil = new long[INTERVALS.length];
+
+        private SymbolBars(String symbol) {
+            this.symbol = symbol;
+        }
+
+        private synchronized void update(long epochMillis, double price) {
+            for (int i = 0; i < INTERVALS.length; i++) {
+                CandleInterval interval = INTERVALS[i];
+                long bucket = interval.bucketStart(epochMillis);
+                if (bucket < closedUntil[i]) {
+                    continue;
+                }
+                Candle current = open[i];
+                if (current != null) {
+                    long currentBucket = current.getOpenTime().toEpochMilli();
+                    if (bucket == currentBucket) {
+                        current.update(price);
+                        continue;
+                    }
+                    if (bucket < currentBucket) {
+                        // Best prices only move forward in time, but never reopen a bar if one does not
+                        continue;
+                    }
+                    close(i, current);
+                }
+                open[i] = new Candle(symbol, interval, Instant.ofEpochMilli(bucket), price);
+            }
+        }
+
+        private synchronized void closeAll(long cutoffMillis) {
+            for (int i = 0; i < open.length; i++) {
+                Candle current = open[i];
+                if (current != null && current.getCloseTime().toEpochMilli() <= cutoffMillis) {
+                    close(i, current);
+                    open[i] = null;
+                }
+            }
+        }
+
+        private synchronized Candle snapshot(CandleInterval interval) {
+            Candle current = open[interval.ordinal()];
+            return current == null ? null : new Candle(current);
+        }
+
+        private void close(int index, Candle candle) {
+            closedUntil[index] = candle.getCloseTime().toEpochMilli();
+            closedBars.add(candle);
+            closed.incrementAndGet();
+        }
+    }
+}
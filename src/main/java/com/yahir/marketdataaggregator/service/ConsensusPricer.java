@@ -0,0 +1,298 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.ConsensusMode;
+import com.yahir.marketdataaggregator.domain.IdTable;
+import com.yahir.marketdataaggregator.domain.IngestListener;
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps the latest quote of every source for each symbol and a consensus price over them, next to the single best
+ * price the aggregator picks. Every tick the aggregator does not reject (stale, outlier or empty) replaces its
+ * source's quote; quotes more than {@code maxAge} older than the newest tick drop out.
+ * <p>
+ * Quotes are also kept sorted by price, updated by shifting rather than re-sorting, so each tick costs
+ * O(number of sources) whichever {@link ConsensusMode} the symbol uses, and nothing is rescanned on read.
+ */
+@Component
+public class ConsensusPricer implements IngestListener {
+
+    public record Consensus(String symbol, ConsensusMode mode, double price, int sources, Instant timeStamp) {}
+
+    private final MarketDataAggregator aggregator;
+    private final ConsensusMode defaultMode;
+    private final double trim;
+    private final Duration maxAge;
+    private final Map<String, Double> weights;
+    private final IdTable<Quotes> bySymbol = new IdTable<>();
+
+    public ConsensusPricer(MarketDataAggregator aggregator, ConsensusMode defaultMode, double trim, Duration maxAge,
+                           Map<String, Double> weights) {
+        if (trim < 0 || trim >= 0.5) {
+            throw new IllegalArgumentException("consensus.trim must be in [0, 0.5)");
+        }
+        this.aggregator = aggregator;
+        this.defaultMode = defaultMode;
+        this.trim = trim;
+        this.maxAge = maxAge;
+        this.weights = Map.copyOf(weights);
+        aggregator.addIngestListener(this);
+    }
+
+    @Autowired
+    public ConsensusPricer(MarketDataAggregator aggregator,
+                           @Value("${consensus.default-mode:median}") String defaultMode,
+                           @Value("${consensus.trim:0.2}") double trim,
+                           @Value("${consensus.max-age:60s}") Duration maxAge,
+                           @Value("${consensus.weights:}") List<String> weights,
+                           @Value("${consensus.modes:}") List<String> modes) {
+        this(aggregator, mode(defaultMode), trim, maxAge, weights(weights));
+        for (String entry : modes) {
+            if (!entry.isBlank()) {
+                String[] parts = split(entry, "consensus.modes");
+                // Configured symbols are fixed by the deployment, so they may be added before any of their ticks
+                configure(aggregator.getDictionary().symbols().idOf(parts[0]), mode(parts[1]));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        aggregator.removeIngestListener(this);
+    }
+
+    @Override
+    public void ingested(PriceTick tick, IngestOutcome outcome) {
+        if (outcome == IngestOutcome.EMPTY || outcome == IngestOutcome.STALE || outcome == IngestOutcome.OUTLIER) {
+            return;
+        }
+        Quotes quotes = quotes(tick.getSymbolId());
+        synchronized (quotes) {
+            quotes.update(tick.getSourceId(), tick.getPrice(), tick.getTimeStamp());
+        }
+    }
+
+    public Optional<Consensus> getConsensus(String symbol) {
+        int symbolId = aggregator.getDictionary().symbols().find(symbol);
+        Quotes quotes = symbolId == SymbolDictionary.NO_ID ? null : bySymbol.get(symbolId);
+        return quotes == null ? Optional.empty() : Optional.ofNullable(quotes.consensus);
+    }
+
+    public ConsensusMode getMode(String symbol) {
+        int symbolId = aggregator.getDictionary().symbols().find(symbol);
+        Quotes quotes = symbolId == SymbolDictionary.NO_ID ? null : bySymbol.get(symbolId);
+        return quotes == null ? defaultMode : quotes.mode;
+    }
+
+    /**
+     * Switches the symbol to another mode, recomputing its consensus from the quotes already held. Returns false,
+     * changing nothing, for a symbol that has never been ingested.
+     */
+    public boolean setMode(String symbol, ConsensusMode mode) {
+        int symbolId = aggregator.getDictionary().symbols().find(symbol);
+        if (symbolId == SymbolDictionary.NO_ID) {
+            return false;
+        }
+        configure(symbolId, mode);
+        return true;
+    }
+
+    private void configure(int symbolId, ConsensusMode mode) {
+        Quotes quotes = quotes(symbolId);
+        synchronized (quotes) {
+            quotes.mode = mode;
+            quotes.recompute();
+        }
+    }
+
+    private Quotes quotes(int symbolId) {
+        return bySymbol.computeIfAbsent(symbolId, Quotes::new);
+    }
+
+    private static ConsensusMode mode(String label) {
+        return ConsensusMode.fromLabel(label)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown consensus mode: " + label));
+    }
+
+    private static Map<String, Double> weights(List<String> entries) {
+        Map<String, Double> weights = new HashMap<>();
+        for (String entry : entries) {
+            if (!entry.isBlank()) {
+                String[] parts = split(entry, "consensus.weights");
+                double weight = Double.parseDouble(parts[1].trim());
+                if (!(weight > 0)) {
+                    throw new IllegalArgumentException("consensus.weights must be positive: " + entry);
+                }
+                weights.put(parts[0].trim(), weight);
+            }
+        }
+        return weights;
+    }
+
+    private static String[] split(String entry, String property) {
+        String[] parts = entry.split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException(property + " entries are name:value, got " + entry);
+        }
+        return parts;
+    }
+
+    // Guarded by its own monitor; consensus is published for lock-free reads
+    private final class Quotes {
+        private final String symbol;
+        private ConsensusMode mode = defaultMode;
+        private int count;
+        // One slot per source, in arrival order
+        private int[] sourceIds = new int[4];
+        private double[] prices = new double[4];
+        private double[] sourceWeights = new double[4];
+        private Instant[] timeStamps = new Instant[4];
+        // The prices of the slots, ascending
+        private double[] sorted = new double[4];
+        private volatile Consensus consensus;
+
+        private Quotes(int symbolId) {
+            this.symbol = aggregator.getDictionary().symbols().nameOf(symbolId);
+        }
+
+        private void update(int sourceId, double price, Instant timeStamp) {
+            int slot = slotOf(sourceId);
+            if (slot >= 0 && timeStamp.isBefore(timeStamps[slot])) {
+                // A source's late tick must not overwrite its newer quote
+                return;
+            }
+            Instant cutOff = timeStamp.minus(maxAge);
+            for (int i = count - 1; i >= 0; i--) {
+                if (i != slot && timeStamps[i].isBefore(cutOff)) {
+                    remove(i);
+                    if (slot == count) {
+                        // remove() moved the last slot into i
+                        slot = i;
+                    }
+                }
+            }
+            if (slot >= 0) {
+                removeSorted(prices[slot]);
+            } else {
+                slot = add(sourceId);
+            }
+            prices[slot] = price;
+            timeStamps[slot] = timeStamp;
+            insertSorted(price);
+            recompute();
+        }
+
+        private int slotOf(int sourceId) {
+            for (int i = 0; i < count; i++) {
+                if (sourceIds[i] == sourceId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int add(int sourceId) {
+            if (count == sourceIds.length) {
+                int capacity = count * 2;
+                sourceIds = Arrays.copyOf(sourceIds, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                sourceWeights = Arrays.copyOf(sourceWeights, capacity);
+                timeStamps = Arrays.copyOf(timeStamps, capacity);
+                sorted = Arrays.copyOf(sorted, capacity);
+            }
+            sourceIds[count] = sourceId;
+            String source = sourceId == SymbolDictionary.NO_ID ? null : aggregator.getDictionary().sources().nameOf(sourceId);
+            sourceWeights[count] = source == null ? 1.0 : weights.getOrDefault(source, 1.0);
+            return count++;
+        }
+
+        private void remove(int slot) {
+            removeSorted(prices[slot]);
+            int last = count - 1;
+            sourceIds[slot] = sourceIds[last];
+            prices[slot] = prices[last];
+            sourceWeights[slot] = sourceWeights[last];
+            timeStamps[slot] = timeStamps[last];
+            timeStamps[last] = null;
+            count = last;
+        }
+
+        // The sorted array holds count - 1 prices while a slot is being replaced, count otherwise
+        private void insertSorted(double price) {
+            int size = count - 1;
+            int i = size;
+            while (i > 0 && sorted[i - 1] > price) {
+                sorted[i] = sorted[i - 1];
+                i--;
+            }
+            sorted[i] = price;
+        }
+
+        private void removeSorted(double price) {
+            int size = count;
+            int i = 0;
+            while (i < size && Double.compare(sorted[i], price) != 0) {
+                i++;
+            }
+            System.arraycopy(sorted, i + 1, sorted, i, size - i - 1);
+        }
+
+        private void recompute() {
+            if (count == 0) {
+                consensus = null;
+                return;
+            }
+            int newest = 0;
+            for (int i = 1; i < count; i++) {
+                if (timeStamps[i].isAfter(timeStamps[newest])) {
+                    newest = i;
+                }
+            }
+            double price = switch (mode) {
+                case LATEST -> prices[newest];
+                case MEDIAN -> median();
+                case TRIMMED_MEAN -> trimmedMean();
+                case WEIGHTED -> weightedMean();
+            };
+            consensus = new Consensus(symbol, mode, price, count, timeStamps[newest]);
+        }
+
+        private double median() {
+            int middle = count / 2;
+            return count % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+        }
+
+        private double trimmedMean() {
+            int dropped = (int) Math.floor(count * trim);
+            double sum = 0;
+            for (int i = dropped; i < count - dropped; i++) {
+                sum += sorted[i];
+            }
+            return sum / (count - 2 * dropped);
+        }
+
+        private double weightedMean() {
+            double weighted = 0;
+            double total = 0;
+            for (int i = 0; i < count; i++) {
+                weighted += prices[i] * sourceWeights[i];
+                total += sourceWeights[i];
+            }
+            return weighted / total;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.IngestListener;
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Counts every ingested tick by outcome and source as {@code marketdata.ingest.ticks}.
+ * <p>
+ * Counting sits on the aggregator's hottest path, where even one atomic increment per tick costs rejected ticks a
+ * large share of their throughput. Each ingesting thread therefore counts into its own block, indexed by source id
+ * and outcome, with plain writes, and the registry reads the totals through function counters that add the blocks
+ * up. A block only covers sources whose counters are registered, so the per-tick path is a bounds check and a
+ * store; anything else (a new thread, a new source) takes the slow path.
+ * <p>
+ * Blocks of threads that have ended are folded into a shared total when a new thread starts counting.
+ */
+@Component
+public class IngestMetrics implements IngestListener {
+
+    static final String TICKS = "marketdata.ingest.ticks";
+    private static final IngestOutcome[] OUTCOMES = IngestOutcome.values();
+    private static final VarHandle COUNT = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final MarketDataAggregator aggregator;
+    private final MeterRegistry registry;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(this::newBlock);
+    // The block used last; saves the thread-local lookup while one thread does the ingesting
+    private volatile Block recent;
+    // Guarded by this
+    private final List<Block> live = new ArrayList<>();
+    private long[] retired = new long[0];
+    // Slots below this have their counters registered; slot 0 is ticks without a source, slot n is source id n - 1
+    private int registeredSlots;
+
+    public IngestMetrics(MarketDataAggregator aggregator, MeterRegistry registry) {
+        this.aggregator = aggregator;
+        this.registry = registry;
+        aggregator.addIngestListener(this);
+    }
+
+    @PreDestroy
+    public void stop() {
+        aggregator.removeIngestListener(this);
+    }
+
+    @Override
+    public void ingested(PriceTick tick, IngestOutcome outcome) {
+        int index = (tick.getSourceId() + 1) * OUTCOMES.length + outcome.ordinal();
+        Block block = recent;
+        if (block == null || block.owner != Thread.currentThread()) {
+            block = blocks.get();
+            recent = block;
+        }
+        long[] counts = block.counts;
+        if (index >= counts.length) {
+            counts = block.grow(cover(tick.getSourceId() + 1));
+        }
+        COUNT.setOpaque(counts, index, (long) COUNT.getOpaque(counts, index) + 1);
+    }
+
+    // Registers every slot up to and including this one, and returns how many counts a block needs for them
+    private synchronized int cover(int slot) {
+        for (; registeredSlots <= slot; registeredSlots++) {
+            int first = registeredSlots * OUTCOMES.length;
+            String source = registeredSlots == 0 ? "none" : aggregator.getDictionary().sources().nameOf(registeredSlots - 1);
+            for (IngestOutcome outcome : OUTCOMES) {
+                int index = first + outcome.ordinal();
+                FunctionCounter.builder(TICKS, this, metrics -> metrics.total(index))
+                        .description("Ticks ingested by the aggregator, by outcome and source")
+                        .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                        .tag("source", source)
+                        .register(registry);
+            }
+        }
+        return registeredSlots * OUTCOMES.length;
+    }
+
+    private synchronized Block newBlock() {
+        // Threads come and go rarely, so this is where ended ones are folded away
+        for (int i = live.size() - 1; i >= 0; i--) {
+            Block block = live.get(i);
+            if (!block.owner.isAlive()) {
+                long[] counts = block.counts;
+                if (retired.length < counts.length) {
+                    retired = Arrays.copyOf(retired, counts.length);
+                }
+                for (int j = 0; j < counts.length; j++) {
+                    retired[j] += (long) COUNT.getOpaque(counts, j);
+                }
+                live.remove(i);
+            }
+        }
+        Block block = new Block(Thread.currentThread());
+        live.add(block);
+        return block;
+    }
+
+    private synchronized double total(int index) {
+        long total = index < retired.length ? retired[index] : 0;
+        for (Block block : live) {
+            long[] counts = block.counts;
+            if (index < counts.length) {
+                total += (long) COUNT.getOpaque(counts, index);
+            }
+        }
+        return total;
+    }
+
+    private static final class Block {
+        private final Thread owner;
+        // Written only by the owner; replaced by a larger copy when a new source appears
+        private volatile long[] counts = new long[0];
+
+        private Block(Thread owner) {
+            this.owner = owner;
+        }
+
+        private long[] grow(int length) {
+            long[] grown = Arrays.copyOf(counts, length);
+            counts = grown;
+            return grown;
+        }
+    }
+}
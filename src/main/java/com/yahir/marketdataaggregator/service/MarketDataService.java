@@ -2,62 +2,339 @@ package com.yahir.marketdataaggregator.service;
 
 import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
 import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.IdTable;
 import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
 import com.yahir.marketdataaggregator.repository.PriceRepository;
 import com.yahir.marketdataaggregator.sources.PriceSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class MarketDataService {
     private final List<PriceSource> priceSources;
     private final MarketDataAggregator aggregator;
     private final PriceRepository priceRepository;
+    private final PriceWriteBehind writeBehind;
+    private final PriceCacheInvalidator cacheInvalidator;
+    // Set when a convenience constructor started the write-behind, which is then stopped with the service
+    private boolean ownsWriteBehind;
+    private final Duration sourceTimeout;
+    private final ExecutorService sourceExecutor;
+    private final AtomicLong lateResults = new AtomicLong();
+    private final Timer pollTimer;
+    // Both parallel to priceSources
+    private final List<SourceMeters> sourceMeters;
+    private final List<SourceHealth.Breaker> breakers;
+    private final IdTable<AggregatedPrice> lastPersisted = new IdTable<>();
+    // The latest poll of each symbol by canonical name, running or finished. Keyed by name rather than dictionary
+    // id so polling a symbol nobody prices adds nothing to the dictionary; finished flights are swept once they can
+    // no longer throttle a poll, so requests cannot grow the map either.
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime());
+    private final long minIntervalNanos;
+    private final Counter joinedPolls;
+    private final Counter throttledPolls;
     private final Logger log = LoggerFactory.getLogger(MarketDataService.class);
 
     public MarketDataService(List<PriceSource> priceSources, MarketDataAggregator aggregator, PriceRepository priceRepository) {
+        this(priceSources, aggregator, priceRepository, Duration.ofSeconds(2));
+    }
+
+    public MarketDataService(List<PriceSource> priceSources, MarketDataAggregator aggregator, PriceRepository priceRepository,
+                             Duration sourceTimeout) {
+        this(priceSources, aggregator, priceRepository, startedWriteBehind(priceRepository),
+                new PriceCacheInvalidator(new NoOpCacheManager()), SourceHealth.disabled(), new SimpleMeterRegistry(),
+                sourceTimeout, Duration.ZERO);
+        this.ownsWriteBehind = true;
+    }
+
+    @Autowired
+    public MarketDataService(List<PriceSource> priceSources, MarketDataAggregator aggregator, PriceRepository priceRepository,
+                             PriceWriteBehind writeBehind, PriceCacheInvalidator cacheInvalidator,
+                             SourceHealth sourceHealth, MeterRegistry meterRegistry,
+                             @Value("${poll.source-timeout:2s}") Duration sourceTimeout,
+                             @Value("${poll.min-interval:0s}") Duration minInterval) {
         this.priceSources = priceSources;
         this.aggregator = aggregator;
         this.priceRepository = priceRepository;
+        this.writeBehind = writeBehind;
+        this.cacheInvalidator = cacheInvalidator;
+        this.sourceTimeout = sourceTimeout;
+        this.sourceExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("price-source-", 0).factory());
+        this.pollTimer = Timer.builder("marketdata.poll")
+                .description("Time taken by one poll, from querying the sources to handing off the new best price")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.sourceMeters = priceSources.stream().map(source -> new SourceMeters(meterRegistry, source)).toList();
+        this.breakers = priceSources.stream().map(sourceHealth::breaker).toList();
+        this.minIntervalNanos = minInterval.toNanos();
+        this.joinedPolls = coalesced(meterRegistry, "joined");
+        this.throttledPolls = coalesced(meterRegistry, "throttled");
     }
 
-    @CacheEvict(
-            cacheNames = {"bestPrice", "allBestPrices", "allPrices", "allPricesForSymbol", "allPricesBetween", "priceHistoryForSymbolBetween"},
-            allEntries = true)
+    /**
+     * Polls one symbol. A caller arriving while a poll of the same symbol is running waits for that poll and shares
+     * its outcome, exception included, instead of querying the sources again. A caller arriving within
+     * {@code minInterval} of the last poll finishing returns at once, the best price being as fresh as that poll
+     * left it.
+     */
     public void pollOnce(String symbol) {
+        pollMany(List.of(symbol));
+    }
+
+    /**
+     * Polls several symbols in one pass. Each source is asked for them in batches of its
+     * {@link PriceSource#maxBatchSize()}, so a source with a bulk request costs one call per batch rather than one
+     * per symbol, and all calls share a single deadline.
+     * <p>
+     * Coalesced per symbol as in {@link #pollOnce}: symbols another caller is polling are left out of the pass and
+     * waited for once it is done, and symbols polled within {@code minInterval} are left out altogether.
+     */
+    public void pollMany(List<String> symbols) {
+        List<String> claimed = new ArrayList<>(symbols.size());
+        List<String> keys = new ArrayList<>(symbols.size());
+        List<Flight> started = new ArrayList<>(symbols.size());
+        List<Flight> joined = new ArrayList<>();
+        for (String symbol : symbols) {
+            String key = SymbolDictionary.canonicalSymbol(symbol);
+            Flight flight = claim(key, joined);
+            if (flight != null) {
+                claimed.add(symbol);
+                keys.add(key);
+                started.add(flight);
+            }
+        }
+        if (!started.isEmpty()) {
+            sweepFlights();
+            Throwable failure = null;
+            try {
+                timedPoll(claimed);
+            } catch (Throwable e) {
+                // Errors too: a flight left unfinished would block every later poll of its symbol
+                failure = e;
+                throw e;
+            } finally {
+                for (int i = 0; i < started.size(); i++) {
+                    started.get(i).finish(failure);
+                    if (minIntervalNanos == 0) {
+                        flights.remove(keys.get(i), started.get(i));
+                    }
+                }
+            }
+        }
+        // Only after finishing this pass's own flights, so two batches waiting on each other cannot deadlock
+        for (Flight flight : joined) {
+            flight.await();
+        }
+    }
+
+    // Starts a flight for the symbol, or returns null when a running poll is joined (added to joined) or the last
+    // one finished less than minInterval ago
+    private Flight claim(String key, List<Flight> joined) {
+        while (true) {
+            Flight last = flights.get(key);
+            if (last != null && !last.result.isDone()) {
+                joinedPolls.increment();
+                joined.add(last);
+                return null;
+            }
+            if (last != null && System.nanoTime() - last.finishedNanos < minIntervalNanos) {
+                throttledPolls.increment();
+                return null;
+            }
+            Flight flight = new Flight();
+            if (last == null ? flights.putIfAbsent(key, flight) == null : flights.replace(key, last, flight)) {
+                return flight;
+            }
+            // Another caller started a poll first; go round again and join it
+        }
+    }
+
+    // At most once per minInterval, drops the finished flights that have stopped throttling
+    private void sweepFlights() {
+        long now = System.nanoTime();
+        long next = nextSweepNanos.get();
+        if (now - next < 0 || !nextSweepNanos.compareAndSet(next, now + minIntervalNanos)) {
+            return;
+        }
+        flights.values().removeIf(flight -> flight.result.isDone() && now - flight.finishedNanos >= minIntervalNanos);
+    }
+
+    private void timedPoll(List<String> symbols) {
+        long start = System.nanoTime();
+        try {
+            poll(symbols);
+        } finally {
+            pollTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void poll(List<String> symbols) {
+        if (symbols.isEmpty()) {
+            return;
+        }
         if (priceSources.isEmpty()) {
-            log.warn("pollOnce called but no sources found for symbol={}", symbol);
+            log.warn("poll called but no sources found for symbols={}", describe(symbols));
             return;
         }
-        log.info("pollOnce start for symbol={}, sources={}", symbol, priceSources.size());
-        for (PriceSource source : priceSources) {
-            Optional<PriceTick> tick = source.getLatestTick(symbol);
-            log.debug("source={} returned tickPresent={}", source.name(), tick.isPresent());
+        log.info("poll start for symbols={}, sources={}", describe(symbols), priceSources.size());
+
+        // Query every source at once so a poll costs the slowest source rather than the sum of all of them.
+        // Sources whose breaker is open are skipped
+        List<PendingCall> pending = new ArrayList<>(priceSources.size());
+        for (int i = 0; i < priceSources.size(); i++) {
+            PriceSource source = priceSources.get(i);
+            Timer latency = sourceMeters.get(i).latency();
+            int batchSize = Math.max(1, source.maxBatchSize());
+            for (int from = 0; from < symbols.size(); from += batchSize) {
+                if (!breakers.get(i).tryAcquire()) {
+                    sourceMeters.get(i).skipped().increment();
+                    log.debug("source={} skipped, its breaker is open", source.name());
+                    continue;
+                }
+                List<String> batch = symbols.subList(from, Math.min(symbols.size(), from + batchSize));
+                pending.add(new PendingCall(i, sourceExecutor.submit(() -> timedTicks(source, batch, latency))));
+            }
+        }
+        long submitted = System.nanoTime();
+        long deadline = submitted + sourceTimeout.toNanos();
 
-            if (tick.isPresent()) {
-                PriceTick priceTick = tick.get();
+        for (PendingCall call : pending) {
+            PriceSource source = priceSources.get(call.source());
+            List<PriceTick> ticks = awaitTicks(source, sourceMeters.get(call.source()), breakers.get(call.source()),
+                    call.result(), submitted, deadline);
+            log.debug("source={} returned ticks={}", source.name(), ticks.size());
+
+            for (PriceTick priceTick : ticks) {
                 log.info("forwarding tick to aggregator: symbol={}, price={}, ts={}, source={}",
-                        symbol, priceTick.getPrice() ,priceTick.getTimeStamp(), priceTick.getSource());
+                        priceTick.getSymbol(), priceTick.getPrice(), priceTick.getTimeStamp(), priceTick.getSource());
                 aggregator.ingest(priceTick);
             }
         }
+        for (String symbol : symbols) {
+            persistIfChanged(symbol);
+        }
+        log.info("poll complete for symbols={}", describe(symbols));
+    }
+
+    private void persistIfChanged(String symbol) {
         Optional<AggregatedPrice> bestPrice = aggregator.getBest(symbol);
         if (bestPrice.isPresent()) {
             AggregatedPrice best = bestPrice.get();
-            priceRepository.save(best);
+            // Only record a row when the best price actually changed since the last one handed to the writer
+            if (lastPersisted.getAndSet(best.getSymbolId(), best) != best) {
+                cacheInvalidator.bestChanged(best.getSymbol());
+                AggregatedPrice row = new AggregatedPrice(best);
+                writeBehind.enqueue(row);
+            }
+        }
+    }
+
+    public long getLateResultCount() {
+        return lateResults.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sourceExecutor.shutdownNow();
+        if (ownsWriteBehind) {
+            writeBehind.stop();
+        }
+    }
+
+    private static PriceWriteBehind startedWriteBehind(PriceRepository priceRepository) {
+        PriceWriteBehind writeBehind = new PriceWriteBehind(priceRepository);
+        writeBehind.start();
+        return writeBehind;
+    }
+
+    private static SourceCall timedTicks(PriceSource source, List<String> symbols, Timer latency) {
+        long start = System.nanoTime();
+        try {
+            List<PriceTick> ticks;
+            if (symbols.size() == 1) {
+                Optional<PriceTick> tick = source.getLatestTick(symbols.getFirst());
+                ticks = tick == null || tick.isEmpty() ? List.of() : List.of(tick.get());
+            } else {
+                ticks = source.getLatestTicks(symbols);
+            }
+            return new SourceCall(ticks == null ? List.of() : ticks, System.nanoTime() - start);
+        } finally {
+            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-        log.info("pollOnce complete for symbol={},", symbol);
     }
 
-    @Cacheable("bestPrice")
+    private List<PriceTick> awaitTicks(PriceSource source, SourceMeters meters, SourceHealth.Breaker breaker,
+                                       Future<SourceCall> result, long submitted, long deadline) {
+        try {
+            SourceCall call = result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            breaker.succeeded(call.nanos());
+            if (call.ticks().isEmpty()) {
+                meters.empty().increment();
+            } else {
+                meters.ticks().increment();
+            }
+            return call.ticks();
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            lateResults.incrementAndGet();
+            meters.timeouts().increment();
+            breaker.failed(System.nanoTime() - submitted);
+            log.warn("source={} missed the {}ms deadline, dropping its result", source.name(), sourceTimeout.toMillis());
+        } catch (ExecutionException e) {
+            meters.errors().increment();
+            breaker.failed(System.nanoTime() - submitted);
+            log.warn("source={} failed: {}", source.name(), e.getCause().toString());
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            breaker.abandoned();
+            Thread.currentThread().interrupt();
+        }
+        return List.of();
+    }
+
+    private static Counter coalesced(MeterRegistry registry, String reason) {
+        return Counter.builder("marketdata.poll.coalesced")
+                .description("Symbol polls answered by another poll of the same symbol instead of the sources")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static String describe(List<String> symbols) {
+        return symbols.size() == 1 ? symbols.getFirst() : symbols.size() + " symbols";
+    }
+
+    @Cacheable(cacheNames = "bestPrice", key = "T(com.yahir.marketdataaggregator.service.PriceCacheKeys).symbol(#symbol)")
     public Optional<AggregatedPrice> getBest(String symbol) {
         return aggregator.getBest(symbol);
     }
@@ -67,24 +344,87 @@ public class MarketDataService {
         return aggregator.getAllBest();
     }
 
-    @Cacheable("allPrices")
-    public List<AggregatedPrice> getAllPrices() {
-        return priceRepository.findAll();
+    @Cacheable(cacheNames = "allPrices", key = "T(com.yahir.marketdataaggregator.service.PriceCacheKeys).page(null, null, null, #after, #limit)")
+    public PricePage getAllPrices(PageCursor after, int limit) {
+        List<AggregatedPrice> rows = after == null
+                ? priceRepository.findAllByOrderByTimeStampAscIdAsc(Limit.of(limit + 1))
+                : priceRepository.findPageAfter(after.timeStamp(), after.id(), Limit.of(limit + 1));
+        return PricePage.of(rows, limit);
     }
 
-    @Cacheable("allPricesForSymbol")
-    public List<AggregatedPrice> getAllPricesForSymbol(String symbol) {
-        return priceRepository.findBySymbol(symbol);
+    @Cacheable(cacheNames = "allPricesForSymbol", key = "T(com.yahir.marketdataaggregator.service.PriceCacheKeys).page(#symbol, null, null, #after, #limit)")
+    public PricePage getAllPricesForSymbol(String symbol, PageCursor after, int limit) {
+        String key = PriceCacheKeys.symbol(symbol);
+        List<AggregatedPrice> rows = after == null
+                ? priceRepository.findSymbolPage(key, Limit.of(limit + 1))
+                : priceRepository.findSymbolPageAfter(key, after.timeStamp(), after.id(), Limit.of(limit + 1));
+        return PricePage.of(rows, limit);
     }
 
-    @Cacheable("allPricesBetween")
-    public List<AggregatedPrice> getAllPricesBetween(Instant start, Instant end) {
-        return priceRepository.findByTimeStampBetween(start, end);
+    @Cacheable(cacheNames = "allPricesBetween", key = "T(com.yahir.marketdataaggregator.service.PriceCacheKeys).page(null, #start, #end, #after, #limit)")
+    public PricePage getAllPricesBetween(Instant start, Instant end, PageCursor after, int limit) {
+        PageCursor from = after == null ? new PageCursor(start, Long.MIN_VALUE) : after;
+        return PricePage.of(priceRepository.findRangePageAfter(start, end, from.timeStamp(), from.id(), Limit.of(limit + 1)), limit);
     }
 
-    @Cacheable("priceHistoryForSymbolBetween")
-    public List<AggregatedPrice> getPriceHistoryForSymbolBetween(String symbol, Instant start, Instant end) {
-        return priceRepository.findBySymbolAndTimeStampBetween(symbol, start, end);
+    @Cacheable(cacheNames = "priceHistoryForSymbolBetween", key = "T(com.yahir.marketdataaggregator.service.PriceCacheKeys).page(#symbol, #start, #end, #after, #limit)")
+    public PricePage getPriceHistoryForSymbolBetween(String symbol, Instant start, Instant end, PageCursor after, int limit) {
+        PageCursor from = after == null ? new PageCursor(start, Long.MIN_VALUE) : after;
+        List<AggregatedPrice> rows = priceRepository.findSymbolRangePageAfter(PriceCacheKeys.symbol(symbol), start, end,
+                from.timeStamp(), from.id(), Limit.of(limit + 1));
+        return PricePage.of(rows, limit);
     }
 
+    private static final class Flight {
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private volatile long finishedNanos;
+
+        private void finish(Throwable failure) {
+            finishedNanos = System.nanoTime();
+            if (failure == null) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        }
+
+        private void await() {
+            try {
+                result.join();
+            } catch (CompletionException e) {
+                switch (e.getCause()) {
+                    case RuntimeException runtime -> throw runtime;
+                    case Error error -> throw error;
+                    default -> throw e;
+                }
+            }
+        }
+    }
+
+    private record SourceCall(List<PriceTick> ticks, long nanos) {}
+
+    private record PendingCall(int source, Future<SourceCall> result) {}
+
+    private record SourceMeters(Timer latency, Counter ticks, Counter empty, Counter timeouts, Counter errors,
+                                Counter skipped) {
+
+        private SourceMeters(MeterRegistry registry, PriceSource source) {
+            this(Timer.builder("marketdata.source.latency")
+                            .description("Time taken by one getLatestTick call, including calls that missed the deadline")
+                            .tag("source", SourceHealth.name(source))
+                            .publishPercentileHistogram()
+                            .register(registry),
+                    result(registry, source, "tick"), result(registry, source, "empty"),
+                    result(registry, source, "timeout"), result(registry, source, "error"),
+                    result(registry, source, "skipped"));
+        }
+
+        private static Counter result(MeterRegistry registry, PriceSource source, String result) {
+            return Counter.builder("marketdata.source.results")
+                    .description("Outcome of each source call within a poll; a batch call counts once")
+                    .tag("source", SourceHealth.name(source))
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
 }
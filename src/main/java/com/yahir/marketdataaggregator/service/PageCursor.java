@@ -0,0 +1,36 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a history page in (timeStamp, id) order, encoded as an opaque token for clients.
+ */
+public record PageCursor(Instant timeStamp, long id) {
+
+    public static PageCursor after(AggregatedPrice price) {
+        return new PageCursor(price.getTimeStamp(), price.getId());
+    }
+
+    public String encode() {
+        String raw = timeStamp.getEpochSecond() + ":" + timeStamp.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            String[] parts = raw.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            Instant timeStamp = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new PageCursor(timeStamp, Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + token, e);
+        }
+    }
+}
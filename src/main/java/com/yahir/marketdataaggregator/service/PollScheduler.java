@@ -0,0 +1,263 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Continuously polls a runtime-editable set of symbols through {@link MarketDataService}.
+ * A single dispatcher thread pops due symbols off a priority queue, groups the ones due together into polls of up to
+ * {@code batchSize} symbols and hands them to a bounded worker pool, never letting more than {@code maxInFlight}
+ * polls queue up at once.
+ */
+@Component
+@ConditionalOnProperty(
+        prefix = "poller",
+        name = "enabled",
+        havingValue = "true"
+)
+public class PollScheduler {
+
+    public record SymbolSchedule(String symbol, long cadenceMillis) {}
+
+    public record SchedulerStats(int symbols, int inFlight, long completed, long failed, long skipped,
+                                 long lastLagMillis, long maxLagMillis, double avgLagMillis) {}
+
+    private static final Logger log = LoggerFactory.getLogger(PollScheduler.class);
+
+    private final MarketDataService marketDataService;
+    private final Duration defaultCadence;
+    private final Duration jitter;
+    private final Duration tick;
+    private final int maxInFlight;
+    private final int batchSize;
+    private final Semaphore inFlight;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService dispatcher;
+
+    private final ConcurrentMap<String, Entry> schedules = new ConcurrentHashMap<>();
+    private final Queue<Due> added = new ConcurrentLinkedQueue<>();
+    // Only touched by the dispatcher thread
+    private final PriorityQueue<Due> dueQueue = new PriorityQueue<>(Comparator.comparingLong(Due::dueNanos));
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong lastLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private final AtomicLong totalLagNanos = new AtomicLong();
+
+    @Autowired
+    public PollScheduler(MarketDataService marketDataService,
+                         @Value("${poller.symbols:}") List<String> symbols,
+                         @Value("${poller.cadence:1s}") Duration defaultCadence,
+                         @Value("${poller.jitter:100ms}") Duration jitter,
+                         @Value("${poller.max-concurrency:8}") int maxConcurrency,
+                         @Value("${poller.max-in-flight:64}") int maxInFlight,
+                         @Value("${poller.batch-size:100}") int batchSize) {
+        this(marketDataService, defaultCadence, jitter, Duration.ofMillis(10), maxConcurrency, maxInFlight, batchSize);
+        symbols.stream()
+                .filter(symbol -> !symbol.isBlank())
+                .forEach(symbol -> schedule(symbol, defaultCadence));
+    }
+
+    public PollScheduler(MarketDataService marketDataService, Duration defaultCadence, Duration jitter, Duration tick,
+                         int maxConcurrency, int maxInFlight) {
+        this(marketDataService, defaultCadence, jitter, tick, maxConcurrency, maxInFlight, 1);
+    }
+
+    public PollScheduler(MarketDataService marketDataService, Duration defaultCadence, Duration jitter, Duration tick,
+                         int maxConcurrency, int maxInFlight, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("poller.batch-size must be positive");
+        }
+        this.marketDataService = marketDataService;
+        this.defaultCadence = defaultCadence;
+        this.jitter = jitter;
+        this.tick = tick;
+        this.maxInFlight = maxInFlight;
+        this.batchSize = batchSize;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.workers = Executors.newFixedThreadPool(maxConcurrency, Thread.ofPlatform().name("poll-worker-", 0).daemon().factory());
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("poll-dispatcher").daemon().factory());
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcher.scheduleWithFixedDelay(this::dispatchDue, 0, tick.toNanos(), TimeUnit.NANOSECONDS);
+        log.info("PollScheduler started symbols={} cadence={} jitter={} maxInFlight={} batchSize={}",
+                schedules.size(), defaultCadence, jitter, maxInFlight, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        try {
+            dispatcher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+    }
+
+    public void schedule(String symbol) {
+        schedule(symbol, defaultCadence);
+    }
+
+    public void schedule(String symbol, Duration cadence) {
+        if (cadence.isNegative() || cadence.isZero()) {
+            throw new IllegalArgumentException("cadence must be positive");
+        }
+        String key = SymbolDictionary.canonicalSymbol(symbol);
+        Entry entry = new Entry(key, cadence.toNanos());
+        schedules.put(key, entry);
+        // Spread first polls across one cadence so a large universe does not fire all at once
+        long firstDue = System.nanoTime() + ThreadLocalRandom.current().nextLong(entry.cadenceNanos);
+        added.add(new Due(entry, firstDue));
+    }
+
+    public boolean unschedule(String symbol) {
+        return schedules.remove(SymbolDictionary.canonicalSymbol(symbol)) != null;
+    }
+
+    public List<SymbolSchedule> getSchedules() {
+        List<SymbolSchedule> result = new ArrayList<>(schedules.size());
+        schedules.values().forEach(entry ->
+                result.add(new SymbolSchedule(entry.symbol, TimeUnit.NANOSECONDS.toMillis(entry.cadenceNanos))));
+        return result;
+    }
+
+    public SchedulerStats getStats() {
+        long done = completed.get() + failed.get();
+        double avgLag = done == 0 ? 0 : totalLagNanos.get() / (double) done / 1_000_000.0;
+        return new SchedulerStats(
+                schedules.size(),
+                maxInFlight - inFlight.availablePermits(),
+                completed.get(),
+                failed.get(),
+                skipped.get(),
+                TimeUnit.NANOSECONDS.toMillis(lastLagNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get()),
+                avgLag);
+    }
+
+    private void dispatchDue() {
+        try {
+            Due next;
+            while ((next = added.poll()) != null) {
+                dueQueue.add(next);
+            }
+
+            long now = System.nanoTime();
+            List<Entry> batch = new ArrayList<>();
+            long batchDueNanos = 0;
+            while (!dueQueue.isEmpty() && dueQueue.peek().dueNanos <= now) {
+                Due due = dueQueue.poll();
+                Entry entry = due.entry;
+                if (schedules.get(entry.symbol) != entry) {
+                    // Removed or rescheduled with a new cadence since this was queued
+                    continue;
+                }
+
+                if (entry.running.compareAndSet(false, true)) {
+                    if (batch.isEmpty()) {
+                        batchDueNanos = due.dueNanos;
+                    }
+                    batch.add(entry);
+                    if (batch.size() == batchSize) {
+                        submit(batch, batchDueNanos);
+                        batch = new ArrayList<>();
+                    }
+                } else {
+                    skipped.incrementAndGet();
+                }
+
+                // Stay on the original grid, but do not replay polls that were missed while behind
+                long nextDue = due.dueNanos + entry.cadenceNanos;
+                if (nextDue <= now) {
+                    nextDue = now + entry.cadenceNanos;
+                }
+                dueQueue.add(new Due(entry, nextDue + jitterNanos()));
+            }
+            if (!batch.isEmpty()) {
+                submit(batch, batchDueNanos);
+            }
+        } catch (RuntimeException e) {
+            log.error("PollScheduler dispatch failed", e);
+        }
+    }
+
+    private void submit(List<Entry> batch, long dueNanos) {
+        if (inFlight.tryAcquire()) {
+            workers.execute(() -> poll(batch, dueNanos));
+        } else {
+            batch.forEach(entry -> entry.running.set(false));
+            skipped.addAndGet(batch.size());
+        }
+    }
+
+    // dueNanos is that of the earliest symbol in the batch, so every symbol is charged the worst lag of its poll
+    private void poll(List<Entry> batch, long dueNanos) {
+        long lag = Math.max(0, System.nanoTime() - dueNanos);
+        lastLagNanos.set(lag);
+        maxLagNanos.accumulateAndGet(lag, Math::max);
+        totalLagNanos.addAndGet(lag * batch.size());
+        try {
+            if (batch.size() == 1) {
+                marketDataService.pollOnce(batch.getFirst().symbol);
+            } else {
+                marketDataService.pollMany(batch.stream().map(entry -> entry.symbol).toList());
+            }
+            completed.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+            log.warn("Scheduled poll failed for symbols={}: {}", batch.size() == 1 ? batch.getFirst().symbol
+                    : batch.size() + " symbols", e.toString());
+        } finally {
+            batch.forEach(entry -> entry.running.set(false));
+            inFlight.release();
+        }
+    }
+
+    private long jitterNanos() {
+        long bound = jitter.toNanos();
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound);
+    }
+
+    private static final class Entry {
+        private final String symbol;
+        private final long cadenceNanos;
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private Entry(String symbol, long cadenceNanos) {
+            this.symbol = symbol;
+            this.cadenceNanos = cadenceNanos;
+        }
+    }
+
+    private record Due(Entry entry, long dueNanos) {}
+}
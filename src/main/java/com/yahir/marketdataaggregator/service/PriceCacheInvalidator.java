@@ -0,0 +1,104 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evicts only the cache entries a change can affect: the symbol's best price when it moves, and the history
+ * entries whose symbol and range contain a row once that row has been written. Ranges ending in the past are
+ * left alone.
+ */
+@Component
+public class PriceCacheInvalidator {
+
+    static final List<String> HISTORY_CACHES =
+            List.of("allPrices", "allPricesForSymbol", "allPricesBetween", "priceHistoryForSymbolBetween");
+
+    private final CacheManager cacheManager;
+
+    public PriceCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public void bestChanged(String symbol) {
+        Cache bestPrice = cacheManager.getCache("bestPrice");
+        if (bestPrice != null) {
+            bestPrice.evict(PriceCacheKeys.symbol(symbol));
+        }
+        Cache allBestPrices = cacheManager.getCache("allBestPrices");
+        if (allBestPrices != null) {
+            allBestPrices.clear();
+        }
+    }
+
+    public void historyWritten(List<AggregatedPrice> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        // Reduce the batch to one [min, max] time span per symbol before scanning the cached keys
+        Map<String, Instant[]> spans = new HashMap<>();
+        for (AggregatedPrice price : written) {
+            Instant ts = price.getTimeStamp();
+            Instant[] span = spans.get(price.getSymbol());
+            if (span == null) {
+                spans.put(price.getSymbol(), new Instant[]{ts, ts});
+                continue;
+            }
+            if (ts.isBefore(span[0])) {
+                span[0] = ts;
+            }
+            if (ts.isAfter(span[1])) {
+                span[1] = ts;
+            }
+        }
+
+        for (String cacheName : HISTORY_CACHES) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache == null) {
+                continue;
+            }
+            List<Object> keys = keysOf(cache);
+            if (keys == null) {
+                // Keys of this backend cannot be inspected, so stay correct by dropping the whole cache
+                cache.clear();
+                continue;
+            }
+            for (Object key : keys) {
+                if (key instanceof PriceCacheKeys.HistoryKey historyKey && isAffected(historyKey, spans)) {
+                    cache.evict(key);
+                }
+            }
+        }
+    }
+
+    private boolean isAffected(PriceCacheKeys.HistoryKey key, Map<String, Instant[]> spans) {
+        if (key.symbol() != null) {
+            Instant[] span = spans.get(key.symbol());
+            return span != null && key.overlaps(key.symbol(), span[0], span[1]);
+        }
+        for (Map.Entry<String, Instant[]> entry : spans.entrySet()) {
+            if (key.overlaps(entry.getKey(), entry.getValue()[0], entry.getValue()[1])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Object> keysOf(Cache cache) {
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            return new ArrayList<>(caffeine.asMap().keySet());
+        }
+        if (cache.getNativeCache() instanceof Map<?, ?> nativeMap) {
+            return new ArrayList<>(nativeMap.keySet());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
+
+import java.time.Instant;
+
+/**
+ * Cache keys used by {@link MarketDataService}. History keys carry the symbol and time range they cover
+ * (null meaning unbounded) so {@link PriceCacheInvalidator} can evict only the entries a write affects.
+ */
+public final class PriceCacheKeys {
+
+    private PriceCacheKeys() {
+    }
+
+    public record HistoryKey(String symbol, Instant start, Instant end, PageCursor after, int limit) {
+
+        public boolean overlaps(String writtenSymbol, Instant from, Instant to) {
+            if (symbol != null && !symbol.equals(writtenSymbol)) {
+                return false;
+            }
+            // A page only covers rows from its cursor onwards
+            Instant lower = start;
+            if (after != null && (lower == null || after.timeStamp().isAfter(lower))) {
+                lower = after.timeStamp();
+            }
+            return (lower == null || !lower.isAfter(to)) && (end == null || !end.isBefore(from));
+        }
+    }
+
+    // The dictionary's canonical form, so cache keys, repository queries and symbol ids all agree
+    public static String symbol(String symbol) {
+        return symbol == null ? "" : SymbolDictionary.canonicalSymbol(symbol);
+    }
+
+    public static HistoryKey history(String symbol, Instant start, Instant end) {
+        return page(symbol, start, end, null, 0);
+    }
+
+    public static HistoryKey page(String symbol, Instant start, Instant end, PageCursor after, int limit) {
+        return new HistoryKey(symbol == null ? null : symbol(symbol), start, end, after, limit);
+    }
+}
@@ -0,0 +1,170 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.PriceFormat;
+import com.yahir.marketdataaggregator.repository.PriceRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a symbol's price history straight from a forward-only database cursor to an output stream.
+ * Every row is written and detached as soon as it is read, so memory stays flat however long the history is.
+ */
+@Service
+public class PriceExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+    }
+
+    // The response stream belongs to the servlet container, so the generator must not close it
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final PriceRepository priceRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public PriceExportService(PriceRepository priceRepository, EntityManager entityManager,
+                              PlatformTransactionManager transactionManager) {
+        this.priceRepository = priceRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Streams every price for {@code symbol}, optionally limited to [start, end], ordered by time.
+     * Returns the number of rows written.
+     */
+    public long export(String symbol, Instant start, Instant end, Format format, OutputStream out) throws IOException {
+        String key = PriceCacheKeys.symbol(symbol);
+        try {
+            Long rows = readOnlyTransaction.execute(status -> {
+                try (Stream<AggregatedPrice> prices = start == null
+                        ? priceRepository.streamBySymbol(key)
+                        : priceRepository.streamBySymbolBetween(key, start, end)) {
+                    return writeRows(prices.iterator(), format, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeRows(Iterator<AggregatedPrice> prices, Format format, OutputStream out) throws IOException {
+        long rows = 0;
+        try (RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out)) {
+            while (prices.hasNext()) {
+                AggregatedPrice price = prices.next();
+                writer.write(price);
+                // Nothing is ever read back, so drop the entity instead of letting the persistence context grow
+                entityManager.detach(price);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private interface RowWriter extends AutoCloseable {
+        void write(AggregatedPrice price) throws IOException;
+
+        // Flushes buffered rows; the underlying stream is left open
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(OutputStream out) {
+            this.generator = JSON_FACTORY.createGenerator(out);
+        }
+
+        @Override
+        public void write(AggregatedPrice price) {
+            generator.writeStartObject();
+            generator.writeStringProperty("symbol", price.getSymbol());
+            generator.writeNumberProperty("price", PriceFormat.toDecimal(price.getPrice()));
+            generator.writeStringProperty("timeStamp", price.getTimeStamp().toString());
+            generator.writeStringProperty("source", price.getSource());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() {
+            generator.close();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("symbol,price,timeStamp,source\n");
+        }
+
+        @Override
+        public void write(AggregatedPrice price) throws IOException {
+            writeField(price.getSymbol());
+            writer.write(',');
+            writer.write(PriceFormat.toDecimal(price.getPrice()).toPlainString());
+            writer.write(',');
+            writer.write(price.getTimeStamp().toString());
+            writer.write(',');
+            writeField(price.getSource());
+            writer.write('\n');
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.BestPriceListener;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceFormat;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans best-price changes out to WebSocket clients.
+ * <p>
+ * Ingest only marks a symbol dirty. A single publisher thread serializes the symbol's current best once and
+ * hands the same {@link TextMessage} to every client subscribed to it. Each client owns a pending map keyed by
+ * symbol, so its outbound queue holds at most one message per subscribed symbol: a slow client is conflated to
+ * the latest value rather than falling further behind, and is terminated if a single send stalls past the
+ * configured limit.
+ */
+@Component
+public class PriceFanOut {
+
+    public record PriceMessage(String type, String symbol, BigDecimal price, Instant timeStamp, String source) {}
+
+    public record FanOutStats(int clients, int subscribedSymbols, long serialized, long delivered, long conflated,
+                              long failed) {}
+
+    private static final Logger log = LoggerFactory.getLogger(PriceFanOut.class);
+
+    private final MarketDataAggregator aggregator;
+    private final JsonMapper jsonMapper;
+    private final int maxSymbolsPerClient;
+    private final int sendTimeLimitMillis;
+    private final int bufferSizeLimitBytes;
+    private final BestPriceListener listener = this::markDirty;
+
+    private final ConcurrentMap<String, Set<Client>> subscribers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Update> latest = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean publishing = new AtomicBoolean();
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("price-fanout-", 0).factory());
+
+    private final AtomicLong serialized = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Autowired
+    public PriceFanOut(MarketDataAggregator aggregator, JsonMapper jsonMapper,
+                       @Value("${ws.max-symbols-per-client:1000}") int maxSymbolsPerClient,
+                       @Value("${ws.send-time-limit:5s}") Duration sendTimeLimit,
+                       @Value("${ws.buffer-size-limit:512KB}") DataSize bufferSizeLimit) {
+        this.aggregator = aggregator;
+        this.jsonMapper = jsonMapper;
+        this.maxSymbolsPerClient = maxSymbolsPerClient;
+        this.sendTimeLimitMillis = Math.toIntExact(sendTimeLimit.toMillis());
+        this.bufferSizeLimitBytes = Math.toIntExact(bufferSizeLimit.toBytes());
+        aggregator.addListener(listener);
+    }
+
+    public Client connect(WebSocketSession session) {
+        Client client = new Client(new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis,
+                bufferSizeLimitBytes, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE));
+        clients.add(client);
+        return client;
+    }
+
+    public void disconnect(Client client) {
+        if (clients.remove(client)) {
+            // Under the client's lock, so a subscribe racing with this either finishes first and is undone below
+            // or sees the client closed
+            synchronized (client) {
+                client.closed = true;
+                unsubscribe(client, List.copyOf(client.symbols));
+            }
+        }
+    }
+
+    /**
+     * Adds {@code symbols} to the client's subscriptions and queues the current best of each.
+     * Returns the normalised symbols that were subscribed, none once the client has disconnected.
+     */
+    public List<String> subscribe(Client client, Collection<String> symbols) {
+        List<String> keys = normalise(symbols);
+        synchronized (client) {
+            if (client.closed) {
+                return List.of();
+            }
+            long added = keys.stream().filter(symbol -> !client.symbols.contains(symbol)).count();
+            if (client.symbols.size() + added > maxSymbolsPerClient) {
+                throw new IllegalArgumentException("A client may subscribe to at most " + maxSymbolsPerClient + " symbols");
+            }
+            for (String symbol : keys) {
+                add(client, symbol);
+            }
+        }
+        return keys;
+    }
+
+    private void add(Client client, String symbol) {
+        if (!client.symbols.add(symbol)) {
+            return;
+        }
+        subscribers.compute(symbol, (key, set) -> {
+            Set<Client> clientsForSymbol = set == null ? ConcurrentHashMap.newKeySet() : set;
+            clientsForSymbol.add(client);
+            return clientsForSymbol;
+        });
+        Update update = latest.get(symbol);
+        if (update != null) {
+            client.enqueue(symbol, update);
+        } else {
+            // Never published since startup: let the publisher serialize it and reach every subscriber
+            markDirty(symbol);
+        }
+    }
+
+    public List<String> unsubscribe(Client client, Collection<String> symbols) {
+        List<String> keys = normalise(symbols);
+        synchronized (client) {
+            for (String symbol : keys) {
+                if (client.symbols.remove(symbol)) {
+                    subscribers.computeIfPresent(symbol, (key, set) -> {
+                        set.remove(client);
+                        return set.isEmpty() ? null : set;
+                    });
+                    client.pending.remove(symbol);
+                    client.lastSentSequence.remove(symbol);
+                }
+            }
+        }
+        return keys;
+    }
+
+    public FanOutStats getStats() {
+        return new FanOutStats(clients.size(), subscribers.size(), serialized.get(), delivered.get(),
+                conflated.get(), failed.get());
+    }
+
+    /**
+     * True once every dirty symbol has been published and every client has drained its pending map.
+     */
+    public boolean isIdle() {
+        if (publishing.get() || !dirty.isEmpty()) {
+            return false;
+        }
+        for (Client client : clients) {
+            if (client.draining.get() || !client.pending.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        aggregator.removeListener(listener);
+        executor.shutdownNow();
+    }
+
+    private void markDirty(AggregatedPrice best) {
+        if (subscribers.containsKey(best.getSymbol())) {
+            markDirty(best.getSymbol());
+        }
+    }
+
+    private void markDirty(String symbol) {
+        dirty.add(symbol);
+        if (publishing.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::publish);
+            } catch (RejectedExecutionException e) {
+                publishing.set(false);
+            }
+        }
+    }
+
+    private void publish() {
+        do {
+            Iterator<String> pending = dirty.iterator();
+            while (pending.hasNext()) {
+                String symbol = pending.next();
+                pending.remove();
+                try {
+                    publish(symbol);
+                } catch (RuntimeException e) {
+                    log.warn("Fan-out publish failed for symbol={}: {}", symbol, e.toString());
+                }
+            }
+            publishing.set(false);
+        } while (!dirty.isEmpty() && publishing.compareAndSet(false, true));
+    }
+
+    private void publish(String symbol) {
+        AggregatedPrice best = aggregator.getBest(symbol).orElse(null);
+        if (best == null) {
+            return;
+        }
+        Update previous = latest.get(symbol);
+        Update update;
+        if (previous != null && previous.price == best) {
+            // Already serialized; only clients that subscribed since then still need it
+            update = previous;
+        } else {
+            update = new Update(sequence.incrementAndGet(), best, new TextMessage(jsonMapper.writeValueAsBytes(toMessage(best))));
+            serialized.incrementAndGet();
+            latest.put(symbol, update);
+        }
+        Set<Client> targets = subscribers.get(symbol);
+        if (targets != null) {
+            for (Client client : targets) {
+                client.enqueue(symbol, update);
+            }
+        }
+    }
+
+    private static PriceMessage toMessage(AggregatedPrice price) {
+        return new PriceMessage("price", price.getSymbol(), PriceFormat.toDecimal(price.getPrice()), price.getTimeStamp(),
+                price.getSource());
+    }
+
+    private static List<String> normalise(Collection<String> symbols) {
+        return symbols.stream()
+                .filter(symbol -> symbol != null && !symbol.isBlank())
+                .map(PriceCacheKeys::symbol)
+                .distinct()
+                .toList();
+    }
+
+    private record Update(long sequence, AggregatedPrice price, TextMessage message) {}
+
+    public final class Client {
+        private final WebSocketSession session;
+        private final Set<String> symbols = ConcurrentHashMap.newKeySet();
+        private final ConcurrentMap<String, Update> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final Map<String, Long> lastSentSequence = new ConcurrentHashMap<>();
+        // Set under the client's lock, which subscribe and unsubscribe also hold
+        private volatile boolean closed;
+
+        private Client(WebSocketSession session) {
+            this.session = session;
+        }
+
+        public WebSocketSession getSession() {
+            return session;
+        }
+
+        public Set<String> getSymbols() {
+            return Set.copyOf(symbols);
+        }
+
+        private void enqueue(String symbol, Update update) {
+            if (closed) {
+                return;
+            }
+            Update queued = pending.putIfAbsent(symbol, update);
+            if (queued != null) {
+                // Only the newest value per symbol is kept while the client is busy
+                conflated.incrementAndGet();
+                pending.merge(symbol, update, (current, next) -> current.sequence >= next.sequence ? current : next);
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                Iterator<Map.Entry<String, Update>> entries = pending.entrySet().iterator();
+                while (entries.hasNext() && !closed) {
+                    Map.Entry<String, Update> entry = entries.next();
+                    String symbol = entry.getKey();
+                    Update update = pending.remove(symbol);
+                    if (update != null) {
+                        send(symbol, update);
+                    }
+                }
+                draining.set(false);
+            } while (!closed && !pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void send(String symbol, Update update) {
+            Long last = lastSentSequence.get(symbol);
+            if (last != null && last >= update.sequence) {
+                return;
+            }
+            try {
+                session.sendMessage(update.message);
+                lastSentSequence.put(symbol, update.sequence);
+                delivered.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                failed.incrementAndGet();
+                log.debug("Closing WebSocket client {} after send failure: {}", session.getId(), e.toString());
+                disconnect(this);
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException | RuntimeException ignored) {
+                    // Already gone
+                }
+            }
+        }
+    }
+}
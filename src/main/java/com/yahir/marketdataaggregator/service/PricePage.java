@@ -0,0 +1,20 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+
+import java.util.List;
+
+/**
+ * One page of history; {@code next} is null on the last page.
+ */
+public record PricePage(List<AggregatedPrice> prices, PageCursor next) {
+
+    // Pages are fetched with limit + 1 rows so the presence of a next page is known without an extra query
+    static PricePage of(List<AggregatedPrice> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new PricePage(rows, null);
+        }
+        List<AggregatedPrice> page = List.copyOf(rows.subList(0, limit));
+        return new PricePage(page, PageCursor.after(page.getLast()));
+    }
+}
@@ -0,0 +1,208 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.repository.PriceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Buffers best-price records and persists them from a background thread in large batches, so polling never
+ * waits on a database round trip. The buffer is bounded: when the database falls behind, {@link #enqueue}
+ * blocks the caller for up to {@code enqueueTimeout} before dropping the record.
+ */
+@Component
+public class PriceWriteBehind {
+
+    public record WriteBehindStats(int buffered, long written, long batches, long dropped, long failedBatches) {}
+
+    private static final Logger log = LoggerFactory.getLogger(PriceWriteBehind.class);
+    private static final int MAX_ATTEMPTS = 3;
+    // Upper bound on any single wait so stop() is noticed promptly even with long flush intervals
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final PriceRepository priceRepository;
+    private final Consumer<List<AggregatedPrice>> onWritten;
+    private final BlockingQueue<AggregatedPrice> buffer;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration enqueueTimeout;
+    private final Thread flusher;
+    private final Timer savedTimer;
+    private final Timer failedTimer;
+    private volatile boolean running;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    public PriceWriteBehind(PriceRepository priceRepository) {
+        this(priceRepository, 10_000, 500, Duration.ofMillis(250), Duration.ofSeconds(5));
+    }
+
+    public PriceWriteBehind(PriceRepository priceRepository, int capacity, int batchSize, Duration flushInterval,
+                            Duration enqueueTimeout) {
+        this(priceRepository, written -> { }, new SimpleMeterRegistry(), capacity, batchSize, flushInterval, enqueueTimeout);
+    }
+
+    /**
+     * Written rows go to the recent-price buffer before any cache is evicted, so neither ever serves a row the
+     * table does not have.
+     */
+    @Autowired
+    public PriceWriteBehind(PriceRepository priceRepository, PriceCacheInvalidator cacheInvalidator,
+                            RecentPriceBuffer recentPrices, MeterRegistry meterRegistry,
+                            @Value("${write-behind.capacity:10000}") int capacity,
+                            @Value("${write-behind.batch-size:500}") int batchSize,
+                            @Value("${write-behind.flush-interval:250ms}") Duration flushInterval,
+                            @Value("${write-behind.enqueue-timeout:5s}") Duration enqueueTimeout) {
+        this(priceRepository, written -> {
+            recentPrices.recordAll(written);
+            cacheInvalidator.historyWritten(written);
+        }, meterRegistry, capacity, batchSize, flushInterval, enqueueTimeout);
+    }
+
+    public PriceWriteBehind(PriceRepository priceRepository, Consumer<List<AggregatedPrice>> onWritten,
+                            MeterRegistry meterRegistry, int capacity, int batchSize, Duration flushInterval, Duration enqueueTimeout) {
+        this.priceRepository = priceRepository;
+        this.onWritten = onWritten;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.enqueueTimeout = enqueueTimeout;
+        this.flusher = Thread.ofPlatform().name("price-write-behind").daemon().unstarted(this::run);
+        this.savedTimer = RepositoryMetrics.saves(meterRegistry, "prices", "success");
+        this.failedTimer = RepositoryMetrics.saves(meterRegistry, "prices", "failure");
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (!running) {
+            running = true;
+            flusher.start();
+        }
+    }
+
+    /**
+     * Flushes everything still buffered before returning, so no accepted record is lost on a clean shutdown.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("PriceWriteBehind stopped written={} dropped={}", written.get(), dropped.get());
+    }
+
+    public boolean enqueue(AggregatedPrice price) {
+        try {
+            if (buffer.offer(price, enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.incrementAndGet();
+        log.error("Write-behind buffer full for {}ms, dropped price for symbol={}",
+                enqueueTimeout.toMillis(), price.getSymbol());
+        return false;
+    }
+
+    public WriteBehindStats getStats() {
+        return new WriteBehindStats(buffer.size(), written.get(), batches.get(), dropped.get(), failedBatches.get());
+    }
+
+    private void run() {
+        List<AggregatedPrice> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                AggregatedPrice first = buffer.poll(Math.min(flushInterval.toNanos(), MAX_WAIT_NANOS), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                flush(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Collect until the batch is full or the flush interval since its first record has elapsed
+    private void fillBatch(List<AggregatedPrice> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            AggregatedPrice next = buffer.poll(Math.min(remaining, MAX_WAIT_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void flush(List<AggregatedPrice> batch) throws InterruptedException {
+        if (save(batch)) {
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+            log.debug("Write-behind flushed batch size={}", batch.size());
+            try {
+                onWritten.accept(batch);
+            } catch (RuntimeException e) {
+                log.warn("Write-behind post-flush callback failed: {}", e.toString());
+            }
+            return;
+        }
+        failedBatches.incrementAndGet();
+        dropped.addAndGet(batch.size());
+        log.error("Write-behind gave up on a batch of {} records", batch.size());
+    }
+
+    private boolean save(List<AggregatedPrice> batch) throws InterruptedException {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            long start = System.nanoTime();
+            try {
+                priceRepository.saveAll(batch);
+                savedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return true;
+            } catch (RuntimeException e) {
+                failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.warn("Write-behind flush attempt {} of {} failed for {} records: {}",
+                        attempt, MAX_ATTEMPTS, batch.size(), e.toString());
+                if (attempt < MAX_ATTEMPTS) {
+                    TimeUnit.MILLISECONDS.sleep(100L * attempt);
+                }
+            }
+        }
+        return false;
+    }
+}
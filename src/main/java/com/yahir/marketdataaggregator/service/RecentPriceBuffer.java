@@ -0,0 +1,248 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.IdTable;
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the last {@code capacity} persisted prices of every symbol in fixed-size rings of primitive arrays
+ * (timestamp as epoch nanos, price, source id), so "the last few minutes" of a symbol can be served without
+ * touching the database. A ring is allocated once, on the symbol's first price, and never grows.
+ * <p>
+ * The buffer is fed the rows the write-behind has written, so rows still queued or dropped are never served. It
+ * only claims a range when it is certain to hold every row the table would return: the range must start after the
+ * newest evicted row and no earlier than this instance's startup. This assumes the instance is the table's only
+ * writer.
+ */
+@Component
+public class RecentPriceBuffer {
+
+    public record BufferStats(int symbols, int capacity, long bytesPerSymbol, long hits, long misses) {}
+
+    // Object headers of the three arrays plus the ring itself, with compressed oops
+    private static final long RING_OVERHEAD_BYTES = 3 * 16 + 40;
+
+    private final int capacity;
+    private final long coveredFromNanos;
+    private final IdTable<Ring> rings = new IdTable<>();
+    // The live aggregator's, so rows it published can be keyed on the ids they carry
+    private final SymbolDictionary dictionary;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public RecentPriceBuffer(Clock clock, int capacity) {
+        this(clock, new SymbolDictionary(), capacity);
+    }
+
+    @Autowired
+    public RecentPriceBuffer(Clock clock, SymbolDictionary dictionary, @Value("${recent.capacity:256}") int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("recent.capacity must not be negative");
+        }
+        this.dictionary = dictionary;
+        this.capacity = capacity;
+        this.coveredFromNanos = toNanos(clock.instant());
+    }
+
+    /**
+     * A buffer that records nothing and never answers, for services built outside the container.
+     */
+    public static RecentPriceBuffer disabled() {
+        return new RecentPriceBuffer(Clock.systemUTC(), 0);
+    }
+
+    public void recordAll(List<AggregatedPrice> written) {
+        for (AggregatedPrice price : written) {
+            record(price);
+        }
+    }
+
+    public void record(AggregatedPrice price) {
+        if (capacity == 0) {
+            return;
+        }
+        // Rows built from names rather than published by the aggregator carry no ids yet
+        int symbolId = price.getSymbolId();
+        if (symbolId == SymbolDictionary.NO_ID) {
+            symbolId = dictionary.symbols().idOf(price.getSymbol());
+        }
+        int sourceId = price.getSourceId();
+        if (sourceId == SymbolDictionary.NO_ID) {
+            sourceId = dictionary.sources().idOf(price.getSource());
+        }
+        Ring ring = rings.get(symbolId);
+        if (ring == null) {
+            ring = rings.computeIfAbsent(symbolId, id -> new Ring(capacity));
+        }
+        ring.add(toNanos(price.getTimeStamp()), price.getPrice(), sourceId(sourceId));
+    }
+
+    /**
+     * The rows for {@code symbol} with a timestamp in [start, end], oldest first, when the buffer holds all of
+     * them and they fit in {@code limit} rows. Empty when the caller has to go to the database instead.
+     */
+    public Optional<List<AggregatedPrice>> range(String symbol, Instant start, Instant end, int limit) {
+        long startNanos = toNanos(start);
+        long endNanos = toNanos(end);
+        if (capacity == 0 || startNanos < coveredFromNanos) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        int symbolId = dictionary.symbols().find(symbol);
+        Ring ring = symbolId == SymbolDictionary.NO_ID ? null : rings.get(symbolId);
+        if (ring == null) {
+            // Nothing was recorded for the symbol since startup, so the table has nothing in this range either
+            hits.incrementAndGet();
+            return Optional.of(List.of());
+        }
+        Slice slice = ring.copy(startNanos, endNanos, limit);
+        if (slice == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        String key = dictionary.symbols().nameOf(symbolId);
+        List<AggregatedPrice> prices = new ArrayList<>(slice.size);
+        for (int i = 0; i < slice.size; i++) {
+            short sourceId = slice.sources[i];
+            prices.add(new AggregatedPrice(key, slice.prices[i], toInstant(slice.timestamps[i]),
+                    sourceId == SymbolDictionary.NO_ID ? null : dictionary.sources().nameOf(sourceId)));
+        }
+        return Optional.of(prices);
+    }
+
+    /**
+     * Heap taken by one symbol's ring, excluding its table slot and symbol string.
+     */
+    public long bytesPerSymbol() {
+        if (capacity == 0) {
+            return 0;
+        }
+        return RING_OVERHEAD_BYTES + (long) capacity * (Long.BYTES + Double.BYTES + Short.BYTES);
+    }
+
+    public BufferStats getStats() {
+        return new BufferStats(rings.size(), capacity, bytesPerSymbol(), hits.get(), misses.get());
+    }
+
+    // Sources are few, so rows store their dictionary id as a short instead of a reference per row
+    private static short sourceId(int sourceId) {
+        if (sourceId > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct price sources");
+        }
+        return (short) sourceId;
+    }
+
+    // Saturates instead of overflowing for instants more than ~292 years from the epoch
+    private static long toNanos(Instant instant) {
+        try {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+        } catch (ArithmeticException e) {
+            return instant.getEpochSecond() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    private static Instant toInstant(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L), Math.floorMod(epochNanos, 1_000_000_000L));
+    }
+
+    private record Slice(int size, long[] timestamps, double[] prices, short[] sources) {}
+
+    private static final class Ring {
+        // Logical row i lives at (tail + i) % capacity, and rows are kept sorted by timestamp; guarded by this
+        private final long[] timestamps;
+        private final double[] prices;
+        private final short[] sources;
+        private int tail;
+        private int size;
+        // Newest timestamp ever evicted; the ring is complete only for ranges starting after it
+        private long evictedUntil = Long.MIN_VALUE;
+
+        private Ring(int capacity) {
+            timestamps = new long[capacity];
+            prices = new double[capacity];
+            sources = new short[capacity];
+        }
+
+        private synchronized void add(long timestamp, double price, short source) {
+            int capacity = timestamps.length;
+            if (size == capacity) {
+                if (timestamp < timestamps[tail]) {
+                    // Older than anything retained: it would be evicted straight away
+                    evictedUntil = Math.max(evictedUntil, timestamp);
+                    return;
+                }
+                evictedUntil = Math.max(evictedUntil, timestamps[tail]);
+                tail = (tail + 1) % capacity;
+                size--;
+            }
+            // Best prices arrive in time order, so this only shifts when two polls finish out of order
+            int position = size;
+            while (position > 0 && timestamps[slot(position - 1)] > timestamp) {
+                int from = slot(position - 1);
+                int to = slot(position);
+                timestamps[to] = timestamps[from];
+                prices[to] = prices[from];
+                sources[to] = sources[from];
+                position--;
+            }
+            int at = slot(position);
+            timestamps[at] = timestamp;
+            prices[at] = price;
+            sources[at] = source;
+            size++;
+        }
+
+        private synchronized Slice copy(long startNanos, long endNanos, int limit) {
+            if (startNanos <= evictedUntil) {
+                return null;
+            }
+            int from = firstAtOrAfter(startNanos);
+            int to = firstAtOrAfter(endNanos == Long.MAX_VALUE ? endNanos : endNanos + 1);
+            int count = Math.max(0, to - from);
+            if (count > limit) {
+                // More than one page: paging needs row ids, which only the table has
+                return null;
+            }
+            long[] ts = new long[count];
+            double[] px = new double[count];
+            short[] src = new short[count];
+            for (int i = 0; i < count; i++) {
+                int s = slot(from + i);
+                ts[i] = timestamps[s];
+                px[i] = prices[s];
+                src[i] = sources[s];
+            }
+            return new Slice(count, ts, px, src);
+        }
+
+        private int firstAtOrAfter(long timestamp) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[slot(mid)] < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int slot(int index) {
+            return (tail + index) % timestamps.length;
+        }
+    }
+}
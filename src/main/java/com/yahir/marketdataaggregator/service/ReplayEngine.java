@@ -0,0 +1,296 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.domain.SimulatedClock;
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
+import com.yahir.marketdataaggregator.exception.InvalidReplayRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.Year;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays recorded ticks through a fresh {@link MarketDataAggregator} driven by a {@link SimulatedClock}, so the
+ * effect of different stale and outlier thresholds on the resulting best prices can be compared offline.
+ * <p>
+ * Ticks are streamed from the file one at a time and only the best-price table is kept, so the size of a run is
+ * bounded by the number of symbols rather than the number of ticks. The simulated clock is set to the time each
+ * tick was originally ingested: journal entries carry it, and CSV rows may give it in an optional fifth column,
+ * falling back to the tick's own timestamp. A speed of 0 replays as fast as possible, any other value paces the
+ * run at that multiple of recorded time.
+ */
+@Component
+public class ReplayEngine {
+
+    public enum Format { CSV, JOURNAL }
+
+    public record ReplayOptions(Duration staleThreshold, double outlierPct, double speed) {}
+
+    public record ReplayReport(long ticks, long skipped, long elapsedMillis, double ticksPerSecond,
+                               Map<IngestOutcome, Long> outcomes, Map<String, AggregatedPrice> bestPrices) {}
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayEngine.class);
+    private static final int JOURNAL_BATCH = 4096;
+    // Pacing sleeps are only worth taking once the run is at least this far ahead of schedule
+    private static final long MIN_PARK_NANOS = 1_000_000;
+
+    private final Path baseDirectory;
+
+    @Autowired
+    public ReplayEngine(@Value("${replay.dir:replay}") String baseDirectory) {
+        this.baseDirectory = Path.of(baseDirectory).toAbsolutePath().normalize();
+    }
+
+    public ReplayReport replay(String file, Format format, ReplayOptions options) {
+        if (options.speed() < 0) {
+            throw new InvalidReplayRequestException("speed must not be negative");
+        }
+        Path path = resolve(file);
+        Run run = new Run(options);
+        try {
+            if (format == Format.JOURNAL) {
+                replayJournal(path, run);
+            } else {
+                replayCsv(path, run);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Replay of " + path + " failed", e);
+        }
+        ReplayReport report = run.report();
+        log.info("Replayed {} ticks from {} in {}ms ({} ticks/sec), skipped={}",
+                report.ticks(), path, report.elapsedMillis(), Math.round(report.ticksPerSecond()), report.skipped());
+        return report;
+    }
+
+    private Path resolve(String file) {
+        if (file == null || file.isBlank()) {
+            throw new InvalidReplayRequestException("file is required");
+        }
+        Path path = baseDirectory.resolve(file).normalize();
+        // Only recordings under replay.dir can be replayed
+        if (!path.startsWith(baseDirectory)) {
+            throw new InvalidReplayRequestException("file must be inside the replay directory: " + file);
+        }
+        if (!Files.exists(path)) {
+            throw new InvalidReplayRequestException("Replay file not found: " + file);
+        }
+        return path;
+    }
+
+    private void replayJournal(Path directory, Run run) {
+        if (!Files.isDirectory(directory)) {
+            throw new InvalidReplayRequestException("A journal replay needs a journal directory: " + directory.getFileName());
+        }
+        try (TickJournalReader reader = new TickJournalReader(directory)) {
+            while (reader.poll(entry -> run.ingest(entry.toTick(), entry.ingestedAt()), JOURNAL_BATCH) > 0) {
+                // Reads until caught up with what has been written so far
+            }
+        }
+    }
+
+    private void replayCsv(Path file, Run run) throws IOException {
+        String[] fields = new String[5];
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                if (first && line.startsWith("symbol,")) {
+                    // Header written by the CSV export
+                    first = false;
+                    continue;
+                }
+                first = false;
+                if (line.isBlank()) {
+                    continue;
+                }
+                int count = splitCsv(line, fields);
+                if (count < 4) {
+                    run.skipped++;
+                    continue;
+                }
+                try {
+                    Instant timeStamp = parseInstant(fields[2]);
+                    Instant ingestedAt = count > 4 && !fields[4].isEmpty() ? parseInstant(fields[4]) : timeStamp;
+                    run.ingest(new PriceTick(fields[0], Double.parseDouble(fields[1]), timeStamp, fields[3]), ingestedAt);
+                } catch (DateTimeException | IllegalArgumentException e) {
+                    run.skipped++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Instant.parse costs more than the rest of a replayed row put together, so the UTC shape written by
+     * {@link Instant#toString()} ({@code yyyy-MM-ddTHH:mm:ss[.fraction]Z}) is decoded by hand and anything else is
+     * left to Instant.parse to validate.
+     */
+    private static Instant parseInstant(String text) {
+        int length = text.length();
+        if (length < 20 || text.charAt(length - 1) != 'Z' || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || text.charAt(10) != 'T' || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return Instant.parse(text);
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        int hour = digits(text, 11, 13);
+        int minute = digits(text, 14, 16);
+        int second = digits(text, 17, 19);
+        int nanos = 0;
+        if (length > 20) {
+            int fractionDigits = length - 21;
+            if (text.charAt(19) != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                return Instant.parse(text);
+            }
+            nanos = digits(text, 20, length - 1);
+            for (int i = fractionDigits; i < 9 && nanos >= 0; i++) {
+                nanos *= 10;
+            }
+        }
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 59 || nanos < 0) {
+            return Instant.parse(text);
+        }
+        // Days since the epoch from a proleptic Gregorian date (Hinnant's days_from_civil)
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long epochDay = era * 146097L + dayOfEra - 719468;
+        return Instant.ofEpochSecond(epochDay * 86400 + hour * 3600L + minute * 60L + second, nanos);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // The decimal value of text[from, to), or -1 if any of it is not a digit
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Splits one RFC 4180 line into at most fields.length fields; returns how many there were
+    static int splitCsv(String line, String[] fields) {
+        int count = 0;
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                if (count < fields.length) {
+                    fields[count] = field.toString();
+                }
+                count++;
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (count < fields.length) {
+            fields[count] = field.toString();
+        }
+        return count + 1;
+    }
+
+    private static final class Run {
+        private final SimulatedClock clock = new SimulatedClock(Instant.EPOCH);
+        private final MarketDataAggregator aggregator;
+        private final double speed;
+        private final long[] outcomes = new long[IngestOutcome.values().length];
+        private final long startNanos = System.nanoTime();
+        private Instant firstIngestedAt;
+        private long ticks;
+        private long skipped;
+
+        private Run(ReplayOptions options) {
+            try {
+                // A dictionary of its own, so the recording's names never reach the live aggregator's
+                this.aggregator = new MarketDataAggregator(clock, options.staleThreshold(), options.outlierPct(), null,
+                        new SymbolDictionary());
+            } catch (IllegalArgumentException e) {
+                throw new InvalidReplayRequestException(e.getMessage());
+            }
+            this.speed = options.speed();
+        }
+
+        private void ingest(PriceTick tick, Instant ingestedAt) {
+            if (speed > 0) {
+                pace(ingestedAt);
+            }
+            clock.set(ingestedAt);
+            outcomes[aggregator.ingest(tick).ordinal()]++;
+            ticks++;
+        }
+
+        private void pace(Instant ingestedAt) {
+            if (firstIngestedAt == null) {
+                firstIngestedAt = ingestedAt;
+                return;
+            }
+            long recordedNanos = Duration.between(firstIngestedAt, ingestedAt).toNanos();
+            long due = startNanos + (long) (recordedNanos / speed);
+            long ahead = due - System.nanoTime();
+            if (ahead >= MIN_PARK_NANOS) {
+                LockSupport.parkNanos(ahead);
+            }
+        }
+
+        private ReplayReport report() {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            Map<IngestOutcome, Long> counts = new EnumMap<>(IngestOutcome.class);
+            for (IngestOutcome outcome : IngestOutcome.values()) {
+                if (outcomes[outcome.ordinal()] > 0) {
+                    counts.put(outcome, outcomes[outcome.ordinal()]);
+                }
+            }
+            double perSecond = elapsedNanos == 0 ? 0 : ticks / (elapsedNanos / 1_000_000_000.0);
+            return new ReplayReport(ticks, skipped, elapsedNanos / 1_000_000, perSecond, counts,
+                    new TreeMap<>(aggregator.getAllBest()));
+        }
+    }
+}
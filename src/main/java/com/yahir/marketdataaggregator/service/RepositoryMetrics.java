@@ -0,0 +1,22 @@
+package com.yahir.marketdataaggregator.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The {@code marketdata.repository.save} timers shared by the background writers, one per repository and outcome.
+ */
+final class RepositoryMetrics {
+
+    private RepositoryMetrics() {
+    }
+
+    static Timer saves(MeterRegistry registry, String repository, String outcome) {
+        return Timer.builder("marketdata.repository.save")
+                .description("Time taken by one batch save attempt")
+                .tag("repository", repository)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,221 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.sources.PriceSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Circuit breakers for the price sources. Each source keeps a rolling window of its last calls; once the window
+ * holds at least {@code minCalls} calls and either the share of failed calls (errors and missed deadlines) reaches
+ * {@code failureRate} or the {@code latencyPercentile} latency exceeds {@code latencyBudget}, the breaker opens and
+ * polls skip the source. After {@code openDuration} a single poll probes it half-open: a fast, successful probe
+ * closes the breaker with a fresh window, anything else opens it again.
+ */
+@Component
+public class SourceHealth {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public record SourceStatus(String source, State state, String reason, Instant openedAt, int calls,
+                               double failureRate, long latencyPercentileMillis, long skipped, long opened) {}
+
+    private static final Logger log = LoggerFactory.getLogger(SourceHealth.class);
+
+    private final Clock clock;
+    private final boolean enabled;
+    private final int window;
+    private final int minCalls;
+    private final double failureRate;
+    private final Duration latencyBudget;
+    private final double latencyPercentile;
+    private final Duration openDuration;
+    private final ConcurrentMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    public SourceHealth(Clock clock,
+                        @Value("${sources.breaker.enabled:true}") boolean enabled,
+                        @Value("${sources.breaker.window:20}") int window,
+                        @Value("${sources.breaker.min-calls:10}") int minCalls,
+                        @Value("${sources.breaker.failure-rate:0.5}") double failureRate,
+                        @Value("${sources.breaker.latency-budget:1s}") Duration latencyBudget,
+                        @Value("${sources.breaker.latency-percentile:0.9}") double latencyPercentile,
+                        @Value("${sources.breaker.open-duration:30s}") Duration openDuration) {
+        if (window < 1 || minCalls < 1 || minCalls > window) {
+            throw new IllegalArgumentException("sources.breaker.min-calls must be between 1 and sources.breaker.window");
+        }
+        if (latencyPercentile <= 0 || latencyPercentile > 1) {
+            throw new IllegalArgumentException("sources.breaker.latency-percentile must be in (0, 1]");
+        }
+        this.clock = clock;
+        this.enabled = enabled;
+        this.window = window;
+        this.minCalls = minCalls;
+        this.failureRate = failureRate;
+        this.latencyBudget = latencyBudget;
+        this.latencyPercentile = latencyPercentile;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Tracks calls without ever opening a breaker, so every source is polled on every poll.
+     */
+    public static SourceHealth disabled() {
+        return new SourceHealth(Clock.systemUTC(), false, 20, 10, 0.5, Duration.ofSeconds(1), 0.9,
+                Duration.ofSeconds(30));
+    }
+
+    public Breaker breaker(PriceSource source) {
+        return breakers.computeIfAbsent(name(source), Breaker::new);
+    }
+
+    public List<SourceStatus> getStatus() {
+        return breakers.values().stream()
+                .map(Breaker::status)
+                .sorted((a, b) -> a.source().compareTo(b.source()))
+                .toList();
+    }
+
+    static String name(PriceSource source) {
+        String name = source.name();
+        return name == null || name.isBlank() ? source.getClass().getSimpleName() : name;
+    }
+
+    public final class Breaker {
+
+        private final String source;
+        // Ring of the last calls; failed calls keep their latency too, a missed deadline being the slowest call
+        private final long[] latencyNanos = new long[window];
+        private final boolean[] failed = new boolean[window];
+        private int next;
+        private int calls;
+        private State state = State.CLOSED;
+        private String reason;
+        private Instant openedAt;
+        private boolean probing;
+        private long skipped;
+        private long opened;
+
+        private Breaker(String source) {
+            this.source = source;
+        }
+
+        /**
+         * Whether the source should be called in this poll. A true answer in the half-open state makes this
+         * caller the probe, and it must report the call through {@link #succeeded}, {@link #failed} or
+         * {@link #abandoned}.
+         */
+        public synchronized boolean tryAcquire() {
+            if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+                state = State.HALF_OPEN;
+                probing = false;
+            }
+            if (state == State.CLOSED || (state == State.HALF_OPEN && !probing)) {
+                probing = state == State.HALF_OPEN;
+                return true;
+            }
+            skipped++;
+            return false;
+        }
+
+        public synchronized void succeeded(long nanos) {
+            if (state == State.HALF_OPEN) {
+                if (nanos <= latencyBudget.toNanos()) {
+                    close();
+                } else {
+                    open("probe took " + Duration.ofNanos(nanos).toMillis() + "ms");
+                }
+                return;
+            }
+            record(nanos, false);
+        }
+
+        public synchronized void failed(long nanos) {
+            if (state == State.HALF_OPEN) {
+                open("probe failed");
+                return;
+            }
+            record(nanos, true);
+        }
+
+        /**
+         * Gives up a call that was never completed for reasons of our own, such as shutdown, without counting it.
+         */
+        public synchronized void abandoned() {
+            if (state == State.HALF_OPEN) {
+                probing = false;
+            }
+        }
+
+        private void record(long nanos, boolean failure) {
+            latencyNanos[next] = nanos;
+            failed[next] = failure;
+            next = (next + 1) % window;
+            calls = Math.min(calls + 1, window);
+            if (!enabled || state != State.CLOSED || calls < minCalls) {
+                return;
+            }
+            double rate = failureRate();
+            if (rate >= failureRate) {
+                open(Math.round(rate * 100) + "% of the last " + calls + " calls failed");
+                return;
+            }
+            long latency = latencyPercentile();
+            if (latency > latencyBudget.toNanos()) {
+                open("p" + Math.round(latencyPercentile * 100) + " latency " + Duration.ofNanos(latency).toMillis()
+                        + "ms over the " + latencyBudget.toMillis() + "ms budget");
+            }
+        }
+
+        private void open(String why) {
+            state = State.OPEN;
+            reason = why;
+            openedAt = clock.instant();
+            probing = false;
+            opened++;
+            log.warn("source={} breaker opened: {}, skipping it for {}ms", source, why, openDuration.toMillis());
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            reason = null;
+            openedAt = null;
+            probing = false;
+            calls = 0;
+            next = 0;
+            log.info("source={} breaker closed after a successful probe", source);
+        }
+
+        private double failureRate() {
+            int failures = 0;
+            for (int i = 0; i < calls; i++) {
+                if (failed[i]) {
+                    failures++;
+                }
+            }
+            return calls == 0 ? 0 : (double) failures / calls;
+        }
+
+        private long latencyPercentile() {
+            if (calls == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencyNanos, calls);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(latencyPercentile * calls) - 1];
+        }
+
+        private synchronized SourceStatus status() {
+            return new SourceStatus(source, state, reason, openedAt, calls, failureRate(),
+                    Duration.ofNanos(latencyPercentile()).toMillis(), skipped, opened);
+        }
+    }
+}
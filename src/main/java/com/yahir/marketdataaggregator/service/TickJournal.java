@@ -0,0 +1,431 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.IdTable;
+import com.yahir.marketdataaggregator.domain.IngestListener;
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead journal of every tick that reaches {@link MarketDataAggregator#ingest}, together with the outcome
+ * the aggregator decided for it.
+ * <p>
+ * Records are appended to fixed-size memory-mapped segment files ({@code ticks-<seq>.journal}), so an append is
+ * a handful of buffer writes under a short lock and never a system call. The record length is published last,
+ * with release semantics, which lets a {@link TickJournalReader} tail the segment that is being written. When a
+ * record no longer fits, the segment is closed with an end marker and a new one is started; only the newest
+ * {@code maxSegments} segments are kept. Every start begins a new segment, so a torn record left by a crash is
+ * never appended to.
+ * <p>
+ * The next segment is created and mapped ahead of time on the background thread, which also forces closed
+ * segments to disk and deletes expired ones, so a roll costs the ingesting thread a rename rather than a file
+ * allocation and a flush of the whole segment.
+ * <p>
+ * Record layout, little-endian and padded to 8 bytes: length (int), outcome ordinal (byte), unused (byte),
+ * symbol length (short), tick timestamp (long epoch nanos), ingest time (long epoch nanos), price (double),
+ * source length (short), then the UTF-8 symbol and source bytes. A string length of -1 stands for null.
+ */
+@Component
+@ConditionalOnProperty(
+        prefix = "journal",
+        name = "enabled",
+        havingValue = "true"
+)
+public class TickJournal {
+
+    public enum FsyncPolicy {
+        /** Leave write-back to the operating system. */
+        NEVER,
+        /** Force the current segment to disk every {@code fsyncInterval}, and every segment when it is closed. */
+        INTERVAL,
+        /** Force every record before the ingesting thread returns; costs a disk flush per tick. */
+        ALWAYS
+    }
+
+    public record JournalStats(long segment, long appended, long dropped, long rolled, long deleted) {}
+
+    static final String SEGMENT_PREFIX = "ticks-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final int END_OF_SEGMENT = -1;
+    static final int NULL_STRING = -1;
+    static final int OUTCOME_OFFSET = 4;
+    static final int SYMBOL_LENGTH_OFFSET = 6;
+    static final int TIMESTAMP_OFFSET = 8;
+    static final int INGESTED_AT_OFFSET = 16;
+    static final int PRICE_OFFSET = 24;
+    static final int SOURCE_LENGTH_OFFSET = 32;
+    static final int HEADER_BYTES = 34;
+    static final VarHandle LENGTH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final Logger log = LoggerFactory.getLogger(TickJournal.class);
+
+    private final MarketDataAggregator aggregator;
+    private final Clock clock;
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+    private final Duration fsyncInterval;
+    private final IngestListener listener = this::append;
+    private static final String PENDING_SUFFIX = ".tmp";
+
+    private final ScheduledExecutorService syncer =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("tick-journal-fsync").daemon().factory());
+
+    // Guarded by this; the buffer is volatile only so the fsync thread can force the current segment
+    private volatile MappedByteBuffer segment;
+    private long segmentSequence;
+    private int position;
+    private boolean closed;
+    // The following segment, mapped ahead by the syncer; a roll only has to rename it into place
+    private Prepared next;
+
+    private final IdTable<byte[]> symbolBytes = new IdTable<>();
+    private final IdTable<byte[]> sourceBytes = new IdTable<>();
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rolled = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong pendingFiles = new AtomicLong();
+
+    @Autowired
+    public TickJournal(MarketDataAggregator aggregator, Clock clock,
+                       @Value("${journal.dir:journal}") String directory,
+                       @Value("${journal.segment-size:64MB}") DataSize segmentSize,
+                       @Value("${journal.max-segments:16}") int maxSegments,
+                       @Value("${journal.fsync:INTERVAL}") FsyncPolicy fsyncPolicy,
+                       @Value("${journal.fsync-interval:1s}") Duration fsyncInterval) {
+        if (segmentSize.toBytes() < 4096 || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("journal.segment-size must be between 4KB and 2GB");
+        }
+        if (maxSegments < 1) {
+            throw new IllegalArgumentException("journal.max-segments must be at least 1");
+        }
+        this.aggregator = aggregator;
+        this.clock = clock;
+        this.directory = Path.of(directory);
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.maxSegments = maxSegments;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncInterval = fsyncInterval;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        try {
+            Files.createDirectories(directory);
+            deletePendingSegments();
+            List<Long> existing = segmentSequences(directory);
+            install(map(existing.isEmpty() ? 0 : existing.getLast() + 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open tick journal in " + directory, e);
+        }
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            syncer.scheduleWithFixedDelay(this::forceCurrent, fsyncInterval.toNanos(), fsyncInterval.toNanos(),
+                    TimeUnit.NANOSECONDS);
+        }
+        long following = segmentSequence + 1;
+        syncer.execute(() -> prepare(following));
+        aggregator.addIngestListener(listener);
+        log.info("Tick journal writing to {} from segment {}", directory, segmentSequence);
+    }
+
+    @PreDestroy
+    public void stop() {
+        aggregator.removeIngestListener(listener);
+        MappedByteBuffer last;
+        Prepared unused;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            last = segment;
+            if (last != null) {
+                markEnd();
+            }
+            unused = next;
+            next = null;
+        }
+        // Lets closed segments queued for a flush and pending deletions finish first
+        syncer.shutdown();
+        try {
+            syncer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (last != null && fsyncPolicy != FsyncPolicy.NEVER) {
+            last.force();
+        }
+        if (unused != null) {
+            deleteQuietly(unused.pending());
+        }
+    }
+
+    public void append(PriceTick tick, IngestOutcome outcome) {
+        if (outcome == IngestOutcome.EMPTY) {
+            // Nothing in an empty tick is worth replaying
+            return;
+        }
+        // Encoded outside the lock so concurrent ingest threads only serialize on the buffer writes
+        byte[] symbol = encode(symbolBytes, tick.getSymbolId(), tick.getSymbol());
+        byte[] source = encode(sourceBytes, tick.getSourceId(), tick.getSource());
+        long timeStamp;
+        long ingestedAt;
+        try {
+            timeStamp = tick.getTimeStamp() == null ? Long.MIN_VALUE : toNanos(tick.getTimeStamp());
+            ingestedAt = toNanos(clock.instant());
+        } catch (ArithmeticException e) {
+            // Beyond the years epoch nanos can hold
+            dropped.incrementAndGet();
+            return;
+        }
+        int length = HEADER_BYTES + byteLength(symbol) + byteLength(source);
+        // String lengths are stored as shorts
+        if (byteLength(symbol) > Short.MAX_VALUE || byteLength(source) > Short.MAX_VALUE || align(length) > segmentSize) {
+            dropped.incrementAndGet();
+            return;
+        }
+        synchronized (this) {
+            if (closed || segment == null) {
+                dropped.incrementAndGet();
+                return;
+            }
+            if (align(position + length) > segmentSize) {
+                try {
+                    roll();
+                } catch (IOException e) {
+                    dropped.incrementAndGet();
+                    log.error("Tick journal could not roll to a new segment: {}", e.toString());
+                    return;
+                }
+            }
+            MappedByteBuffer buffer = segment;
+            int start = position;
+            buffer.put(start + OUTCOME_OFFSET, (byte) outcome.ordinal());
+            buffer.putShort(start + SYMBOL_LENGTH_OFFSET, (short) (symbol == null ? NULL_STRING : symbol.length));
+            buffer.putLong(start + TIMESTAMP_OFFSET, timeStamp);
+            buffer.putLong(start + INGESTED_AT_OFFSET, ingestedAt);
+            buffer.putDouble(start + PRICE_OFFSET, tick.getPrice());
+            buffer.putShort(start + SOURCE_LENGTH_OFFSET, (short) (source == null ? NULL_STRING : source.length));
+            int data = start + HEADER_BYTES;
+            if (symbol != null) {
+                buffer.put(data, symbol);
+                data += symbol.length;
+            }
+            if (source != null) {
+                buffer.put(data, source);
+            }
+            // Published last: a reader that sees the length also sees every byte of the record
+            LENGTH.setRelease(buffer, start, length);
+            position = align(start + length);
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                buffer.force(start, length);
+            }
+        }
+        appended.incrementAndGet();
+    }
+
+    public synchronized JournalStats getStats() {
+        return new JournalStats(segmentSequence, appended.get(), dropped.get(), rolled.get(), deleted.get());
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    static Path segmentPath(Path directory, long sequence) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", sequence) + SEGMENT_SUFFIX);
+    }
+
+    static List<Long> segmentSequences(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))
+                    .filter(sequence -> !sequence.isEmpty() && sequence.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    private void roll() throws IOException {
+        MappedByteBuffer finished = segment;
+        markEnd();
+        Prepared prepared = next;
+        next = null;
+        if (prepared != null && prepared.sequence() == segmentSequence + 1) {
+            install(prepared);
+        } else {
+            // The syncer has not got the next segment ready yet
+            if (prepared != null) {
+                deleteQuietly(prepared.pending());
+            }
+            install(map(segmentSequence + 1));
+        }
+        rolled.incrementAndGet();
+        long following = segmentSequence + 1;
+        syncer.execute(() -> {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                force(finished);
+            }
+            deleteExpiredSegments();
+            prepare(following);
+        });
+    }
+
+    private void markEnd() {
+        if (position + Integer.BYTES <= segmentSize) {
+            LENGTH.setRelease(segment, position, END_OF_SEGMENT);
+        }
+    }
+
+    // Creates the segment file under a temporary name at its full size and maps it
+    private Prepared map(long sequence) throws IOException {
+        // Named per attempt, so a segment mapped synchronously never collides with one the syncer is preparing
+        Path pending = directory.resolve(SEGMENT_PREFIX + sequence + "-" + pendingFiles.incrementAndGet() + PENDING_SUFFIX);
+        try (FileChannel channel = FileChannel.open(pending, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new Prepared(sequence, pending, buffer);
+        }
+    }
+
+    // Renamed only once the file has its full size, so a reader never maps a segment shorter than the writer's
+    private void install(Prepared prepared) throws IOException {
+        Files.move(prepared.pending(), segmentPath(directory, prepared.sequence()), StandardCopyOption.ATOMIC_MOVE);
+        segment = prepared.buffer();
+        segmentSequence = prepared.sequence();
+        position = 0;
+    }
+
+    // Runs on the syncer
+    private void prepare(long sequence) {
+        Prepared prepared;
+        try {
+            prepared = map(sequence);
+        } catch (IOException e) {
+            log.warn("Tick journal could not prepare segment {}: {}", sequence, e.toString());
+            return;
+        }
+        synchronized (this) {
+            if (!closed && next == null && segmentSequence + 1 == sequence) {
+                next = prepared;
+                return;
+            }
+        }
+        deleteQuietly(prepared.pending());
+    }
+
+    private void deleteExpiredSegments() {
+        try {
+            List<Long> sequences = segmentSequences(directory);
+            for (int i = 0; i < sequences.size() - maxSegments; i++) {
+                if (Files.deleteIfExists(segmentPath(directory, sequences.get(i)))) {
+                    deleted.incrementAndGet();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Tick journal could not delete expired segments: {}", e.toString());
+        }
+    }
+
+    // Left behind by a writer that did not stop cleanly
+    private void deletePendingSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(PENDING_SUFFIX))
+                    .forEach(TickJournal::deleteQuietly);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Tick journal could not delete {}: {}", path, e.toString());
+        }
+    }
+
+    private void forceCurrent() {
+        force(segment);
+    }
+
+    private static void force(MappedByteBuffer buffer) {
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Tick journal fsync failed: {}", e.toString());
+        }
+    }
+
+    // Each name is encoded once per dictionary id and reused for every later record
+    private static byte[] encode(IdTable<byte[]> cache, int id, String value) {
+        if (value == null) {
+            return null;
+        }
+        if (id == SymbolDictionary.NO_ID) {
+            // Only a tick that went through an aggregator has ids to cache its bytes under
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] bytes = cache.get(id);
+        if (bytes == null) {
+            bytes = value.getBytes(StandardCharsets.UTF_8);
+            cache.putIfAbsent(id, bytes);
+        }
+        return bytes;
+    }
+
+    private static int byteLength(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private record Prepared(long sequence, Path pending, MappedByteBuffer buffer) {}
+
+    private static long toNanos(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+    }
+}
@@ -0,0 +1,164 @@
+package com.yahir.marketdataaggregator.service;
+
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.yahir.marketdataaggregator.service.TickJournal.*;
+
+/**
+ * Reads a {@link TickJournal} directory from its oldest retained segment onwards and keeps following it as the
+ * writer appends: {@link #poll} returns whatever has been committed since the previous call and 0 when it has
+ * caught up. Not thread-safe; each consumer uses its own reader.
+ * <p>
+ * A reader that falls so far behind that retention deletes its next segment skips to the oldest one left and
+ * counts the segments it missed.
+ */
+public class TickJournalReader implements AutoCloseable {
+
+    public record Entry(Instant timeStamp, Instant ingestedAt, String symbol, double price, String source,
+                        IngestOutcome outcome) {
+
+        public PriceTick toTick() {
+            return new PriceTick(symbol, price, timeStamp, source);
+        }
+    }
+
+    private static final IngestOutcome[] OUTCOMES = IngestOutcome.values();
+
+    private final Path directory;
+    private MappedByteBuffer segment;
+    private long segmentSequence = -1;
+    private int position;
+    private long skippedSegments;
+
+    public TickJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Hands up to {@code max} committed entries to {@code consumer}, in append order, and returns how many it read.
+     */
+    public int poll(Consumer<Entry> consumer, int max) {
+        int read = 0;
+        while (read < max) {
+            if (segment == null && !advance()) {
+                break;
+            }
+            if (position + Integer.BYTES > segment.capacity()) {
+                if (!advance()) {
+                    break;
+                }
+                continue;
+            }
+            int length = (int) LENGTH.getAcquire(segment, position);
+            if (length == END_OF_SEGMENT) {
+                if (!advance()) {
+                    break;
+                }
+                continue;
+            }
+            if (length == 0) {
+                // A writer restarted after a crash leaves its last segment unterminated and moves on to the next one.
+                // Checked twice so a record committed just before the writer rolled over is not skipped.
+                if (Files.exists(segmentPath(directory, segmentSequence + 1))
+                        && (int) LENGTH.getAcquire(segment, position) == 0 && advance()) {
+                    continue;
+                }
+                break;
+            }
+            consumer.accept(decode(position));
+            position = align(position + length);
+            read++;
+        }
+        return read;
+    }
+
+    public long getSegment() {
+        return segmentSequence;
+    }
+
+    public long getSkippedSegments() {
+        return skippedSegments;
+    }
+
+    @Override
+    public void close() {
+        // The mapping is released once the buffer is unreachable
+        segment = null;
+    }
+
+    private boolean advance() {
+        try {
+            List<Long> sequences = segmentSequences(directory);
+            for (long sequence : sequences) {
+                if (sequence > segmentSequence) {
+                    if (segmentSequence >= 0 && sequence > segmentSequence + 1) {
+                        skippedSegments += sequence - segmentSequence - 1;
+                    }
+                    if (open(sequence)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list tick journal in " + directory, e);
+        }
+    }
+
+    private boolean open(long sequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(directory, sequence), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            segment = buffer;
+            segmentSequence = sequence;
+            position = 0;
+            return true;
+        } catch (NoSuchFileException e) {
+            // Deleted by retention between the listing and the open
+            return false;
+        }
+    }
+
+    private Entry decode(int start) {
+        int symbolLength = segment.getShort(start + SYMBOL_LENGTH_OFFSET);
+        int sourceLength = segment.getShort(start + SOURCE_LENGTH_OFFSET);
+        long timeStamp = segment.getLong(start + TIMESTAMP_OFFSET);
+        int data = start + HEADER_BYTES;
+        String symbol = readString(data, symbolLength);
+        String source = readString(data + Math.max(symbolLength, 0), sourceLength);
+        return new Entry(timeStamp == Long.MIN_VALUE ? null : toInstant(timeStamp),
+                toInstant(segment.getLong(start + INGESTED_AT_OFFSET)),
+                symbol,
+                segment.getDouble(start + PRICE_OFFSET),
+                source,
+                OUTCOMES[segment.get(start + OUTCOME_OFFSET)]);
+    }
+
+    private String readString(int offset, int length) {
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        segment.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Instant toInstant(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L), Math.floorMod(epochNanos, 1_000_000_000L));
+    }
+}
@@ -1,15 +1,47 @@
 package com.yahir.marketdataaggregator.sources;
 
 import com.yahir.marketdataaggregator.domain.PriceTick;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiFunction;
 
+/**
+ * GLOBAL_QUOTE client for Alpha Vantage. Requests go through one shared {@link HttpClient}, which keeps
+ * connections alive and reuses them across polls, and are paced by a {@link TokenBucket} sized to the vendor
+ * quota, so a burst of polls waits for its turn rather than being rejected upstream. The response is read
+ * token by token straight into a {@link PriceTick}.
+ * <p>
+ * With {@code bulkQuotes} on (a premium endpoint), polls of many symbols go through REALTIME_BULK_QUOTES, up to
+ * {@value #BULK_LIMIT} symbols and one token per request.
+ * <p>
+ * An unknown symbol gives an empty result. Throttling notices, error messages and non-200 responses are thrown,
+ * so the poll counts them as source errors.
+ */
 @Component
 @ConditionalOnProperty(
         prefix = "sources.alphavantage",
@@ -18,47 +50,229 @@ import java.util.Optional;
 )
 public class AlphaVantageSource implements PriceSource {
 
-    private final RestTemplate restTemplate;
-    private final String apiKey;
+    private static final String NAME = "AlphaVantage";
+    private static final int BULK_LIMIT = 100;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
-    public AlphaVantageSource(RestTemplate restTemplate, @Value("${alphavantage.api.key}") String apiKey) {
-        this.restTemplate = restTemplate;
-        this.apiKey = apiKey;
+    private final Clock clock;
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final TokenBucket rateLimit;
+    private final String quoteUrl;
+    private final String bulkQuoteUrl;
+    private final boolean bulkQuotes;
+
+    public AlphaVantageSource(Clock clock,
+                              @Value("${alphavantage.api.key}") String apiKey,
+                              @Value("${alphavantage.base-url:https://www.alphavantage.co}") String baseUrl,
+                              @Value("${alphavantage.connect-timeout:2s}") Duration connectTimeout,
+                              @Value("${alphavantage.read-timeout:5s}") Duration readTimeout,
+                              @Value("${alphavantage.requests-per-minute:5}") int requestsPerMinute,
+                              @Value("${alphavantage.burst:5}") int burst,
+                              @Value("${alphavantage.bulk-quotes:false}") boolean bulkQuotes) {
+        if (requestsPerMinute < 1) {
+            throw new IllegalArgumentException("alphavantage.requests-per-minute must be positive");
+        }
+        this.clock = clock;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+        this.readTimeout = readTimeout;
+        this.rateLimit = new TokenBucket(burst, Duration.ofMinutes(1).dividedBy(requestsPerMinute));
+        this.quoteUrl = baseUrl + "/query?function=GLOBAL_QUOTE&apikey="
+                + URLEncoder.encode(apiKey, StandardCharsets.UTF_8) + "&symbol=";
+        this.bulkQuoteUrl = baseUrl + "/query?function=REALTIME_BULK_QUOTES&apikey="
+                + URLEncoder.encode(apiKey, StandardCharsets.UTF_8) + "&symbol=";
+        this.bulkQuotes = bulkQuotes;
     }
 
     @Override
     public Optional<PriceTick> getLatestTick(String symbol) {
-        try {
-            String url = String.format(
-                    "https://www.alphavantage.co/query?function=GLOBAL_QUOTE&symbol=%s&apikey=%s",
-                    symbol,
-                    apiKey
-            );
-
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-
-            Map<String, String> quote = (Map<String, String>) response.get("Global Quote");
-
-            String priceStr = quote.get("05. price");
-            double price = Double.parseDouble(priceStr);
-
-            PriceTick tick = new PriceTick(
-                    symbol,
-                    price,
-                    Instant.now(),
-                    "AlphaVantage"
-            );
-
-            return Optional.of(tick);
-        } catch (Exception e) {
-            // If anything goes wrong (API down, bad response, etc..) return empty
-            System.err.println("Error fetching from Alpha Vantage: " + e.getMessage());
+        if (!takeToken()) {
             return Optional.empty();
         }
+        return await(fetchQuote(symbol), symbol, Optional.empty());
+    }
+
+    @Override
+    public List<PriceTick> getLatestTicks(List<String> symbols) {
+        if (!bulkQuotes || symbols.size() == 1) {
+            return PriceSource.super.getLatestTicks(symbols);
+        }
+        if (!takeToken()) {
+            return List.of();
+        }
+        return await(fetchBulkQuotes(symbols), symbols.size() + " symbols", List.of());
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return bulkQuotes ? BULK_LIMIT : 1;
+    }
+
+    /**
+     * Sends the quote request without waiting for a token, parsing the body as it streams in.
+     */
+    public CompletableFuture<Optional<PriceTick>> fetchQuote(String symbol) {
+        HttpRequest request = HttpRequest.newBuilder(quoteUri(symbol))
+                .timeout(readTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> parse(symbol, response, this::readQuote));
+    }
+
+    /**
+     * Sends one REALTIME_BULK_QUOTES request for up to {@value #BULK_LIMIT} symbols without waiting for a token.
+     */
+    public CompletableFuture<List<PriceTick>> fetchBulkQuotes(List<String> symbols) {
+        if (symbols.size() > BULK_LIMIT) {
+            throw new IllegalArgumentException("At most " + BULK_LIMIT + " symbols per bulk quote request");
+        }
+        StringJoiner joined = new StringJoiner(",");
+        symbols.forEach(symbol -> joined.add(URLEncoder.encode(symbol, StandardCharsets.UTF_8)));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(bulkQuoteUrl + joined))
+                .timeout(readTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        String what = symbols.size() + " symbols";
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> parse(what, response, this::readBulkQuotes));
     }
 
     @Override
     public String name() {
-        return "AlphaVantage";
+        return NAME;
+    }
+
+    @PreDestroy
+    public void close() {
+        httpClient.close();
+    }
+
+    private URI quoteUri(String symbol) {
+        return URI.create(quoteUrl + URLEncoder.encode(symbol, StandardCharsets.UTF_8));
+    }
+
+    private boolean takeToken() {
+        try {
+            rateLimit.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> request, String what, T abandoned) {
+        try {
+            return request.get();
+        } catch (InterruptedException e) {
+            // The poll gave up on this call; cancelling aborts the exchange instead of letting it finish unread
+            request.cancel(true);
+            Thread.currentThread().interrupt();
+            return abandoned;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Alpha Vantage request for " + what + " failed", e.getCause());
+        }
+    }
+
+    private static <T> T parse(String what, HttpResponse<InputStream> response, BiFunction<String, JsonParser, T> reader) {
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Alpha Vantage answered HTTP " + response.statusCode() + " for " + what);
+            }
+            try (JsonParser parser = JSON_FACTORY.createParser(ObjectReadContext.empty(), body)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IllegalStateException("Alpha Vantage response for " + what + " is not a JSON object");
+                }
+                return reader.apply(what, parser);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Optional<PriceTick> readQuote(String symbol, JsonParser parser) {
+        double price = Double.NaN;
+        String notice = null;
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("Global Quote".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                    String quoteField = parser.currentName();
+                    parser.nextToken();
+                    if ("05. price".equals(quoteField)) {
+                        price = parser.getValueAsDouble(Double.NaN);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if (isNotice(field, value)) {
+                notice = parser.getString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        refuseOnNotice(symbol, notice);
+        // An unknown symbol comes back as an empty quote
+        if (Double.isNaN(price)) {
+            return Optional.empty();
+        }
+        return Optional.of(new PriceTick(symbol, price, clock.instant(), NAME));
+    }
+
+    // {"data": [{"symbol": "IBM", "timestamp": "...", "close": "181.25", ...}, ...]}; symbols it does not know are left out
+    private List<PriceTick> readBulkQuotes(String what, JsonParser parser) {
+        List<PriceTick> ticks = new ArrayList<>();
+        String notice = null;
+        Instant now = clock.instant();
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    String symbol = null;
+                    double price = Double.NaN;
+                    while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                        String quoteField = parser.currentName();
+                        parser.nextToken();
+                        if ("symbol".equals(quoteField)) {
+                            symbol = parser.getString();
+                        } else if ("close".equals(quoteField)) {
+                            price = parser.getValueAsDouble(Double.NaN);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    if (symbol != null && !Double.isNaN(price)) {
+                        ticks.add(new PriceTick(symbol, price, now, NAME));
+                    }
+                }
+            } else if (isNotice(field, value)) {
+                notice = parser.getString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        refuseOnNotice(what, notice);
+        return ticks;
+    }
+
+    private static boolean isNotice(String field, JsonToken value) {
+        return value == JsonToken.VALUE_STRING
+                && ("Note".equals(field) || "Information".equals(field) || "Error Message".equals(field));
+    }
+
+    private static void refuseOnNotice(String what, String notice) {
+        if (notice != null) {
+            throw new IllegalStateException("Alpha Vantage refused " + what + ": " + notice);
+        }
     }
 }
@@ -2,9 +2,31 @@ package com.yahir.marketdataaggregator.sources;
 
 import com.yahir.marketdataaggregator.domain.PriceTick;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 public interface PriceSource {
     Optional<PriceTick> getLatestTick(String symbol);
     String name();
+
+    /**
+     * Latest ticks for several symbols, leaving out the ones without a tick. Sources whose upstream can quote many
+     * symbols in one request override this; the default asks for each symbol in turn.
+     */
+    default List<PriceTick> getLatestTicks(List<String> symbols) {
+        List<PriceTick> ticks = new ArrayList<>(symbols.size());
+        for (String symbol : symbols) {
+            getLatestTick(symbol).ifPresent(ticks::add);
+        }
+        return ticks;
+    }
+
+    /**
+     * The most symbols {@link #getLatestTicks} should be given at once. 1 means the source has no bulk request, and
+     * polls call {@link #getLatestTick} for each symbol in parallel instead.
+     */
+    default int maxBatchSize() {
+        return 1;
+    }
 }
@@ -0,0 +1,80 @@
+package com.yahir.marketdataaggregator.sources;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter that queues callers instead of failing them. The bucket holds up to {@code capacity} tokens and
+ * gains one every {@code refillPeriod}. A caller that finds it empty reserves the next token anyway, taking the
+ * bucket into debt, and sleeps until that token is due; callers are therefore served in the order they arrived.
+ */
+public final class TokenBucket {
+
+    private final int capacity;
+    private final long refillNanos;
+    private final LongSupplier nanoTime;
+    // May go negative: each token below zero is a reservation made by a waiting caller
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(int capacity, Duration refillPeriod) {
+        this(capacity, refillPeriod, System::nanoTime);
+    }
+
+    public TokenBucket(int capacity, Duration refillPeriod, LongSupplier nanoTime) {
+        if (capacity < 1 || refillPeriod.isNegative() || refillPeriod.isZero()) {
+            throw new IllegalArgumentException("A token bucket needs a positive capacity and refill period");
+        }
+        this.capacity = capacity;
+        this.refillNanos = refillPeriod.toNanos();
+        this.nanoTime = nanoTime;
+        this.tokens = capacity;
+        this.refilledAt = nanoTime.getAsLong();
+    }
+
+    /**
+     * Takes a token, waiting for it if the bucket is empty. If the wait is interrupted the reservation is handed
+     * back and the interrupt is rethrown.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos == 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes a token, or reserves the next one, and returns how long the caller has to wait before using it.
+     */
+    public synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * refillNanos);
+    }
+
+    /**
+     * Returns a token that was reserved but not used.
+     */
+    public synchronized void release() {
+        refill();
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    public synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(capacity, tokens + (double) (now - refilledAt) / refillNanos);
+        refilledAt = now;
+    }
+}
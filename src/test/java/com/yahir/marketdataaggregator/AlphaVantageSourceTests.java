@@ -0,0 +1,163 @@
+package com.yahir.marketdataaggregator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.sources.AlphaVantageSource;
+import com.yahir.marketdataaggregator.sources.TokenBucket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AlphaVantageSourceTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+
+    @BeforeEach
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/query", this::answer);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    public void parsesQuoteAndReusesConnection() {
+        responses.put("IBM", """
+                {"Global Quote": {"01. symbol": "IBM", "02. open": "180.10", "05. price": "181.2500",
+                "07. latest trading day": "2025-12-31", "10. change percent": "0.64%"}, "meta": [1, {"a": null}]}""");
+        AlphaVantageSource source = source(600, 10);
+
+        Optional<PriceTick> first = source.getLatestTick("IBM");
+        Optional<PriceTick> second = source.getLatestTick("IBM");
+
+        assertTrue(first.isPresent());
+        assertEquals("IBM", first.get().getSymbol());
+        assertEquals(181.25, first.get().getPrice());
+        assertEquals(fixedInstant, first.get().getTimeStamp());
+        assertEquals("AlphaVantage", first.get().getSource());
+        assertTrue(second.isPresent());
+        assertEquals("function=GLOBAL_QUOTE&apikey=test+key&symbol=IBM", queries.getFirst());
+        assertEquals(1, clientPorts.size(), "both requests should use the same pooled connection");
+        source.close();
+    }
+
+    @Test
+    public void unknownSymbolIsEmptyAndRefusalsAreErrors() {
+        responses.put("NOPE", "{\"Global Quote\": {}}");
+        responses.put("BUSY", "{\"Note\": \"Thank you for using Alpha Vantage! Our standard API rate limit is 25 requests per day.\"}");
+        AlphaVantageSource source = source(600, 10);
+
+        assertTrue(source.getLatestTick("NOPE").isEmpty());
+        IllegalStateException refused = assertThrows(IllegalStateException.class, () -> source.getLatestTick("BUSY"));
+        assertTrue(refused.getMessage().contains("rate limit"));
+        IllegalStateException missing = assertThrows(IllegalStateException.class, () -> source.getLatestTick("GONE"));
+        assertTrue(missing.getMessage().contains("HTTP 404"));
+        source.close();
+    }
+
+    @Test
+    public void queuesRequestsBeyondTheQuota() {
+        responses.put("IBM", "{\"Global Quote\": {\"05. price\": \"181.25\"}}");
+        // One request at once, then one every 100ms
+        AlphaVantageSource source = source(600, 1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(source.getLatestTick("IBM").isPresent());
+        }
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(elapsedMillis >= 190, "3 requests within " + elapsedMillis + "ms exceed the quota");
+        assertEquals(3, queries.size());
+        source.close();
+    }
+
+    @Test
+    public void bulkQuotesAnswerManySymbolsInOneRequest() {
+        responses.put("IBM,MSFT,NOPE", """
+                {"endpoint": "Realtime Bulk Quotes", "message": "", "data": [
+                {"symbol": "IBM", "timestamp": "2025-12-31 16:00:00.000", "open": "180.10", "close": "181.25", "volume": "1000"},
+                {"symbol": "MSFT", "timestamp": "2025-12-31 16:00:00.000", "close": "420.5", "extended_hours_quote": {"a": 1}}]}""");
+        AlphaVantageSource source = source(600, 10, true);
+
+        List<PriceTick> ticks = source.getLatestTicks(List.of("IBM", "MSFT", "NOPE"));
+
+        assertEquals(100, source.maxBatchSize());
+        assertEquals(1, queries.size());
+        assertEquals("function=REALTIME_BULK_QUOTES&apikey=test+key&symbol=IBM,MSFT,NOPE", queries.getFirst());
+        assertEquals(List.of("IBM", "MSFT"), ticks.stream().map(PriceTick::getSymbol).toList());
+        assertEquals(420.5, ticks.get(1).getPrice());
+        assertEquals(1, source(600, 10).maxBatchSize());
+        source.close();
+    }
+
+    @Test
+    public void tokenBucketReservesInArrivalOrder() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(2, Duration.ofMillis(100), now::get);
+
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertEquals(Duration.ofMillis(100).toNanos(), bucket.reserve());
+        assertEquals(Duration.ofMillis(200).toNanos(), bucket.reserve());
+
+        now.set(Duration.ofMillis(150).toNanos());
+        bucket.release();
+        assertEquals(0.5, bucket.available(), 1e-9);
+        now.set(Duration.ofSeconds(10).toNanos());
+        assertEquals(2, bucket.available(), 1e-9);
+    }
+
+    private AlphaVantageSource source(int requestsPerMinute, int burst) {
+        return source(requestsPerMinute, burst, false);
+    }
+
+    private AlphaVantageSource source(int requestsPerMinute, int burst, boolean bulkQuotes) {
+        return new AlphaVantageSource(fixedClock, "test key", "http://localhost:" + server.getAddress().getPort(),
+                Duration.ofSeconds(1), Duration.ofSeconds(2), requestsPerMinute, burst, bulkQuotes);
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        queries.add(query);
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        String body = responses.get(query.substring(query.indexOf("&symbol=") + 8));
+        byte[] bytes = (body == null ? "{}" : body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(body == null ? 404 : 200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.controller.BarsController;
+import com.yahir.marketdataaggregator.domain.Candle;
+import com.yahir.marketdataaggregator.domain.CandleInterval;
+import com.yahir.marketdataaggregator.service.CandleRollup;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(BarsController.class)
+public class BarsControllerTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private CandleRollup candleRollup;
+
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    @Test
+    public void returnsBarsForInterval() throws Exception {
+        Candle candle = new Candle("BTCUSD", CandleInterval.FIVE_MINUTES, fixedInstant, 25000);
+        candle.update(25100.5);
+        when(candleRollup.getBars("BTCUSD", CandleInterval.FIVE_MINUTES, fixedInstant, fixedInstant.plusSeconds(3600)))
+                .thenReturn(List.of(candle));
+
+        mockMvc.perform(get("/api/bars/BTCUSD")
+                        .param("interval", "5m")
+                        .param("inStart", "2026-01-01T00:00:00Z")
+                        .param("inEnd", "2026-01-01T01:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].interval").value("5m"))
+                .andExpect(jsonPath("$[0].open").value(25000.00))
+                .andExpect(jsonPath("$[0].high").value(25100.50))
+                .andExpect(jsonPath("$[0].close").value(25100.50))
+                .andExpect(jsonPath("$[0].ticks").value(2));
+    }
+
+    @Test
+    public void rejectsUnknownIntervalAndInvertedRange() throws Exception {
+        mockMvc.perform(get("/api/bars/BTCUSD")
+                        .param("interval", "2m")
+                        .param("inStart", "2026-01-01T00:00:00Z")
+                        .param("inEnd", "2026-01-01T01:00:00Z"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unsupported interval: 2m (use 1s, 1m, 5m or 1h)"));
+
+        mockMvc.perform(get("/api/bars/BTCUSD")
+                        .param("inStart", "2026-01-01T01:00:00Z")
+                        .param("inEnd", "2026-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(candleRollup);
+    }
+}
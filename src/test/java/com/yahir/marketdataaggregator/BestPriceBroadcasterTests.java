@@ -0,0 +1,105 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.service.BestPriceBroadcaster;
+import com.yahir.marketdataaggregator.service.BestPriceBroadcaster.BestPriceEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BestPriceBroadcasterTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    private final MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+    private final BestPriceBroadcaster broadcaster = new BestPriceBroadcaster(aggregator);
+
+    @AfterEach
+    public void shutdown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    public void subscriberGetsSnapshotThenOnlyFilteredSymbols() throws Exception {
+        aggregator.ingest(new PriceTick("BTCUSD", 25000, fixedInstant, "TestSource"));
+        List<BestPriceEvent> received = new CopyOnWriteArrayList<>();
+
+        broadcaster.subscribe(List.of("btcusd"), received::add);
+        // An update racing the snapshot would be conflated into it, so let the snapshot land first
+        awaitCondition(() -> received.size() == 1);
+        aggregator.ingest(new PriceTick("ETHUSD", 1800, fixedInstant, "TestSource"));
+        aggregator.ingest(new PriceTick("BTCUSD", 25100, fixedInstant.plusSeconds(1), "TestSource"));
+
+        awaitCondition(() -> received.size() == 2);
+        assertEquals(new BestPriceEvent("BTCUSD", new BigDecimal("25000.00"), fixedInstant, "TestSource"), received.get(0));
+        assertEquals(new BigDecimal("25100.00"), received.get(1).price());
+        assertTrue(received.stream().allMatch(event -> event.symbol().equals("BTCUSD")));
+    }
+
+    @Test
+    public void slowSubscriberIsConflatedAndDoesNotBlockIngest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<BestPriceEvent> slow = new CopyOnWriteArrayList<>();
+        List<BestPriceEvent> fast = new CopyOnWriteArrayList<>();
+        broadcaster.subscribe(List.of(), event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            slow.add(event);
+        });
+        broadcaster.subscribe(List.of("BTCUSD"), fast::add);
+
+        // Every tick changes the best while the slow subscriber is stuck on its first send
+        int updates = 1_000;
+        for (int i = 0; i < updates; i++) {
+            aggregator.ingest(new PriceTick("BTCUSD", 25000 + i % 10, fixedInstant.plusMillis(i), "TestSource"));
+        }
+        BigDecimal last = new BigDecimal(25000 + (updates - 1) % 10).setScale(2);
+        awaitCondition(() -> !fast.isEmpty() && fast.getLast().timeStamp().equals(fixedInstant.plusMillis(updates - 1)));
+        assertTrue(slow.isEmpty());
+
+        release.countDown();
+        awaitCondition(() -> !slow.isEmpty() && slow.getLast().timeStamp().equals(fixedInstant.plusMillis(updates - 1)));
+        assertTrue(slow.size() <= 2, "slow subscriber should only see its in-flight value and the latest, saw " + slow.size());
+        assertEquals(last, slow.getLast().price());
+        assertTrue(broadcaster.getStats().conflated() > 0);
+    }
+
+    @Test
+    public void failingSubscriberIsDropped() throws Exception {
+        BestPriceBroadcaster.Subscription subscription = broadcaster.subscribe(List.of(), event -> {
+            throw new IOException("client went away");
+        });
+
+        aggregator.ingest(new PriceTick("BTCUSD", 25000, fixedInstant, "TestSource"));
+
+        awaitCondition(subscription::isCancelled);
+        assertEquals(0, broadcaster.getStats().subscribers());
+        assertEquals(1, broadcaster.getStats().failed());
+    }
+
+    private void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.Candle;
+import com.yahir.marketdataaggregator.domain.CandleInterval;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.repository.CandleRepository;
+import com.yahir.marketdataaggregator.service.CandleRollup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CandleRollupTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    @Mock
+    private CandleRepository candleRepository;
+
+    private CandleRollup rollup(MarketDataAggregator aggregator, Clock clock) {
+        return new CandleRollup(aggregator, candleRepository, clock, Duration.ofSeconds(1), Duration.ofSeconds(60), 5000);
+    }
+
+    @Test
+    public void ticksRollIntoEveryInterval() {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+        CandleRollup rollup = rollup(aggregator, fixedClock);
+        when(candleRepository.findBars(anyString(), any(), any(), any(), any())).thenReturn(List.of());
+
+        aggregator.ingest(new PriceTick("BTCUSD", 100, fixedInstant, "TestSource"));
+        aggregator.ingest(new PriceTick("BTCUSD", 110, fixedInstant.plusMillis(500), "TestSource"));
+        aggregator.ingest(new PriceTick("BTCUSD", 95, fixedInstant.plusMillis(700), "TestSource"));
+        aggregator.ingest(new PriceTick("BTCUSD", 105, fixedInstant.plusMillis(1200), "TestSource"));
+
+        List<Candle> seconds = rollup.getBars("btcusd", CandleInterval.ONE_SECOND, fixedInstant, fixedInstant.plusSeconds(10));
+        assertEquals(2, seconds.size());
+        assertBar(seconds.get(0), fixedInstant, 100, 110, 95, 95, 3);
+        assertBar(seconds.get(1), fixedInstant.plusSeconds(1), 105, 105, 105, 105, 1);
+
+        List<Candle> minutes = rollup.getBars("BTCUSD", CandleInterval.ONE_MINUTE, fixedInstant, fixedInstant);
+        assertEquals(1, minutes.size());
+        assertBar(minutes.get(0), fixedInstant, 100, 110, 95, 105, 4);
+        assertEquals(1, rollup.getStats().closed());
+    }
+
+    @Test
+    public void sweepPersistsClosedAndQuietBarsAfterGrace() {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+        CandleRollup rollup = rollup(aggregator, Clock.offset(fixedClock, Duration.ofHours(2)));
+
+        aggregator.ingest(new PriceTick("BTCUSD", 100, fixedInstant, "TestSource"));
+        aggregator.ingest(new PriceTick("BTCUSD", 101, fixedInstant.plusSeconds(1), "TestSource"));
+        rollup.sweepAndFlush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Candle>> saved = ArgumentCaptor.forClass(List.class);
+        verify(candleRepository).saveAll(saved.capture());
+        List<Candle> candles = new ArrayList<>(saved.getValue());
+        assertEquals(5, candles.size());
+        assertEquals(2, candles.stream().filter(candle -> candle.getInterval() == CandleInterval.ONE_SECOND).count());
+        assertTrue(candles.stream().anyMatch(candle -> candle.getInterval() == CandleInterval.ONE_HOUR && candle.getTickCount() == 2));
+        assertEquals(0, rollup.getStats().pendingClosed());
+        assertEquals(5, rollup.getStats().persisted());
+
+        // A quiet bar is not swept while ticks for it could still arrive
+        MarketDataAggregator fresh = new MarketDataAggregator(fixedClock);
+        CandleRollup graceRollup = rollup(fresh, Clock.offset(fixedClock, Duration.ofSeconds(30)));
+        fresh.ingest(new PriceTick("ETHUSD", 1800, fixedInstant, "TestSource"));
+        graceRollup.sweepAndFlush();
+        assertEquals(0, graceRollup.getStats().closed());
+    }
+
+    @Test
+    public void failedSaveKeepsBarsQueuedForTheNextFlush() throws InterruptedException {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+        CandleRollup rollup = new CandleRollup(aggregator, candleRepository, Clock.offset(fixedClock, Duration.ofHours(2)),
+                Duration.ofMillis(1), Duration.ofSeconds(60), 5000);
+        IllegalStateException down = new IllegalStateException("database down");
+        when(candleRepository.saveAll(anyList()))
+                .thenThrow(down, down, down, down, down, down)
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        aggregator.ingest(new PriceTick("BTCUSD", 100, fixedInstant, "TestSource"));
+        rollup.sweepAndFlush();
+        assertEquals(4, rollup.getStats().pendingClosed());
+        assertEquals(4, rollup.getStats().failed());
+        assertEquals(0, rollup.getStats().persisted());
+
+        // Failing again counts the same bars only once
+        Thread.sleep(5);
+        rollup.sweepAndFlush();
+        assertEquals(4, rollup.getStats().pendingClosed());
+        assertEquals(4, rollup.getStats().failed());
+
+        Thread.sleep(5);
+        rollup.sweepAndFlush();
+        assertEquals(0, rollup.getStats().pendingClosed());
+        assertEquals(4, rollup.getStats().persisted());
+        assertEquals(4, rollup.getStats().failed());
+        verify(candleRepository, times(7)).saveAll(anyList());
+    }
+
+    @Test
+    public void barSavedAtShutdownIsUpdatedInPlace() {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+        CandleRollup rollup = rollup(aggregator, fixedClock);
+        // The hour bar as saved by the previous run when it stopped
+        Candle saved = new Candle("BTCUSD", CandleInterval.ONE_HOUR, fixedInstant, 90);
+        saved.update(120);
+        when(candleRepository.findExisting(anyCollection(), anyCollection())).thenReturn(List.of(saved));
+
+        aggregator.ingest(new PriceTick("BTCUSD", 100, fixedInstant.plusSeconds(10), "TestSource"));
+        aggregator.ingest(new PriceTick("BTCUSD", 101, fixedInstant.plusSeconds(11), "TestSource"));
+        rollup.stop();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Candle>> rows = ArgumentCaptor.forClass(List.class);
+        verify(candleRepository).saveAll(rows.capture());
+        List<Candle> hours = rows.getValue().stream()
+                .filter(candle -> candle.getInterval() == CandleInterval.ONE_HOUR).toList();
+        assertEquals(1, hours.size());
+        assertSame(saved, hours.getFirst());
+        assertBar(saved, fixedInstant, 90, 120, 90, 101, 4);
+        assertEquals(0, rollup.getStats().failed());
+    }
+
+    private void assertBar(Candle candle, Instant openTime, double open, double high, double low, double close, long ticks) {
+        assertEquals(openTime, candle.getOpenTime());
+        assertEquals(open, candle.getOpenPrice());
+        assertEquals(high, candle.getHighPrice());
+        assertEquals(low, candle.getLowPrice());
+        assertEquals(close, candle.getClosePrice());
+        assertEquals(ticks, candle.getTickCount());
+    }
+}
@@ -0,0 +1,78 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.controller.ConsensusController;
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.ConsensusMode;
+import com.yahir.marketdataaggregator.service.ConsensusPricer;
+import com.yahir.marketdataaggregator.service.MarketDataService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ConsensusController.class)
+public class ConsensusControllerTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ConsensusPricer consensusPricer;
+
+    @MockitoBean
+    private MarketDataService marketDataService;
+
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    @Test
+    public void returnsConsensusNextToBestPrice() throws Exception {
+        when(consensusPricer.getConsensus("BTCUSD")).thenReturn(Optional.of(
+                new ConsensusPricer.Consensus("BTCUSD", ConsensusMode.MEDIAN, 25000, 3, fixedInstant)));
+        when(marketDataService.getBest("BTCUSD")).thenReturn(Optional.of(
+                new AggregatedPrice("BTCUSD", 25010.5, fixedInstant, "SourceB")));
+
+        mockMvc.perform(get("/api/prices/BTCUSD/consensus"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mode").value("median"))
+                .andExpect(jsonPath("$.price").value(25000.00))
+                .andExpect(jsonPath("$.sources").value(3))
+                .andExpect(jsonPath("$.bestPrice").value(25010.50))
+                .andExpect(jsonPath("$.bestSource").value("SourceB"));
+    }
+
+    @Test
+    public void rejectsUnknownModeAndMissingSymbol() throws Exception {
+        when(consensusPricer.getConsensus("ETHUSD")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/prices/ETHUSD/consensus"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(put("/api/prices/ETHUSD/consensus").param("mode", "mean"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message")
+                        .value("Unsupported mode: mean (use latest, median, trimmed-mean or weighted)"));
+
+        mockMvc.perform(put("/api/prices/ETHUSD/consensus").param("mode", "trimmed-mean"))
+                .andExpect(status().isNotFound());
+
+        when(consensusPricer.setMode("ETHUSD", ConsensusMode.TRIMMED_MEAN)).thenReturn(true);
+        mockMvc.perform(put("/api/prices/ETHUSD/consensus").param("mode", "trimmed-mean"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mode").value("trimmed-mean"))
+                .andExpect(jsonPath("$.sources").value(0));
+        verify(consensusPricer, times(2)).setMode("ETHUSD", ConsensusMode.TRIMMED_MEAN);
+    }
+}
@@ -0,0 +1,88 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.ConsensusMode;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.domain.SimulatedClock;
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
+import com.yahir.marketdataaggregator.service.ConsensusPricer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsensusPricerTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final SimulatedClock clock = new SimulatedClock(fixedInstant);
+
+    private final MarketDataAggregator aggregator = new MarketDataAggregator(clock);
+    private final ConsensusPricer pricer = new ConsensusPricer(aggregator, ConsensusMode.MEDIAN, 0.2,
+            Duration.ofSeconds(60), Map.of("SourceE", 3.0));
+
+    @Test
+    public void computesEveryModeFromTheLatestQuoteOfEachSource() {
+        quote(100, 0, "SourceA");
+        quote(101, 1, "SourceB");
+        quote(102, 2, "SourceC");
+        quote(103, 3, "SourceD");
+        quote(120, 4, "SourceE");
+
+        assertEquals(102, consensus().price());
+        assertEquals(5, consensus().sources());
+        assertEquals(fixedInstant.plusSeconds(4), consensus().timeStamp());
+        pricer.setMode("btcusd", ConsensusMode.TRIMMED_MEAN);
+        assertEquals(102, consensus().price(), 1e-9);
+        pricer.setMode("BTCUSD", ConsensusMode.WEIGHTED);
+        assertEquals((100 + 101 + 102 + 103 + 120 * 3) / 7.0, consensus().price(), 1e-9);
+        pricer.setMode("BTCUSD", ConsensusMode.LATEST);
+        assertEquals(120, consensus().price());
+        assertEquals(ConsensusMode.LATEST, pricer.getMode("BTCUSD"));
+        assertEquals(ConsensusMode.MEDIAN, pricer.getMode("ETHUSD"));
+        // A symbol that was never ingested is not added just to hold a mode
+        assertFalse(pricer.setMode("ETHUSD", ConsensusMode.LATEST));
+        assertEquals(SymbolDictionary.NO_ID, aggregator.getDictionary().symbols().find("ETHUSD"));
+    }
+
+    @Test
+    public void newQuotesReplaceTheirSourceAndOldOnesExpire() {
+        quote(100, 0, "SourceA");
+        quote(110, 1, "SourceB");
+        quote(105, 2, "SourceC");
+        quote(112, 3, "SourceA");
+        assertEquals(110, consensus().price());
+        assertEquals(3, consensus().sources());
+
+        // A late tick from SourceA must not bring back its older quote
+        quote(90, 2, "SourceA");
+        assertEquals(110, consensus().price());
+
+        clock.set(fixedInstant.plusSeconds(63));
+        quote(108, 63, "SourceB");
+        assertEquals(2, consensus().sources(), "SourceC's quote is more than a minute older than the newest tick");
+        assertEquals((112 + 108) / 2.0, consensus().price(), 1e-9);
+    }
+
+    @Test
+    public void rejectedTicksDoNotCount() {
+        quote(100, 0, "SourceA");
+        quote(200, 1, "SourceB");
+        clock.set(fixedInstant.plusSeconds(120));
+        quote(101, 30, "SourceC");
+
+        assertEquals(100, consensus().price());
+        assertEquals(1, consensus().sources());
+        assertTrue(pricer.getConsensus("UNKNOWN").isEmpty());
+    }
+
+    private ConsensusPricer.Consensus consensus() {
+        return pricer.getConsensus("BTCUSD").orElseThrow();
+    }
+
+    private void quote(double price, long second, String source) {
+        aggregator.ingest(new PriceTick("BTCUSD", price, fixedInstant.plusSeconds(second), source));
+    }
+}
@@ -0,0 +1,159 @@
+package com.yahir.marketdataaggregator;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.domain.RollingOutlierFilter;
+import com.yahir.marketdataaggregator.service.IngestMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class IngestAllocationTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    private static final int SYMBOLS = 100;
+    private static final int TICKS = 200_000;
+    // Headroom for anything the measurement itself allocates; a single boxed double per tick would be ~3.2 MB
+    private static final long MEASUREMENT_SLACK_BYTES = 4096;
+
+    // Log levels are part of what is being measured, so the aggregator runs with everything below ERROR off
+    private static final Logger aggregatorLog = (Logger) LoggerFactory.getLogger(MarketDataAggregator.class);
+    private static Level previousLevel;
+
+    private final MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+
+    @BeforeAll
+    static void quietAggregatorLogging() {
+        previousLevel = aggregatorLog.getLevel();
+        aggregatorLog.setLevel(Level.ERROR);
+    }
+
+    @AfterAll
+    static void restoreAggregatorLogging() {
+        aggregatorLog.setLevel(previousLevel);
+    }
+
+    @Test
+    public void rejectedTicksAllocateNothing() {
+        PriceTick[] seeds = ticks(100, fixedInstant, "SourceB");
+        for (PriceTick seed : seeds) {
+            aggregator.ingest(seed);
+        }
+        // Counted by outcome and source as in the running application
+        new IngestMetrics(aggregator, new SimpleMeterRegistry());
+
+        assertNoAllocation(ticks(100, fixedInstant.minusSeconds(120), "SourceA"), IngestOutcome.STALE);
+        assertNoAllocation(ticks(200, fixedInstant, "SourceA"), IngestOutcome.OUTLIER);
+        assertNoAllocation(ticks(100, fixedInstant.minusSeconds(1), "SourceA"), IngestOutcome.OLDER);
+        assertNoAllocation(ticks(100, fixedInstant, "SourceC"), IngestOutcome.TIE_KEPT);
+    }
+
+    @Test
+    public void acceptedTicksAllocateOnlyThePublishedBest() {
+        assumeTrue(allocationCounter() != null, "thread allocation counters are not available on this JVM");
+        // Each pass is newer than the last so every tick replaces its symbol's best; the first passes warm up
+        for (int pass = 0; pass < 3; pass++) {
+            allocatedBytes(newerTicks(fixedInstant.minusSeconds(50 - pass)));
+        }
+
+        long allocated = allocatedBytes(newerTicks(fixedInstant.minusSeconds(25)));
+
+        // One AggregatedPrice per tick and nothing else
+        assertTrue(allocated <= 48L * TICKS + MEASUREMENT_SLACK_BYTES,
+                "allocated " + allocated + " bytes, " + (double) allocated / TICKS + " per tick");
+        assertEquals(IngestOutcome.REPLACED,
+                aggregator.ingest(new PriceTick("SYM0", 100, fixedInstant, "SourceA")));
+    }
+
+    @Test
+    public void rollingOutlierFilterAllocatesNothing() {
+        assumeTrue(allocationCounter() != null, "thread allocation counters are not available on this JVM");
+        MarketDataAggregator filtered = new MarketDataAggregator(fixedClock, Duration.ofSeconds(60), 0.25,
+                new RollingOutlierFilter(0.05, 4, 20, 0.25, 0.001));
+        for (PriceTick seed : ticks(100, fixedInstant, "SourceB")) {
+            filtered.ingest(seed);
+        }
+        // Older than the best, so every tick is either an outlier or ignored and goes through the rolling test
+        PriceTick[] ticks = new PriceTick[SYMBOLS * 2];
+        for (int i = 0; i < ticks.length; i++) {
+            ticks[i] = new PriceTick("SYM" + (i % SYMBOLS), i < SYMBOLS ? 100.5 : 200, fixedInstant.minusSeconds(1), "SourceA");
+        }
+        allocatedBytes(filtered, ticks);
+
+        long allocated = allocatedBytes(filtered, ticks);
+
+        assertTrue(allocated <= MEASUREMENT_SLACK_BYTES,
+                "rolling filter allocated " + allocated + " bytes over " + TICKS + " ticks");
+    }
+
+    private void assertNoAllocation(PriceTick[] ticks, IngestOutcome expected) {
+        assumeTrue(allocationCounter() != null, "thread allocation counters are not available on this JVM");
+        for (PriceTick tick : ticks) {
+            assertEquals(expected, aggregator.ingest(tick));
+        }
+        // Warm up so the measured pass runs compiled code
+        for (int i = 0; i < TICKS; i++) {
+            aggregator.ingest(ticks[i % ticks.length]);
+        }
+
+        long allocated = allocatedBytes(ticks);
+
+        assertTrue(allocated <= MEASUREMENT_SLACK_BYTES,
+                expected + " allocated " + allocated + " bytes over " + TICKS + " ticks");
+    }
+
+    private long allocatedBytes(PriceTick[] ticks) {
+        return allocatedBytes(aggregator, ticks);
+    }
+
+    private long allocatedBytes(MarketDataAggregator aggregator, PriceTick[] ticks) {
+        com.sun.management.ThreadMXBean counter = allocationCounter();
+        long threadId = Thread.currentThread().threadId();
+        long before = counter.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < TICKS; i++) {
+            aggregator.ingest(ticks[i % ticks.length]);
+        }
+        return counter.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private PriceTick[] newerTicks(Instant from) {
+        PriceTick[] ticks = new PriceTick[TICKS];
+        for (int i = 0; i < TICKS; i++) {
+            ticks[i] = new PriceTick("SYM" + (i % SYMBOLS), 100, from.plusNanos(i), "SourceA");
+        }
+        return ticks;
+    }
+
+    private PriceTick[] ticks(double price, Instant timeStamp, String source) {
+        PriceTick[] ticks = new PriceTick[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            ticks[i] = new PriceTick("SYM" + i, price, timeStamp, source);
+        }
+        return ticks;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+}
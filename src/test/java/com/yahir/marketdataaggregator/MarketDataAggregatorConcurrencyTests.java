@@ -0,0 +1,143 @@
+package com.yahir.marketdataaggregator;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MarketDataAggregatorConcurrencyTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    private static final int SYMBOLS = 10_000;
+    private static final int TICKS_PER_SYMBOL = 20;
+
+    // Per-tick logging would dominate the timings, so the aggregator is quietened for this class only
+    private static final Logger aggregatorLog = (Logger) LoggerFactory.getLogger(MarketDataAggregator.class);
+    private static Level previousLevel;
+
+    @BeforeAll
+    static void quietAggregatorLogging() {
+        previousLevel = aggregatorLog.getLevel();
+        aggregatorLog.setLevel(Level.ERROR);
+    }
+
+    @AfterAll
+    static void restoreAggregatorLogging() {
+        aggregatorLog.setLevel(previousLevel);
+    }
+
+    /**
+     * Many threads race on the same symbol; the newest tick must always end up as best.
+     */
+
+    @Test
+    public void newestTickWinsUnderContention() throws Exception {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+        int threads = 8;
+        int ticksPerThread = 5_000;
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ticksPerThread; i++) {
+                        long nanos = (long) i * threads + offset;
+                        aggregator.ingest(new PriceTick("BTCUSD", 25000 + (nanos % 100), fixedInstant.plusNanos(nanos), "Source" + offset));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        long newest = (long) (ticksPerThread - 1) * threads + (threads - 1);
+        assertTrue(aggregator.getBest("BTCUSD").isPresent());
+        assertEquals(fixedInstant.plusNanos(newest), aggregator.getBest("BTCUSD").get().getTimeStamp());
+    }
+
+    /**
+     * Ingests a 10k symbol universe from 1..N threads, each owning a slice of the symbols, and checks that no symbol
+     * is lost and sampled ones end on their newest tick. Throughput is measured by IngestBenchmark under src/jmh.
+     */
+    @Test
+    public void ingestFromManyThreadsKeepsTheNewestTickOfEverySymbol() throws Exception {
+        int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        PriceTick[] ticks = buildTicks();
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+            runIngest(aggregator, ticks, threads);
+
+            assertEquals(SYMBOLS, aggregator.getAllBest().size());
+            for (int s = 0; s < SYMBOLS; s += 997) {
+                Instant newest = fixedInstant.plusMillis(TICKS_PER_SYMBOL - 1);
+                assertEquals(newest, aggregator.getBest(symbol(s)).get().getTimeStamp());
+            }
+        }
+    }
+
+    private void runIngest(MarketDataAggregator aggregator, PriceTick[] ticks, int threads) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        int slice = SYMBOLS / threads;
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int from = t * slice;
+                int to = t == threads - 1 ? SYMBOLS : from + slice;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < TICKS_PER_SYMBOL; i++) {
+                        for (int s = from; s < to; s++) {
+                            aggregator.ingest(ticks[i * SYMBOLS + s]);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    private PriceTick[] buildTicks() {
+        PriceTick[] ticks = new PriceTick[SYMBOLS * TICKS_PER_SYMBOL];
+        for (int i = 0; i < TICKS_PER_SYMBOL; i++) {
+            for (int s = 0; s < SYMBOLS; s++) {
+                ticks[i * SYMBOLS + s] = new PriceTick(symbol(s), 100 + i, fixedInstant.plusMillis(i), "TestSource");
+            }
+        }
+        return ticks;
+    }
+
+    private String symbol(int index) {
+        return "SYM" + index;
+    }
+}
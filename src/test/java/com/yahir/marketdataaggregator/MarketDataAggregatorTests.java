@@ -1,11 +1,14 @@
 package com.yahir.marketdataaggregator;
 
 import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
 import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
 import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.domain.RollingOutlierFilter;
 import org.junit.jupiter.api.Test;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.HashMap;
@@ -94,6 +97,73 @@ public class MarketDataAggregatorTests {
         assertEquals(initialPriceTick.getPrice(), marketDataAggregator.getBest("BTCUSD").get().getPrice());
     }
 
+    @Test
+    public void rollingFilterFollowsEachSymbolsVolatility() {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock, Duration.ofSeconds(60), 0.25,
+                new RollingOutlierFilter(0.05, 4, 5, 0.25, 0.001));
+        for (int i = 0; i < 30; i++) {
+            aggregator.ingest(new PriceTick("BTCUSD", 25000 + (i % 3 - 1) * 10, fixedInstant.plusMillis(i), "TestSource"));
+            aggregator.ingest(new PriceTick("ETHUSD", 100 + (i % 3 - 1) * 8, fixedInstant.plusMillis(i), "TestSource"));
+        }
+
+        // 4% is far outside BTCUSD's recent range, while a 20% move is within ETHUSD's
+        assertEquals(IngestOutcome.OUTLIER,
+                aggregator.ingest(new PriceTick("BTCUSD", 26000, fixedInstant.plusMillis(30), "TestSource")));
+        assertEquals(IngestOutcome.REPLACED,
+                aggregator.ingest(new PriceTick("BTCUSD", 25015, fixedInstant.plusMillis(31), "TestSource")));
+        assertEquals(IngestOutcome.REPLACED,
+                aggregator.ingest(new PriceTick("ETHUSD", 120, fixedInstant.plusMillis(30), "TestSource")));
+        assertEquals(25015, aggregator.getBest("BTCUSD").get().getPrice());
+    }
+
+    @Test
+    public void rollingFilterAdoptsALastingMove() {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock, Duration.ofSeconds(60), 0.25,
+                new RollingOutlierFilter(0.05, 4, 5, 0.25, 0.001));
+        assertEquals(IngestOutcome.ACCEPTED,
+                aggregator.ingest(new PriceTick("BTCUSD", 25000, fixedInstant, "TestSource")));
+        // Still warming up, so the fixed percentage applies
+        assertEquals(IngestOutcome.OUTLIER,
+                aggregator.ingest(new PriceTick("BTCUSD", 50000, fixedInstant.plusMillis(1), "TestSource")));
+        for (int i = 2; i < 30; i++) {
+            aggregator.ingest(new PriceTick("BTCUSD", 25000 + (i % 3 - 1) * 10, fixedInstant.plusMillis(i), "TestSource"));
+        }
+
+        int rejected = 0;
+        while (aggregator.ingest(new PriceTick("BTCUSD", 26000, fixedInstant.plusMillis(30 + rejected), "TestSource"))
+                == IngestOutcome.OUTLIER) {
+            rejected++;
+            assertTrue(rejected < 30, "a lasting move should be accepted eventually");
+        }
+        assertTrue(rejected > 0);
+        assertEquals(26000, aggregator.getBest("BTCUSD").get().getPrice());
+    }
+
+    @Test
+    public void rollingFilterLearnsOnlyFromTicksThatReachTheBest() {
+        RollingOutlierFilter filter = new RollingOutlierFilter(0.05, 4, 5, 0.25, 0.001);
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock, Duration.ofSeconds(60), 0.25, filter);
+        for (int i = 0; i < 30; i++) {
+            aggregator.ingest(new PriceTick("BTCUSD", 25000 + (i % 3 - 1) * 10, fixedInstant.plusMillis(i), "SourceB"));
+        }
+        int symbolId = aggregator.getDictionary().symbols().find("BTCUSD");
+        double mean = filter.mean(symbolId);
+        double stdDev = filter.stdDev(symbolId);
+
+        assertEquals(IngestOutcome.OLDER,
+                aggregator.ingest(new PriceTick("BTCUSD", 25005, fixedInstant, "SourceB")));
+        assertEquals(IngestOutcome.TIE_KEPT,
+                aggregator.ingest(new PriceTick("BTCUSD", 25005, fixedInstant.plusMillis(29), "SourceC")));
+        assertEquals(IngestOutcome.OUTLIER,
+                aggregator.ingest(new PriceTick("BTCUSD", 26000, fixedInstant, "SourceB")));
+        assertEquals(mean, filter.mean(symbolId));
+        assertEquals(stdDev, filter.stdDev(symbolId));
+
+        assertEquals(IngestOutcome.REPLACED,
+                aggregator.ingest(new PriceTick("BTCUSD", 25005, fixedInstant.plusMillis(30), "SourceB")));
+        assertNotEquals(mean, filter.mean(symbolId));
+    }
+
     @Test
     public void newestTickIsBest() {
         PriceTick priceTick = new PriceTick("BTCUSD", 2000, fixedClock.instant(), "TestSource");
@@ -4,6 +4,9 @@ import com.yahir.marketdataaggregator.controller.MarketDataController;
 import com.yahir.marketdataaggregator.domain.AggregatedPrice;
 import com.yahir.marketdataaggregator.repository.PriceRepository;
 import com.yahir.marketdataaggregator.service.MarketDataService;
+import com.yahir.marketdataaggregator.service.PageCursor;
+import com.yahir.marketdataaggregator.service.PricePage;
+import com.yahir.marketdataaggregator.service.RecentPriceBuffer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
@@ -16,6 +19,7 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -41,6 +45,9 @@ public class MarketDataControllerTests {
     @MockitoBean
     private PriceRepository priceRepository;
 
+    @MockitoBean
+    private RecentPriceBuffer recentPriceBuffer;
+
     @MockitoBean
     private CacheManager cacheManager;
 
@@ -169,5 +176,75 @@ public class MarketDataControllerTests {
         verify(marketDataService, times(1)).getBest("BTCUSD");
     }
 
+    @Test
+    public void historyReturnsPageWithNextCursorHeader() throws Exception {
+        AggregatedPrice testBTC = new AggregatedPrice("BTCUSD", 35000, fixedClock.instant(), "TestSource");
+        PageCursor next = new PageCursor(fixedClock.instant(), 42);
+        when(marketDataService.getAllPricesForSymbol("BTCUSD", null, 1)).thenReturn(new PricePage(List.of(testBTC), next));
+
+        mockMvc.perform(get("/api/prices/history/BTCUSD").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", next.encode()))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].symbol").value("BTCUSD"));
+
+        when(marketDataService.getAllPricesForSymbol("BTCUSD", next, 1)).thenReturn(new PricePage(List.of(), null));
+
+        mockMvc.perform(get("/api/prices/history/BTCUSD").param("limit", "1").param("cursor", next.encode()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    public void historyPageSizeIsCapped() throws Exception {
+        when(marketDataService.getAllPrices(null, 5000)).thenReturn(new PricePage(List.of(), null));
+        when(marketDataService.getAllPrices(null, 500)).thenReturn(new PricePage(List.of(), null));
 
+        mockMvc.perform(get("/api/prices/history").param("limit", "1000000"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/prices/history"))
+                .andExpect(status().isOk());
+
+        verify(marketDataService).getAllPrices(null, 5000);
+        verify(marketDataService).getAllPrices(null, 500);
+    }
+
+    @Test
+    public void historyRejectsMalformedCursor() throws Exception {
+        mockMvc.perform(get("/api/prices/history").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor: not-a-cursor"));
+
+        mockMvc.perform(get("/api/prices/history").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void symbolRangeIsServedFromRecentBufferWhenItCoversTheWindow() throws Exception {
+        Instant start = fixedInstant;
+        Instant end = fixedInstant.plusSeconds(300);
+        AggregatedPrice recent = new AggregatedPrice("BTCUSD", 35000, fixedInstant.plusSeconds(10), "TestSource");
+        when(recentPriceBuffer.range("BTCUSD", start, end, 500)).thenReturn(Optional.of(List.of(recent)));
+
+        mockMvc.perform(get("/api/prices/history/BTCUSD/range")
+                        .param("inStart", start.toString())
+                        .param("inEnd", end.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(MarketDataController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].timeStamp").value(recent.getTimeStamp().toString()));
+        verifyNoInteractions(marketDataService);
+
+        // Outside the retained window the table answers as before
+        when(recentPriceBuffer.range("BTCUSD", start.minusSeconds(3600), end, 500)).thenReturn(Optional.empty());
+        when(marketDataService.getPriceHistoryForSymbolBetween("BTCUSD", start.minusSeconds(3600), end, null, 500))
+                .thenReturn(new PricePage(List.of(recent), null));
+        mockMvc.perform(get("/api/prices/history/BTCUSD/range")
+                        .param("inStart", start.minusSeconds(3600).toString())
+                        .param("inEnd", end.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+        verify(marketDataService).getPriceHistoryForSymbolBetween("BTCUSD", start.minusSeconds(3600), end, null, 500);
+    }
 }
@@ -7,6 +7,7 @@ import com.yahir.marketdataaggregator.domain.PriceTick;
 import com.yahir.marketdataaggregator.repository.PriceRepository;
 import com.yahir.marketdataaggregator.service.MarketDataService;
 import com.yahir.marketdataaggregator.sources.PriceSource;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -53,6 +54,11 @@ public class MarketDataServiceMockitoTests {
         service = new MarketDataService(priceSources, marketDataAggregator, priceRepository);
     }
 
+    @AfterEach
+    public void shutdown() {
+        service.shutdown();
+    }
+
     @Test
     public void allPriceSourcesGetChecked(){
         PriceTick pt = new PriceTick("BTCUSD", 35000, fixedClock.instant(), "normalPriceSource");
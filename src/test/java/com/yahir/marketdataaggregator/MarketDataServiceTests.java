@@ -2,18 +2,32 @@ package com.yahir.marketdataaggregator;
 
 import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
 import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
 import com.yahir.marketdataaggregator.repository.PriceRepository;
 import com.yahir.marketdataaggregator.service.MarketDataService;
+import com.yahir.marketdataaggregator.service.PriceCacheInvalidator;
+import com.yahir.marketdataaggregator.service.PriceWriteBehind;
+import com.yahir.marketdataaggregator.service.SourceHealth;
 import com.yahir.marketdataaggregator.sources.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -24,6 +38,12 @@ public class MarketDataServiceTests {
     private final ZoneId zoneId = ZoneId.of("UTC");
     private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
     private final PriceRepository mockRepository = mock(PriceRepository.class);
+    private final List<MarketDataService> services = new ArrayList<>();
+
+    @AfterEach
+    public void shutdown() {
+        services.forEach(MarketDataService::shutdown);
+    }
 
 
     @Test
@@ -36,7 +56,7 @@ public class MarketDataServiceTests {
         sources.add(new StalePriceSource(fixedClock));
 
         // Pass all 3 dependencies
-        MarketDataService service = new MarketDataService(sources, aggregator, mockRepository);
+        MarketDataService service = shutDownAfterTest(new MarketDataService(sources, aggregator, mockRepository));
 
         service.pollOnce("BTCUSD");
 
@@ -52,7 +72,7 @@ public class MarketDataServiceTests {
         sources.add(new NormalPriceSource(fixedClock));
         sources.add(new EmptyPriceSource(fixedClock));
 
-        MarketDataService service = new MarketDataService(sources, aggregator, mockRepository);
+        MarketDataService service = shutDownAfterTest(new MarketDataService(sources, aggregator, mockRepository));
 
         service.pollOnce("BTCUSD");
 
@@ -70,9 +90,238 @@ public class MarketDataServiceTests {
 
         List<PriceSource> sources = new ArrayList<>();
 
-        MarketDataService service = new MarketDataService(sources, aggregator, mockRepository);
+        MarketDataService service = shutDownAfterTest(new MarketDataService(sources, aggregator, mockRepository));
 
         assertTrue(service.getBest("BTCUSD").isPresent());
         assertEquals("TestSource", service.getBest("BTCUSD").get().getSource());
     }
+
+    @Test
+    public void pollQueriesSourcesConcurrently() {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+
+        List<PriceSource> sources = new ArrayList<>();
+        sources.add(new SlowPriceSource("SlowA", 300, fixedClock));
+        sources.add(new SlowPriceSource("SlowB", 300, fixedClock));
+        sources.add(new SlowPriceSource("SlowC", 300, fixedClock));
+
+        MarketDataService service = shutDownAfterTest(new MarketDataService(sources, aggregator, mockRepository));
+
+        long start = System.nanoTime();
+        service.pollOnce("BTCUSD");
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(elapsedMillis < 800, "poll took " + elapsedMillis + "ms, sources were not queried in parallel");
+        assertTrue(service.getBest("BTCUSD").isPresent());
+        assertEquals(0, service.getLateResultCount());
+    }
+
+    @Test
+    public void pollDropsAndCountsLateSources() {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+
+        List<PriceSource> sources = new ArrayList<>();
+        sources.add(new SlowPriceSource("TooSlow", 2_000, fixedClock));
+        sources.add(new NormalPriceSource(fixedClock));
+
+        MarketDataService service = shutDownAfterTest(
+                new MarketDataService(sources, aggregator, mockRepository, Duration.ofMillis(100)));
+
+        long start = System.nanoTime();
+        service.pollOnce("BTCUSD");
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(elapsedMillis < 1_000, "poll waited " + elapsedMillis + "ms for a late source");
+        assertEquals(1, service.getLateResultCount());
+        assertTrue(service.getBest("BTCUSD").isPresent());
+        assertEquals("NormalPriceSource", service.getBest("BTCUSD").get().getSource());
+    }
+
+    @Test
+    public void pollManyBatchesBulkSourcesAndFansOutTheRest() {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+        BulkPriceSource bulk = new BulkPriceSource(fixedClock);
+        List<PriceSource> sources = List.of(bulk, new NormalPriceSource(fixedClock));
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            symbols.add("SYM" + i);
+        }
+
+        MarketDataService service = shutDownAfterTest(new MarketDataService(sources, aggregator, mockRepository));
+        service.pollMany(symbols);
+
+        assertEquals(List.of(100, 100, 50), bulk.batchSizes);
+        for (String symbol : symbols) {
+            assertTrue(service.getBest(symbol).isPresent(), symbol + " has no best price");
+        }
+        assertEquals(250, aggregator.getAllBest().size());
+    }
+
+    @Test
+    public void concurrentPollsOfOneSymbolShareASinglePoll() throws Exception {
+        SlowPriceSource slow = new SlowPriceSource("Slow", 300, fixedClock);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MarketDataService service = coalescingService(slow, registry, Duration.ZERO);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String symbol = i % 2 == 0 ? "BTCUSD" : "btcusd";
+            callers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                service.pollOnce(symbol);
+            }));
+        }
+
+        start.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+
+        assertEquals(1, slow.calls.get());
+        assertEquals(7, registry.get("marketdata.poll.coalesced").tag("reason", "joined").counter().count());
+        assertTrue(service.getBest("BTCUSD").isPresent());
+        service.pollOnce("BTCUSD");
+        assertEquals(2, slow.calls.get());
+    }
+
+    @Test
+    public void batchPollJoinsARunningPollOfOneOfItsSymbols() throws Exception {
+        SlowPriceSource slow = new SlowPriceSource("Slow", 300, fixedClock);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MarketDataService service = coalescingService(slow, registry, Duration.ZERO);
+        Thread manual = Thread.ofPlatform().start(() -> service.pollOnce("BTCUSD"));
+        while (slow.calls.get() == 0) {
+            Thread.sleep(1);
+        }
+
+        // As a scheduled batch would, overlapping the manual poll of BTCUSD
+        service.pollMany(List.of("ETHUSD", "btcusd"));
+
+        assertEquals(2, slow.calls.get(), "BTCUSD is queried once, by the manual poll");
+        assertEquals(1, registry.get("marketdata.poll.coalesced").tag("reason", "joined").counter().count());
+        assertTrue(service.getBest("BTCUSD").isPresent(), "the batch returns only once the joined poll is done");
+        assertTrue(service.getBest("ETHUSD").isPresent());
+        manual.join();
+    }
+
+    @Test
+    public void pollsWithinMinIntervalAreAnsweredByTheLastPoll() {
+        SlowPriceSource source = new SlowPriceSource("Quick", 0, fixedClock);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MarketDataService service = coalescingService(source, registry, Duration.ofMinutes(1));
+
+        service.pollOnce("BTCUSD");
+        service.pollOnce("BTCUSD");
+        service.pollOnce("ETHUSD");
+
+        assertEquals(2, source.calls.get());
+        assertEquals(1, registry.get("marketdata.poll.coalesced").tag("reason", "throttled").counter().count());
+    }
+
+    @Test
+    public void pollFailingWithAnErrorDoesNotBlockLaterPolls() {
+        SlowPriceSource source = new SlowPriceSource("Quick", 0, fixedClock);
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+        AtomicInteger failures = new AtomicInteger(1);
+        aggregator.addListener(best -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new AssertionError("listener failed");
+            }
+        });
+        MarketDataService service = shutDownAfterTest(new MarketDataService(List.of(source), aggregator, mockRepository,
+                new PriceWriteBehind(mockRepository), new PriceCacheInvalidator(new NoOpCacheManager()),
+                SourceHealth.disabled(), new SimpleMeterRegistry(), Duration.ofSeconds(2), Duration.ZERO));
+
+        assertThrows(AssertionError.class, () -> service.pollOnce("BTCUSD"));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> service.pollOnce("BTCUSD"));
+        assertEquals(2, source.calls.get());
+    }
+
+    @Test
+    public void pollingAnUnpricedSymbolLeavesTheDictionaryAlone() {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+        MarketDataService service = shutDownAfterTest(
+                new MarketDataService(List.of(new EmptyPriceSource(fixedClock)), aggregator, mockRepository));
+
+        service.pollOnce("NOSUCHSYMBOL");
+
+        assertTrue(service.getBest("NOSUCHSYMBOL").isEmpty());
+        assertEquals(SymbolDictionary.NO_ID, aggregator.getDictionary().symbols().find("NOSUCHSYMBOL"));
+        assertEquals(0, aggregator.getDictionary().symbols().size());
+    }
+
+    private MarketDataService coalescingService(PriceSource source, SimpleMeterRegistry registry, Duration minInterval) {
+        return shutDownAfterTest(new MarketDataService(List.of(source), new MarketDataAggregator(fixedClock),
+                mockRepository, new PriceWriteBehind(mockRepository), new PriceCacheInvalidator(new NoOpCacheManager()),
+                SourceHealth.disabled(), registry, Duration.ofSeconds(2), minInterval));
+    }
+
+    private MarketDataService shutDownAfterTest(MarketDataService service) {
+        services.add(service);
+        return service;
+    }
+
+    private static class BulkPriceSource implements PriceSource {
+        private final Clock clock;
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        BulkPriceSource(Clock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public Optional<PriceTick> getLatestTick(String symbol) {
+            throw new AssertionError("bulk source asked for a single symbol");
+        }
+
+        @Override
+        public List<PriceTick> getLatestTicks(List<String> symbols) {
+            batchSizes.add(symbols.size());
+            return symbols.stream().map(symbol -> new PriceTick(symbol, 100, clock.instant(), "Bulk")).toList();
+        }
+
+        @Override
+        public int maxBatchSize() {
+            return 100;
+        }
+
+        @Override
+        public String name() {
+            return "Bulk";
+        }
+    }
+
+    private static class SlowPriceSource implements PriceSource {
+        private final String name;
+        private final long delayMillis;
+        private final Clock clock;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        SlowPriceSource(String name, long delayMillis, Clock clock) {
+            this.name = name;
+            this.delayMillis = delayMillis;
+            this.clock = clock;
+        }
+
+        @Override
+        public Optional<PriceTick> getLatestTick(String symbol) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+            return Optional.of(new PriceTick(symbol, 25000, clock.instant(), name));
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=health,metrics")
+@AutoConfigureMockMvc
+public class MetricsEndpointTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MarketDataAggregator aggregator;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    public void exposesIngestAndCacheMetrics() throws Exception {
+        aggregator.ingest(new PriceTick("METRICSTEST", 100, Instant.now(), "EndpointSource"));
+
+        mockMvc.perform(get("/actuator/metrics/marketdata.ingest.ticks")
+                        .param("tag", "source:EndpointSource")
+                        .param("tag", "outcome:accepted"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").value(1.0));
+        assertNotNull(registry.find("cache.gets").tag("cache", "bestPrice").functionCounter());
+        assertNotNull(registry.find("marketdata.cache.hit.ratio").tag("cache", "recentPrices").gauge());
+        assertNotNull(registry.find("marketdata.repository.save").tag("repository", "prices").timer());
+    }
+}
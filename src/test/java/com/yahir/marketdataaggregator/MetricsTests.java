@@ -0,0 +1,97 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.repository.PriceRepository;
+import com.yahir.marketdataaggregator.service.IngestMetrics;
+import com.yahir.marketdataaggregator.service.MarketDataService;
+import com.yahir.marketdataaggregator.service.PriceCacheInvalidator;
+import com.yahir.marketdataaggregator.service.PriceWriteBehind;
+import com.yahir.marketdataaggregator.service.SourceHealth;
+import com.yahir.marketdataaggregator.sources.EmptyPriceSource;
+import com.yahir.marketdataaggregator.sources.NormalPriceSource;
+import com.yahir.marketdataaggregator.sources.PriceSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class MetricsTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+
+    @Test
+    public void countsIngestOutcomesPerSource() {
+        IngestMetrics metrics = new IngestMetrics(aggregator, registry);
+
+        aggregator.ingest(new PriceTick("BTCUSD", 25000, fixedInstant, "SourceA"));
+        aggregator.ingest(new PriceTick("BTCUSD", 25001, fixedInstant.plusSeconds(1), "SourceA"));
+        aggregator.ingest(new PriceTick("BTCUSD", 90000, fixedInstant.plusSeconds(2), "SourceB"));
+        aggregator.ingest(new PriceTick("BTCUSD", 25000, fixedInstant.minusSeconds(120), "SourceB"));
+        aggregator.ingest(new PriceTick());
+        metrics.stop();
+        aggregator.ingest(new PriceTick("BTCUSD", 25002, fixedInstant.plusSeconds(3), "SourceA"));
+
+        assertEquals(1, ticks("accepted", "SourceA"));
+        assertEquals(1, ticks("replaced", "SourceA"));
+        assertEquals(1, ticks("outlier", "SourceB"));
+        assertEquals(1, ticks("stale", "SourceB"));
+        assertEquals(1, ticks("empty", "none"));
+        assertEquals(0, ticks("tie_kept", "SourceA"));
+    }
+
+    @Test
+    public void timesPollsAndSourceCalls() {
+        PriceSource slow = new PriceSource() {
+            @Override
+            public Optional<PriceTick> getLatestTick(String symbol) {
+                try {
+                    Thread.sleep(1_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Optional.empty();
+            }
+
+            @Override
+            public String name() {
+                return "Slow";
+            }
+        };
+        MarketDataService service = new MarketDataService(
+                List.of(new NormalPriceSource(fixedClock), new EmptyPriceSource(fixedClock), slow), aggregator,
+                mock(PriceRepository.class), new PriceWriteBehind(mock(PriceRepository.class)),
+                new PriceCacheInvalidator(new NoOpCacheManager()), SourceHealth.disabled(),
+                registry, Duration.ofMillis(100), Duration.ZERO);
+
+        service.pollOnce("BTCUSD");
+        service.pollOnce("ETHUSD");
+
+        assertEquals(2, registry.get("marketdata.poll").timer().count());
+        assertEquals(2, registry.get("marketdata.source.latency").tag("source", "NormalPriceSource").timer().count());
+        assertEquals(2, registry.get("marketdata.source.results").tags("source", "NormalPriceSource", "result", "tick")
+                .counter().count());
+        assertEquals(2, registry.get("marketdata.source.results").tags("source", "EmptyPriceSource", "result", "empty")
+                .counter().count());
+        assertEquals(2, registry.get("marketdata.source.results").tags("source", "Slow", "result", "timeout").counter().count());
+        service.shutdown();
+    }
+
+    private double ticks(String outcome, String source) {
+        return registry.get("marketdata.ingest.ticks").tags("outcome", outcome, "source", source).functionCounter().count();
+    }
+}
@@ -0,0 +1,54 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.controller.PollSchedulerController;
+import com.yahir.marketdataaggregator.service.PollScheduler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PollSchedulerController.class)
+@TestPropertySource(properties = "poller.enabled=true")
+public class PollSchedulerControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PollScheduler pollScheduler;
+
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    @Test
+    public void schedulesWithAParsedCadence() throws Exception {
+        mockMvc.perform(put("/api/scheduler/symbols/BTCUSD").param("cadence", "250ms"))
+                .andExpect(status().isNoContent());
+
+        verify(pollScheduler).schedule("BTCUSD", Duration.ofMillis(250));
+    }
+
+    @Test
+    public void rejectsMalformedAndNonPositiveCadences() throws Exception {
+        mockMvc.perform(put("/api/scheduler/symbols/BTCUSD").param("cadence", "often"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cadence: often"));
+
+        mockMvc.perform(put("/api/scheduler/symbols/BTCUSD").param("cadence", "0s"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cadence must be positive"));
+
+        verify(pollScheduler, never()).schedule(anyString(), any(Duration.class));
+    }
+}
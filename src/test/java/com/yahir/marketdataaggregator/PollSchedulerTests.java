@@ -0,0 +1,99 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.service.MarketDataService;
+import com.yahir.marketdataaggregator.service.PollScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+public class PollSchedulerTests {
+
+    private final MarketDataService service = mock(MarketDataService.class);
+    private PollScheduler scheduler;
+
+    @AfterEach
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void scheduledSymbolsArePolledRepeatedly() {
+        scheduler = new PollScheduler(service, Duration.ofMillis(20), Duration.ZERO, Duration.ofMillis(5), 4, 16);
+        scheduler.schedule("btcusd");
+        scheduler.schedule("ETHUSD", Duration.ofMillis(30));
+        scheduler.start();
+
+        verify(service, timeout(2_000).atLeast(3)).pollOnce("BTCUSD");
+        verify(service, timeout(2_000).atLeast(3)).pollOnce("ETHUSD");
+        assertEquals(2, scheduler.getStats().symbols());
+        assertTrue(scheduler.getStats().completed() >= 6);
+    }
+
+    @Test
+    public void unscheduledSymbolsStopBeingPolled() throws Exception {
+        scheduler = new PollScheduler(service, Duration.ofMillis(20), Duration.ZERO, Duration.ofMillis(5), 4, 16);
+        scheduler.schedule("BTCUSD");
+        scheduler.start();
+        verify(service, timeout(2_000).atLeast(1)).pollOnce("BTCUSD");
+
+        assertTrue(scheduler.unschedule("BTCUSD"));
+        assertFalse(scheduler.unschedule("BTCUSD"));
+        TimeUnit.MILLISECONDS.sleep(100);
+        clearInvocations(service);
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        verify(service, never()).pollOnce(anyString());
+        assertTrue(scheduler.getSchedules().isEmpty());
+    }
+
+    @Test
+    public void symbolsDueTogetherArePolledInBatches() {
+        // Dispatching less often than the cadence means every symbol is due at each dispatch
+        scheduler = new PollScheduler(service, Duration.ofMillis(10), Duration.ZERO, Duration.ofMillis(50), 4, 16, 4);
+        for (int i = 0; i < 10; i++) {
+            scheduler.schedule("SYM" + i);
+        }
+        scheduler.start();
+
+        verify(service, timeout(2_000).atLeast(2)).pollMany(argThat(batch -> batch.size() == 4));
+        verify(service, timeout(2_000).atLeastOnce()).pollMany(argThat(batch -> batch.size() == 2));
+        assertTrue(scheduler.getStats().completed() >= 10);
+    }
+
+    @Test
+    public void inFlightCapSkipsPollsAndReportsLag() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(service).pollOnce(anyString());
+
+        scheduler = new PollScheduler(service, Duration.ofMillis(10), Duration.ZERO, Duration.ofMillis(5), 4, 2);
+        for (int i = 0; i < 10; i++) {
+            scheduler.schedule("SYM" + i);
+        }
+        scheduler.start();
+
+        TimeUnit.MILLISECONDS.sleep(300);
+        PollScheduler.SchedulerStats blocked = scheduler.getStats();
+        assertEquals(2, blocked.inFlight());
+        assertTrue(blocked.skipped() > 0);
+
+        release.countDown();
+        verify(service, timeout(2_000).atLeast(12)).pollOnce(anyString());
+        // Polls start up to one 5ms dispatch interval after they fall due; those missed while blocked are skipped
+        PollScheduler.SchedulerStats resumed = scheduler.getStats();
+        assertTrue(resumed.maxLagMillis() > 0, "max lag " + resumed.maxLagMillis() + "ms");
+        assertTrue(resumed.avgLagMillis() > 0, "avg lag " + resumed.avgLagMillis() + "ms");
+    }
+}
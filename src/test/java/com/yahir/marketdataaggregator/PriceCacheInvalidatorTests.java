@@ -0,0 +1,111 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.config.CacheConfig;
+import com.yahir.marketdataaggregator.config.PriceCacheProperties;
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.service.PriceCacheInvalidator;
+import com.yahir.marketdataaggregator.service.PriceCacheKeys;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceCacheInvalidatorTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    private final CacheManager cacheManager = new CacheConfig().cacheManager(new PriceCacheProperties());
+    private final PriceCacheInvalidator invalidator = new PriceCacheInvalidator(cacheManager);
+
+    @Test
+    public void bestChangeEvictsOnlyThatSymbol() {
+        Cache bestPrice = cacheManager.getCache("bestPrice");
+        bestPrice.put(PriceCacheKeys.symbol("btcusd"), Optional.empty());
+        bestPrice.put(PriceCacheKeys.symbol("ETHUSD"), Optional.empty());
+        cacheManager.getCache("allBestPrices").put("all", List.of());
+
+        invalidator.bestChanged("BTCUSD");
+
+        assertNull(bestPrice.get("BTCUSD"));
+        assertNotNull(bestPrice.get("ETHUSD"));
+        assertNull(cacheManager.getCache("allBestPrices").get("all"));
+    }
+
+    @Test
+    public void historyWriteEvictsOnlyOverlappingRanges() {
+        Instant now = fixedClock.instant();
+        Cache symbolRanges = cacheManager.getCache("priceHistoryForSymbolBetween");
+        Cache allRanges = cacheManager.getCache("allPricesBetween");
+        Cache symbolHistory = cacheManager.getCache("allPricesForSymbol");
+
+        PriceCacheKeys.HistoryKey past = PriceCacheKeys.history("BTCUSD", now.minusSeconds(3600), now.minusSeconds(60));
+        PriceCacheKeys.HistoryKey current = PriceCacheKeys.history("BTCUSD", now.minusSeconds(3600), now.plusSeconds(3600));
+        PriceCacheKeys.HistoryKey otherSymbol = PriceCacheKeys.history("ETHUSD", now.minusSeconds(3600), now.plusSeconds(3600));
+        PriceCacheKeys.HistoryKey allPast = PriceCacheKeys.history(null, now.minusSeconds(3600), now.minusSeconds(60));
+        PriceCacheKeys.HistoryKey allCurrent = PriceCacheKeys.history(null, now.minusSeconds(3600), now.plusSeconds(3600));
+
+        symbolRanges.put(past, List.of());
+        symbolRanges.put(current, List.of());
+        symbolRanges.put(otherSymbol, List.of());
+        allRanges.put(allPast, List.of());
+        allRanges.put(allCurrent, List.of());
+        symbolHistory.put(PriceCacheKeys.history("BTCUSD", null, null), List.of());
+        symbolHistory.put(PriceCacheKeys.history("ETHUSD", null, null), List.of());
+
+        invalidator.historyWritten(List.of(new AggregatedPrice("BTCUSD", 25000, now, "TestSource")));
+
+        assertNotNull(symbolRanges.get(past));
+        assertNull(symbolRanges.get(current));
+        assertNotNull(symbolRanges.get(otherSymbol));
+        assertNotNull(allRanges.get(allPast));
+        assertNull(allRanges.get(allCurrent));
+        assertNull(symbolHistory.get(PriceCacheKeys.history("BTCUSD", null, null)));
+        assertNotNull(symbolHistory.get(PriceCacheKeys.history("ETHUSD", null, null)));
+    }
+
+    @Test
+    public void cachesCountHitsAndMisses() {
+        Cache cache = cacheManager.getCache("allPrices");
+        Object key = PriceCacheKeys.history(null, null, null);
+
+        cache.get(key);
+        cache.put(key, List.of());
+        cache.get(key);
+        cache.get(key);
+
+        com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine = (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+        assertEquals(2, caffeine.stats().hitCount());
+        assertEquals(1, caffeine.stats().missCount());
+    }
+
+    @Test
+    public void historyCachesAreBoundedByResultSizeAndConfigurable() {
+        PriceCacheProperties properties = new PriceCacheProperties();
+        properties.getSpecs().put("allpricesbetween", new PriceCacheProperties.Spec(100L, Duration.ofMinutes(1)));
+        CacheManager bounded = new CacheConfig().cacheManager(properties);
+        Cache cache = bounded.getCache("allPricesBetween");
+        Instant now = fixedClock.instant();
+
+        // Each entry holds 30 prices (weight 31), so only three fit under a weight limit of 100
+        for (int i = 0; i < 10; i++) {
+            cache.put(PriceCacheKeys.history(null, now.minusSeconds(i + 1), now), Collections.nCopies(30, "price"));
+        }
+        com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine = (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+        caffeine.cleanUp();
+
+        assertTrue(caffeine.estimatedSize() <= 3);
+        assertTrue(caffeine.stats().evictionCount() >= 7);
+        assertNull(bounded.getCache("unknownCache"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.controller.PriceExportController;
+import com.yahir.marketdataaggregator.service.PriceExportService;
+import com.yahir.marketdataaggregator.service.PriceExportService.Format;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PriceExportController.class)
+public class PriceExportControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PriceExportService priceExportService;
+
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    @Test
+    public void streamsCsvAsAttachment() throws Exception {
+        when(priceExportService.export(eq("btcusd"), any(Instant.class), any(Instant.class), eq(Format.CSV), any(OutputStream.class)))
+                .thenAnswer(invocation -> {
+                    OutputStream out = invocation.getArgument(4);
+                    out.write("symbol,price,timeStamp,source\n".getBytes(StandardCharsets.UTF_8));
+                    return 0L;
+                });
+
+        MvcResult result = mockMvc.perform(get("/api/prices/export/btcusd")
+                        .param("format", "csv")
+                        .param("inStart", "2026-01-01T00:00:00Z")
+                        .param("inEnd", "2026-01-02T00:00:00Z"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"BTCUSD.csv\""))
+                .andExpect(content().string("symbol,price,timeStamp,source\n"));
+    }
+
+    @Test
+    public void rejectsUnknownFormatAndHalfOpenRange() throws Exception {
+        mockMvc.perform(get("/api/prices/export/BTCUSD").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unsupported export format: xml"));
+
+        mockMvc.perform(get("/api/prices/export/BTCUSD").param("inStart", "2026-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(priceExportService);
+    }
+}
@@ -0,0 +1,93 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.repository.PriceRepository;
+import com.yahir.marketdataaggregator.service.PriceExportService;
+import com.yahir.marketdataaggregator.service.PriceExportService.Format;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(PriceExportService.class)
+public class PriceExportServiceTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private PriceExportService priceExportService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void seed() {
+        List<AggregatedPrice> prices = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            prices.add(new AggregatedPrice("BTCUSD", 25000.5 + i, fixedClock.instant().plusSeconds(i), "TestSource"));
+        }
+        prices.add(new AggregatedPrice("ETHUSD", 1800, fixedClock.instant(), "Source, \"quoted\""));
+        priceRepository.saveAll(prices);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void exportsNdjsonInTimeOrderWithoutRetainingEntities() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = priceExportService.export("btcusd", null, null, Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1200, rows);
+        assertEquals(1200, lines.length);
+        assertEquals("{\"symbol\":\"BTCUSD\",\"price\":25000.50,\"timeStamp\":\"2026-01-01T00:00:00Z\",\"source\":\"TestSource\"}", lines[0]);
+        assertTrue(lines[1199].contains("\"timeStamp\":\"2026-01-01T00:19:59Z\""));
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    public void exportsCsvForRangeAndQuotesFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Instant start = fixedClock.instant().plusSeconds(10);
+        Instant end = fixedClock.instant().plusSeconds(12);
+
+        long rows = priceExportService.export("BTCUSD", start, end, Format.CSV, out);
+
+        assertEquals(3, rows);
+        assertEquals("""
+                symbol,price,timeStamp,source
+                BTCUSD,25010.50,2026-01-01T00:00:10Z,TestSource
+                BTCUSD,25011.50,2026-01-01T00:00:11Z,TestSource
+                BTCUSD,25012.50,2026-01-01T00:00:12Z,TestSource
+                """, out.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream quoted = new ByteArrayOutputStream();
+        priceExportService.export("ETHUSD", null, null, Format.CSV, quoted);
+        assertTrue(quoted.toString(StandardCharsets.UTF_8).endsWith("ETHUSD,1800.00,2026-01-01T00:00:00Z,\"Source, \"\"quoted\"\"\"\n"));
+    }
+}
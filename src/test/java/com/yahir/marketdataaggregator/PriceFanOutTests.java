@@ -0,0 +1,314 @@
+package com.yahir.marketdataaggregator;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.yahir.marketdataaggregator.controller.PriceWebSocketHandler;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.service.PriceFanOut;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceFanOutTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    private static final int CLIENTS = 10_000;
+    private static final int SYMBOLS = 5_000;
+    private static final int SYMBOLS_PER_CLIENT = 20;
+    private static final int ROUNDS = 5;
+
+    // Per-tick logging would dominate the load test, so the aggregator is quietened for this class only
+    private static final Logger aggregatorLog = (Logger) LoggerFactory.getLogger(MarketDataAggregator.class);
+    private static Level previousLevel;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+    private final PriceFanOut fanOut = new PriceFanOut(aggregator, jsonMapper, 1000, Duration.ofSeconds(5), DataSize.ofKilobytes(512));
+
+    @BeforeAll
+    static void quietAggregatorLogging() {
+        previousLevel = aggregatorLog.getLevel();
+        aggregatorLog.setLevel(Level.ERROR);
+    }
+
+    @AfterAll
+    static void restoreAggregatorLogging() {
+        aggregatorLog.setLevel(previousLevel);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    public void subscribersShareOneSerializedMessagePerUpdate() throws Exception {
+        aggregator.ingest(new PriceTick("BTCUSD", 25000, fixedInstant, "TestSource"));
+        StubSession first = new StubSession("first");
+        StubSession second = new StubSession("second");
+        PriceFanOut.Client firstClient = fanOut.connect(first);
+        PriceFanOut.Client secondClient = fanOut.connect(second);
+
+        assertEquals(List.of("BTCUSD", "ETHUSD"), fanOut.subscribe(firstClient, List.of("btcusd", "ETHUSD")));
+        fanOut.subscribe(secondClient, List.of("BTCUSD"));
+        awaitCondition(() -> first.received.size() == 1 && second.received.size() == 1);
+
+        aggregator.ingest(new PriceTick("BTCUSD", 25100, fixedInstant.plusSeconds(1), "TestSource"));
+        awaitCondition(() -> first.received.size() == 2 && second.received.size() == 2);
+
+        assertSame(first.received.get(1), second.received.get(1));
+        assertTrue(first.received.get(1).getPayload().contains("\"symbol\":\"BTCUSD\""));
+        assertTrue(first.received.get(1).getPayload().contains("\"price\":25100.00"));
+
+        fanOut.unsubscribe(secondClient, List.of("BTCUSD"));
+        aggregator.ingest(new PriceTick("ETHUSD", 1800, fixedInstant, "TestSource"));
+        aggregator.ingest(new PriceTick("BTCUSD", 25200, fixedInstant.plusSeconds(2), "TestSource"));
+        awaitCondition(() -> first.received.size() == 4);
+        awaitCondition(fanOut::isIdle);
+        assertEquals(2, second.received.size());
+    }
+
+    @Test
+    public void handlerRepliesToSubscribeAndRejectsUnknownActions() throws Exception {
+        PriceWebSocketHandler handler = new PriceWebSocketHandler(fanOut, jsonMapper);
+        StubSession session = new StubSession("client");
+        handler.afterConnectionEstablished(session);
+
+        handler.handleMessage(session, new TextMessage("{\"action\":\"subscribe\",\"symbols\":[\"aapl\"]}"));
+        handler.handleMessage(session, new TextMessage("{\"action\":\"explode\"}"));
+        handler.handleMessage(session, new TextMessage("not json"));
+
+        assertTrue(session.received.get(0).getPayload().contains("\"type\":\"subscribed\",\"symbols\":[\"AAPL\"]"));
+        assertTrue(session.received.get(1).getPayload().contains("Unknown action: explode"));
+        assertTrue(session.received.get(2).getPayload().contains("Malformed request"));
+
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        assertEquals(0, fanOut.getStats().clients());
+        assertEquals(0, fanOut.getStats().subscribedSymbols());
+    }
+
+    @Test
+    public void limitCountsOnlyNewSymbolsAndClosedClientsStayClosed() {
+        PriceFanOut limited = new PriceFanOut(aggregator, jsonMapper, 3, Duration.ofSeconds(5), DataSize.ofKilobytes(512));
+        try {
+            PriceFanOut.Client client = limited.connect(new StubSession("limited"));
+            limited.subscribe(client, List.of("BTCUSD", "ETHUSD"));
+
+            // BTCUSD is already subscribed, so only AAPL counts towards the limit
+            assertEquals(List.of("BTCUSD", "AAPL"), limited.subscribe(client, List.of("btcusd", "AAPL")));
+            assertThrows(IllegalArgumentException.class, () -> limited.subscribe(client, List.of("ETHUSD", "MSFT")));
+            assertEquals(Set.of("BTCUSD", "ETHUSD", "AAPL"), client.getSymbols());
+
+            limited.disconnect(client);
+            assertEquals(List.of(), limited.subscribe(client, List.of("MSFT")));
+            assertEquals(Set.of(), client.getSymbols());
+            assertEquals(0, limited.getStats().subscribedSymbols());
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    /**
+     * 10k clients, each on 20 symbols out of a 5k universe, while every symbol's best changes several times.
+     * Every client must end on the latest price of each of its symbols, and each update is serialized once.
+     */
+    @Test
+    public void fansOutToTenThousandClients() throws Exception {
+        for (int s = 0; s < SYMBOLS; s++) {
+            aggregator.ingest(new PriceTick(symbol(s), 100, fixedInstant, "TestSource"));
+        }
+        CountingSession[] sessions = new CountingSession[CLIENTS];
+        for (int c = 0; c < CLIENTS; c++) {
+            sessions[c] = new CountingSession("client-" + c);
+            fanOut.subscribe(fanOut.connect(sessions[c]), symbolsFor(c));
+        }
+        awaitCondition(fanOut::isIdle);
+        long deliveredBefore = fanOut.getStats().delivered();
+        long serializedBefore = fanOut.getStats().serialized();
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            for (int s = 0; s < SYMBOLS; s++) {
+                aggregator.ingest(new PriceTick(symbol(s), 100 + round, fixedInstant.plusMillis(round), "TestSource"));
+            }
+        }
+        awaitCondition(fanOut::isIdle);
+
+        PriceFanOut.FanOutStats stats = fanOut.getStats();
+        long delivered = stats.delivered() - deliveredBefore;
+        long serialized = stats.serialized() - serializedBefore;
+
+        assertEquals(CLIENTS, stats.clients());
+        assertEquals(0, stats.failed());
+        assertTrue(serialized <= (long) SYMBOLS * ROUNDS);
+        assertTrue(delivered > serialized, "each serialized update should be shared across subscribers");
+        String latestPrice = "\"price\":" + (100 + ROUNDS) + ".00";
+        for (CountingSession session : sessions) {
+            assertEquals(SYMBOLS_PER_CLIENT, session.lastBySymbol.size());
+            session.lastBySymbol.values().forEach(payload -> assertTrue(payload.contains(latestPrice), payload));
+        }
+    }
+
+    private List<String> symbolsFor(int client) {
+        String[] symbols = new String[SYMBOLS_PER_CLIENT];
+        for (int k = 0; k < SYMBOLS_PER_CLIENT; k++) {
+            symbols[k] = symbol((client * 7 + k * 251) % SYMBOLS);
+        }
+        return List.of(symbols);
+    }
+
+    private String symbol(int index) {
+        return "SYM" + index;
+    }
+
+    private void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 60s");
+            Thread.sleep(5);
+        }
+    }
+
+    private static class StubSession implements WebSocketSession {
+        private final String id;
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        final List<TextMessage> received = new CopyOnWriteArrayList<>();
+        private volatile boolean open = true;
+
+        StubSession(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            received.add((TextMessage) message);
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return URI.create("ws://localhost/ws/prices");
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+            open = false;
+        }
+    }
+
+    // Keeps only the last payload per symbol so 10k clients stay cheap to hold in memory
+    private static class CountingSession extends StubSession {
+        final Map<String, String> lastBySymbol = new ConcurrentHashMap<>();
+        final AtomicInteger count = new AtomicInteger();
+
+        CountingSession(String id) {
+            super(id);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            String payload = ((TextMessage) message).getPayload();
+            int start = payload.indexOf("\"symbol\":\"") + 10;
+            lastBySymbol.put(payload.substring(start, payload.indexOf('"', start)), payload);
+            count.incrementAndGet();
+        }
+    }
+}
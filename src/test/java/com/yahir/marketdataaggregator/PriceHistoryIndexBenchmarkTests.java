@@ -0,0 +1,103 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.repository.PriceRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeds a few million rows into the embedded database and logs history query latency with and without the
+ * AggregatedPrice indexes. Too slow for the regular build, so it only runs with
+ * {@code mvn test -Dtest=PriceHistoryIndexBenchmarkTests -Dbenchmark.history=true} (row count via
+ * {@code -Dbenchmark.rows}).
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "benchmark.history", matches = "true")
+public class PriceHistoryIndexBenchmarkTests {
+
+    private static final Instant BASE = Instant.parse("2026-01-01T00:00:00.00Z");
+    private static final int SYMBOLS = 200;
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryIndexBenchmarkTests.class);
+
+    private final int rows = Integer.getInteger("benchmark.rows", 2_000_000);
+    // One row per symbol per second, so each symbol covers rows / SYMBOLS seconds
+    private final int seconds = rows / SYMBOLS;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    @Test
+    public void reportRangeQueryLatencyWithAndWithoutIndexes() {
+        long seedStart = System.nanoTime();
+        jdbcTemplate.update("insert into aggregated_price (id, symbol, price, time_stamp, source) " +
+                "select x, 'SYM' || mod(x, " + SYMBOLS + "), 100 + mod(x, 7), " +
+                "dateadd('SECOND', x / " + SYMBOLS + ", timestamp '2026-01-01 00:00:00'), 'Benchmark' " +
+                "from system_range(0, " + (rows - 1) + ")");
+        log.info("seeded rows={} in {} ms", rows, (System.nanoTime() - seedStart) / 1_000_000);
+
+        Random random = new Random(42);
+        report("indexed", 200, random);
+
+        jdbcTemplate.execute("drop index idx_aggregated_price_symbol_ts");
+        jdbcTemplate.execute("drop index idx_aggregated_price_ts");
+        report("no index", 10, random);
+    }
+
+    private void report(String label, int iterations, Random random) {
+        time(label, "symbol range (5 min)", iterations, i -> {
+            String symbol = "SYM" + random.nextInt(SYMBOLS);
+            Instant start = BASE.plusSeconds(random.nextInt(seconds - 300));
+            return priceRepository.findBySymbolAndTimeStampBetween(symbol, start, start.plusSeconds(299));
+        }, 300);
+        time(label, "symbol keyset page (500)", iterations, i -> {
+            String symbol = "SYM" + random.nextInt(SYMBOLS);
+            Instant after = BASE.plusSeconds(random.nextInt(seconds - 1000));
+            return priceRepository.findSymbolPageAfter(symbol, after, Long.MAX_VALUE, Limit.of(500));
+        }, 500);
+        time(label, "all symbols range page (500)", iterations, i -> {
+            Instant start = BASE.plusSeconds(random.nextInt(seconds - 60));
+            return priceRepository.findRangePageAfter(start, start.plusSeconds(59), start, Long.MIN_VALUE, Limit.of(500));
+        }, 500);
+    }
+
+    private void time(String label, String query, int iterations, IntFunction<List<AggregatedPrice>> run, int expectedRows) {
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long begin = System.nanoTime();
+            List<AggregatedPrice> result = run.apply(i);
+            nanos[i] = System.nanoTime() - begin;
+            assertEquals(expectedRows, result.size());
+            entityManager.clear();
+        }
+        Arrays.sort(nanos);
+        double avgMs = Arrays.stream(nanos).average().orElse(0) / 1_000_000.0;
+        double p95Ms = nanos[(int) Math.min(nanos.length - 1, Math.ceil(nanos.length * 0.95) - 1)] / 1_000_000.0;
+        log.info(String.format("%-9s %-30s iterations=%d avg=%.2fms p95=%.2fms", label, query, iterations, avgMs, p95Ms));
+    }
+}
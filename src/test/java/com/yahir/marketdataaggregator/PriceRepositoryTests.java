@@ -0,0 +1,105 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.repository.PriceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class PriceRepositoryTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void seed() {
+        List<AggregatedPrice> prices = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // Pairs of rows share a timestamp so paging has to break ties on id
+            Instant ts = fixedClock.instant().plusSeconds(i / 2);
+            prices.add(new AggregatedPrice(i % 2 == 0 ? "BTCUSD" : "ETHUSD", 25000 + i, ts, "TestSource"));
+        }
+        priceRepository.saveAll(prices);
+    }
+
+    @Test
+    public void keysetPagesVisitEveryRowOnceInOrder() {
+        List<AggregatedPrice> seen = new ArrayList<>();
+        List<AggregatedPrice> page = priceRepository.findAllByOrderByTimeStampAscIdAsc(Limit.of(10));
+        while (!page.isEmpty()) {
+            seen.addAll(page);
+            AggregatedPrice last = page.getLast();
+            page = priceRepository.findPageAfter(last.getTimeStamp(), last.getId(), Limit.of(10));
+        }
+
+        assertEquals(25, seen.size());
+        assertEquals(25, seen.stream().map(AggregatedPrice::getId).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            AggregatedPrice previous = seen.get(i - 1);
+            AggregatedPrice current = seen.get(i);
+            assertTrue(previous.getTimeStamp().isBefore(current.getTimeStamp())
+                    || (previous.getTimeStamp().equals(current.getTimeStamp()) && previous.getId() < current.getId()));
+        }
+    }
+
+    @Test
+    public void symbolAndRangePagesStayWithinTheirFilters() {
+        List<AggregatedPrice> first = priceRepository.findSymbolPage("BTCUSD", Limit.of(5));
+        AggregatedPrice last = first.getLast();
+        List<AggregatedPrice> second = priceRepository.findSymbolPageAfter("BTCUSD", last.getTimeStamp(), last.getId(), Limit.of(50));
+
+        assertEquals(5, first.size());
+        assertEquals(8, second.size());
+        assertTrue(second.stream().allMatch(price -> price.getSymbol().equals("BTCUSD")));
+
+        Instant start = fixedClock.instant().plusSeconds(2);
+        Instant end = fixedClock.instant().plusSeconds(4);
+        List<AggregatedPrice> range = priceRepository.findSymbolRangePageAfter("ETHUSD", start, end, start, Long.MIN_VALUE, Limit.of(50));
+        assertEquals(3, range.size());
+        assertTrue(range.stream().noneMatch(price -> price.getTimeStamp().isBefore(start) || price.getTimeStamp().isAfter(end)));
+        assertEquals(6, priceRepository.findRangePageAfter(start, end, start, Long.MIN_VALUE, Limit.of(50)).size());
+    }
+
+    @Test
+    public void historyQueriesReadIndexesInOrder() {
+        String symbolPlan = explain("select * from aggregated_price where symbol = 'BTCUSD' " +
+                "and time_stamp >= timestamp '2026-01-01 00:00:02' and (time_stamp > timestamp '2026-01-01 00:00:02' or id > 5) " +
+                "order by symbol, time_stamp, id limit 10");
+        String rangePlan = explain("select * from aggregated_price " +
+                "where time_stamp between timestamp '2026-01-01 00:00:00' and timestamp '2026-01-01 00:00:05' " +
+                "order by time_stamp, id limit 10");
+
+        assertTrue(symbolPlan.contains("IDX_AGGREGATED_PRICE_SYMBOL_TS"), symbolPlan);
+        assertTrue(symbolPlan.contains("index sorted"), symbolPlan);
+        assertTrue(rangePlan.contains("IDX_AGGREGATED_PRICE_TS"), rangePlan);
+        assertTrue(rangePlan.contains("index sorted"), rangePlan);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+}
@@ -0,0 +1,142 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.repository.PriceRepository;
+import com.yahir.marketdataaggregator.service.PriceCacheInvalidator;
+import com.yahir.marketdataaggregator.service.PriceWriteBehind;
+import com.yahir.marketdataaggregator.service.RecentPriceBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class PriceWriteBehindTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+    private final PriceRepository repository = mock(PriceRepository.class);
+
+    @Test
+    public void flushesInBatchesOfConfiguredSize() {
+        List<Integer> batchSizes = recordBatchSizes();
+        PriceWriteBehind writeBehind = new PriceWriteBehind(repository, 1_000, 10, Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+        for (int i = 0; i < 30; i++) {
+            writeBehind.enqueue(price(i));
+        }
+        writeBehind.start();
+        writeBehind.stop();
+
+        assertEquals(List.of(10, 10, 10), batchSizes);
+        assertEquals(30, writeBehind.getStats().written());
+        assertEquals(3, writeBehind.getStats().batches());
+    }
+
+    @Test
+    public void flushesPartialBatchAfterInterval() {
+        List<Integer> batchSizes = recordBatchSizes();
+        PriceWriteBehind writeBehind = new PriceWriteBehind(repository, 1_000, 500, Duration.ofMillis(50), Duration.ofSeconds(1));
+        writeBehind.start();
+
+        writeBehind.enqueue(price(1));
+        writeBehind.enqueue(price(2));
+
+        verify(repository, timeout(2_000)).saveAll(anyList());
+        assertEquals(List.of(2), batchSizes);
+        writeBehind.stop();
+    }
+
+    @Test
+    public void stopFlushesEverythingStillBuffered() {
+        List<Integer> batchSizes = recordBatchSizes();
+        PriceWriteBehind writeBehind = new PriceWriteBehind(repository, 1_000, 500, Duration.ofSeconds(30), Duration.ofSeconds(1));
+        writeBehind.start();
+
+        for (int i = 0; i < 7; i++) {
+            writeBehind.enqueue(price(i));
+        }
+        writeBehind.stop();
+
+        assertEquals(7, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(0, writeBehind.getStats().buffered());
+    }
+
+    @Test
+    public void fullBufferAppliesBackpressureThenDrops() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return invocation.getArgument(0);
+        });
+        PriceWriteBehind writeBehind = new PriceWriteBehind(repository, 2, 1, Duration.ofMillis(10), Duration.ofMillis(100));
+        writeBehind.start();
+
+        // One record is held by the blocked flush, two fill the buffer
+        assertTrue(writeBehind.enqueue(price(1)));
+        verify(repository, timeout(2_000)).saveAll(anyList());
+        assertTrue(writeBehind.enqueue(price(2)));
+        assertTrue(writeBehind.enqueue(price(3)));
+
+        long start = System.nanoTime();
+        assertFalse(writeBehind.enqueue(price(4)));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 90);
+        assertEquals(1, writeBehind.getStats().dropped());
+
+        release.countDown();
+        writeBehind.stop();
+        assertEquals(3, writeBehind.getStats().written());
+    }
+
+    @Test
+    public void recentPricesGetOnlyRowsThatWereWritten() {
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<AggregatedPrice> batch = invocation.getArgument(0);
+            if (batch.getFirst().getPrice() == 25002) {
+                throw new IllegalStateException("database down");
+            }
+            return batch;
+        });
+        RecentPriceBuffer recentPrices = new RecentPriceBuffer(fixedClock, 8);
+        PriceWriteBehind writeBehind = new PriceWriteBehind(repository, new PriceCacheInvalidator(new NoOpCacheManager()),
+                recentPrices, new SimpleMeterRegistry(), 1_000, 1, Duration.ofMillis(10), Duration.ofSeconds(1));
+
+        for (int i = 1; i <= 3; i++) {
+            writeBehind.enqueue(price(i));
+        }
+        // Queued but not yet written, so the range is answered without it
+        assertEquals(Optional.of(List.of()), recentPrices.range("BTCUSD", fixedInstant, fixedInstant.plusSeconds(1), 10));
+        writeBehind.start();
+        writeBehind.stop();
+
+        assertEquals(1, writeBehind.getStats().failedBatches());
+        List<AggregatedPrice> rows = recentPrices.range("BTCUSD", fixedInstant, fixedInstant.plusSeconds(1), 10).orElseThrow();
+        assertEquals(List.of(25001.0, 25003.0), rows.stream().map(AggregatedPrice::getPrice).toList());
+    }
+
+    private List<Integer> recordBatchSizes() {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            return batch;
+        });
+        return batchSizes;
+    }
+
+    private AggregatedPrice price(int i) {
+        return new AggregatedPrice("BTCUSD", 25000 + i, fixedClock.instant().plusMillis(i), "TestSource");
+    }
+}
@@ -0,0 +1,88 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.service.RecentPriceBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecentPriceBufferTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    @Test
+    public void answersRangesInsideTheRetainedWindowOnly() {
+        RecentPriceBuffer buffer = new RecentPriceBuffer(fixedClock, 4);
+        for (int i = 0; i < 6; i++) {
+            buffer.record(new AggregatedPrice("BTCUSD", 100 + i, fixedInstant.plusSeconds(i), i % 2 == 0 ? "A" : "B"));
+        }
+
+        // Rows at +0s and +1s were evicted, so only ranges starting after +1s are complete
+        List<AggregatedPrice> rows = buffer.range("btcusd", fixedInstant.plusMillis(1500), fixedInstant.plusSeconds(4), 10).orElseThrow();
+        assertEquals(List.of(102.0, 103.0, 104.0), rows.stream().map(AggregatedPrice::getPrice).toList());
+        assertEquals(List.of("A", "B", "A"), rows.stream().map(AggregatedPrice::getSource).toList());
+        assertEquals(fixedInstant.plusSeconds(2), rows.getFirst().getTimeStamp());
+
+        assertEquals(Optional.empty(), buffer.range("BTCUSD", fixedInstant.plusSeconds(1), fixedInstant.plusSeconds(4), 10));
+        // Needs a second page, which only the table can cursor through
+        assertEquals(Optional.empty(), buffer.range("BTCUSD", fixedInstant.plusSeconds(2), fixedInstant.plusSeconds(5), 3));
+        // Before startup the table may hold rows this instance never saw
+        assertEquals(Optional.empty(), buffer.range("ETHUSD", fixedInstant.minusSeconds(1), fixedInstant, 10));
+        assertEquals(Optional.of(List.of()), buffer.range("ETHUSD", fixedInstant, fixedInstant.plusSeconds(60), 10));
+    }
+
+    @Test
+    public void keepsRowsInTimeOrderWhenPollsFinishOutOfOrder() {
+        RecentPriceBuffer buffer = new RecentPriceBuffer(fixedClock, 3);
+        buffer.record(new AggregatedPrice("BTCUSD", 1, fixedInstant.plusSeconds(1), "A"));
+        buffer.record(new AggregatedPrice("BTCUSD", 3, fixedInstant.plusSeconds(3), "A"));
+        buffer.record(new AggregatedPrice("BTCUSD", 2, fixedInstant.plusSeconds(2), "A"));
+        buffer.record(new AggregatedPrice("BTCUSD", 4, fixedInstant.plusSeconds(4), "A"));
+
+        List<AggregatedPrice> rows = buffer.range("BTCUSD", fixedInstant.plusMillis(1001), fixedInstant.plusSeconds(10), 10).orElseThrow();
+        assertEquals(List.of(2.0, 3.0, 4.0), rows.stream().map(AggregatedPrice::getPrice).toList());
+    }
+
+    /**
+     * Fills 50k symbols and measures the retained heap against the fixed per-symbol size the buffer reports.
+     */
+    @Test
+    public void footprintForFiftyThousandSymbolsIsFixedPerSymbol() {
+        int symbols = 50_000;
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long before = usedHeapAfterGc(memory);
+
+        RecentPriceBuffer buffer = new RecentPriceBuffer(fixedClock, 256);
+        for (int s = 0; s < symbols; s++) {
+            buffer.record(new AggregatedPrice("SYM" + s, 100, fixedInstant, "TestSource"));
+        }
+        long after = usedHeapAfterGc(memory);
+
+        long expectedPerSymbol = buffer.bytesPerSymbol();
+        double measuredPerSymbol = (after - before) / (double) symbols;
+
+        assertEquals(symbols, buffer.getStats().symbols());
+        // The rings dominate; the rest is the map entry and symbol string of each symbol
+        String measured = "measured " + measuredPerSymbol + " bytes per symbol, expected " + expectedPerSymbol;
+        assertTrue(measuredPerSymbol > expectedPerSymbol * 0.9, measured);
+        assertTrue(measuredPerSymbol < expectedPerSymbol + 512, measured);
+        assertTrue(buffer.range("SYM42", fixedInstant, fixedInstant, 10).isPresent());
+    }
+
+    private long usedHeapAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
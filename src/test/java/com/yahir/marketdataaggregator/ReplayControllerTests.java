@@ -0,0 +1,70 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.controller.ReplayController;
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.service.ReplayEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ReplayController.class)
+public class ReplayControllerTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ReplayEngine replayEngine;
+
+    @MockitoBean
+    private MarketDataAggregator marketDataAggregator;
+
+    @MockitoBean
+    private CacheManager cacheManager;
+
+    @Test
+    public void replaysWithLiveThresholdsUnlessOverridden() throws Exception {
+        when(marketDataAggregator.getStaleThreshold()).thenReturn(Duration.ofSeconds(60));
+        when(marketDataAggregator.getOutlierPct()).thenReturn(0.25);
+        ReplayEngine.ReplayOptions options = new ReplayEngine.ReplayOptions(Duration.ofSeconds(90), 0.25, 0);
+        when(replayEngine.replay("ticks.csv", ReplayEngine.Format.CSV, options)).thenReturn(new ReplayEngine.ReplayReport(
+                2, 0, 5, 400, Map.of(IngestOutcome.ACCEPTED, 2L),
+                Map.of("BTCUSD", new AggregatedPrice("BTCUSD", 25000, fixedInstant, "SourceA"))));
+
+        mockMvc.perform(post("/api/replay")
+                        .param("file", "ticks.csv")
+                        .param("staleThreshold", "90s"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ticks").value(2))
+                .andExpect(jsonPath("$.outcomes.ACCEPTED").value(2))
+                .andExpect(jsonPath("$.bestPrices", hasSize(1)))
+                .andExpect(jsonPath("$.bestPrices[0].price").value(25000.00));
+    }
+
+    @Test
+    public void rejectsUnknownFormatAndBadThreshold() throws Exception {
+        mockMvc.perform(post("/api/replay").param("file", "ticks.csv").param("format", "parquet"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unsupported format: parquet (use csv or journal)"));
+        mockMvc.perform(post("/api/replay").param("file", "ticks.csv").param("staleThreshold", "soon"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid staleThreshold: soon"));
+        verifyNoInteractions(replayEngine);
+    }
+}
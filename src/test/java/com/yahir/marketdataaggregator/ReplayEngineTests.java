@@ -0,0 +1,171 @@
+package com.yahir.marketdataaggregator;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.exception.InvalidReplayRequestException;
+import com.yahir.marketdataaggregator.service.ReplayEngine;
+import com.yahir.marketdataaggregator.service.TickJournal;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplayEngineTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    // Per-tick logging would dominate the replay, so the aggregator is quietened for this class only
+    private static final Logger aggregatorLog = (Logger) LoggerFactory.getLogger(MarketDataAggregator.class);
+    private static Level previousLevel;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeAll
+    static void quietAggregatorLogging() {
+        previousLevel = aggregatorLog.getLevel();
+        aggregatorLog.setLevel(Level.ERROR);
+    }
+
+    @AfterAll
+    static void restoreAggregatorLogging() {
+        aggregatorLog.setLevel(previousLevel);
+    }
+
+    @Test
+    public void outlierThresholdChangesTheReplayedBest() throws IOException {
+        Files.writeString(directory.resolve("ticks.csv"), """
+                symbol,price,timeStamp,source
+                BTCUSD,25000,2026-01-01T00:00:00Z,SourceA
+                BTCUSD,30000,2026-01-01T00:00:01Z,\"Source \"\"B\"\"\"
+                ETHUSD,1800,2026-01-01T00:00:01Z,SourceA
+                not,a,tick
+                """);
+        ReplayEngine engine = new ReplayEngine(directory.toString());
+
+        ReplayEngine.ReplayReport strict = engine.replay("ticks.csv", ReplayEngine.Format.CSV,
+                new ReplayEngine.ReplayOptions(Duration.ofSeconds(60), 0.10, 0));
+        ReplayEngine.ReplayReport loose = engine.replay("ticks.csv", ReplayEngine.Format.CSV,
+                new ReplayEngine.ReplayOptions(Duration.ofSeconds(60), 0.25, 0));
+
+        assertEquals(3, strict.ticks());
+        assertEquals(1, strict.skipped());
+        assertEquals(Map.of(IngestOutcome.ACCEPTED, 2L, IngestOutcome.OUTLIER, 1L), strict.outcomes());
+        assertEquals(25000, strict.bestPrices().get("BTCUSD").getPrice());
+        assertEquals(30000, loose.bestPrices().get("BTCUSD").getPrice());
+        assertEquals("Source \"B\"", loose.bestPrices().get("BTCUSD").getSource());
+        assertEquals(1800, loose.bestPrices().get("ETHUSD").getPrice());
+    }
+
+    @Test
+    public void journalReplayReproducesTheLiveBestAndStaleDecisions() {
+        MarketDataAggregator live = new MarketDataAggregator(fixedClock);
+        TickJournal journal = new TickJournal(live, fixedClock, directory.resolve("journal").toString(),
+                DataSize.ofKilobytes(64), 4, TickJournal.FsyncPolicy.NEVER, Duration.ofSeconds(1));
+        journal.start();
+        live.ingest(new PriceTick("BTCUSD", 25000, fixedInstant.minusSeconds(30), "SourceA"));
+        live.ingest(new PriceTick("BTCUSD", 25100, fixedInstant.minusSeconds(90), "SourceB"));
+        live.ingest(new PriceTick("ETHUSD", 1800, fixedInstant, "SourceA"));
+        journal.stop();
+
+        ReplayEngine engine = new ReplayEngine(directory.toString());
+        ReplayEngine.ReplayReport same = engine.replay("journal", ReplayEngine.Format.JOURNAL,
+                new ReplayEngine.ReplayOptions(Duration.ofSeconds(60), 0.25, 0));
+        ReplayEngine.ReplayReport tolerant = engine.replay("journal", ReplayEngine.Format.JOURNAL,
+                new ReplayEngine.ReplayOptions(Duration.ofSeconds(120), 0.25, 0));
+
+        assertEquals(live.getAllBest(), same.bestPrices());
+        assertEquals(1L, same.outcomes().get(IngestOutcome.STALE));
+        // With a longer staleness window the 90s-old tick is judged on its timestamp instead
+        assertNull(tolerant.outcomes().get(IngestOutcome.STALE));
+        assertEquals(1L, tolerant.outcomes().get(IngestOutcome.OLDER));
+    }
+
+    @Test
+    public void csvTimestampsMatchInstantParse() throws IOException {
+        List<String> timeStamps = List.of("2026-01-01T00:00:00Z", "2024-02-29T23:59:59.5Z", "2025-12-31T12:34:56.123456789Z",
+                "1969-07-20T20:17:40.001Z", "2000-03-01T00:00:00.000010Z", "2026-01-01T01:00:00+01:00");
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < timeStamps.size(); i++) {
+            csv.append("SYM").append(i).append(",100,").append(timeStamps.get(i)).append(",SourceA,2026-01-01T00:00:00Z\n");
+        }
+        csv.append("BAD,100,2025-02-29T00:00:00Z,SourceA\n");
+        Files.writeString(directory.resolve("timestamps.csv"), csv);
+        ReplayEngine engine = new ReplayEngine(directory.toString());
+
+        // A huge staleness window so every row is accepted whatever its timestamp
+        ReplayEngine.ReplayReport report = engine.replay("timestamps.csv", ReplayEngine.Format.CSV,
+                new ReplayEngine.ReplayOptions(Duration.ofDays(365L * 100), 0.25, 0));
+
+        for (int i = 0; i < timeStamps.size(); i++) {
+            assertEquals(Instant.parse(timeStamps.get(i)), report.bestPrices().get("SYM" + i).getTimeStamp(), timeStamps.get(i));
+        }
+        assertEquals(1, report.skipped());
+    }
+
+    @Test
+    public void pacesReplayAtMultipleOfRecordedTime() throws IOException {
+        Files.writeString(directory.resolve("paced.csv"), """
+                BTCUSD,25000,2026-01-01T00:00:00Z,SourceA
+                BTCUSD,25001,2026-01-01T00:00:01Z,SourceA
+                """);
+        ReplayEngine engine = new ReplayEngine(directory.toString());
+
+        ReplayEngine.ReplayReport report = engine.replay("paced.csv", ReplayEngine.Format.CSV,
+                new ReplayEngine.ReplayOptions(Duration.ofSeconds(60), 0.25, 20));
+
+        // One recorded second at 20x takes at least 50ms
+        assertTrue(report.elapsedMillis() >= 45, "elapsed " + report.elapsedMillis());
+        assertEquals(2, report.ticks());
+    }
+
+    @Test
+    public void rejectsFilesOutsideTheReplayDirectory() {
+        ReplayEngine engine = new ReplayEngine(directory.resolve("recordings").toString());
+        ReplayEngine.ReplayOptions options = new ReplayEngine.ReplayOptions(Duration.ofSeconds(60), 0.25, 0);
+
+        assertThrows(InvalidReplayRequestException.class,
+                () -> engine.replay("../ticks.csv", ReplayEngine.Format.CSV, options));
+        assertThrows(InvalidReplayRequestException.class,
+                () -> engine.replay("missing.csv", ReplayEngine.Format.CSV, options));
+    }
+
+    @Test
+    public void replaysALargeRecording() throws IOException {
+        Path file = directory.resolve("bulk.csv");
+        int ticks = 500_000;
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < ticks; i++) {
+                Instant at = fixedInstant.plusMillis(i);
+                writer.write("SYM" + (i % 1000) + "," + (100 + i % 7) + "," + at + ",Source" + (i % 3) + "\n");
+            }
+        }
+        ReplayEngine engine = new ReplayEngine(directory.toString());
+
+        ReplayEngine.ReplayReport report = engine.replay("bulk.csv", ReplayEngine.Format.CSV,
+                new ReplayEngine.ReplayOptions(Duration.ofSeconds(60), 0.25, 0));
+
+        assertEquals(ticks, report.ticks());
+        assertEquals(1000, report.bestPrices().size());
+    }
+}
@@ -0,0 +1,139 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.domain.SimulatedClock;
+import com.yahir.marketdataaggregator.repository.PriceRepository;
+import com.yahir.marketdataaggregator.service.MarketDataService;
+import com.yahir.marketdataaggregator.service.PriceCacheInvalidator;
+import com.yahir.marketdataaggregator.service.PriceWriteBehind;
+import com.yahir.marketdataaggregator.service.SourceHealth;
+import com.yahir.marketdataaggregator.sources.NormalPriceSource;
+import com.yahir.marketdataaggregator.sources.PriceSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class SourceHealthTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final SimulatedClock clock = new SimulatedClock(fixedInstant);
+
+    private final SourceHealth health = new SourceHealth(clock, true, 10, 4, 0.5, Duration.ofMillis(200), 0.9,
+            Duration.ofSeconds(30));
+
+    @Test
+    public void opensOnErrorRateAndProbesHalfOpen() {
+        SourceHealth.Breaker breaker = health.breaker(source("Flaky"));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.failed(millis(5));
+        }
+        assertEquals(SourceHealth.State.CLOSED, status().state());
+        assertTrue(breaker.tryAcquire());
+        breaker.succeeded(millis(5));
+        assertEquals(SourceHealth.State.OPEN, status().state());
+        assertFalse(breaker.tryAcquire());
+
+        clock.set(fixedInstant.plusSeconds(30));
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only one probe at a time");
+        breaker.failed(millis(5));
+        assertEquals(SourceHealth.State.OPEN, status().state());
+        assertEquals("probe failed", status().reason());
+
+        clock.set(fixedInstant.plusSeconds(60));
+        assertTrue(breaker.tryAcquire());
+        breaker.succeeded(millis(5));
+        SourceHealth.SourceStatus status = status();
+        assertEquals(SourceHealth.State.CLOSED, status.state());
+        assertEquals(0, status.calls());
+        assertEquals(2, status.skipped());
+        assertEquals(2, status.opened());
+    }
+
+    @Test
+    public void opensWhenLatencyPercentileExceedsBudget() {
+        SourceHealth.Breaker breaker = health.breaker(source("Slow"));
+
+        for (int i = 0; i < 3; i++) {
+            breaker.succeeded(millis(10));
+        }
+        breaker.succeeded(millis(500));
+        assertEquals(SourceHealth.State.OPEN, status().state());
+        assertEquals("p90 latency 500ms over the 200ms budget", status().reason());
+
+        clock.set(fixedInstant.plusSeconds(30));
+        assertTrue(breaker.tryAcquire());
+        breaker.succeeded(millis(300));
+        assertEquals(SourceHealth.State.OPEN, status().state(), "a slow probe keeps the breaker open");
+    }
+
+    @Test
+    public void pollSkipsSourceOnceItsBreakerOpens() {
+        AtomicInteger calls = new AtomicInteger();
+        PriceSource failing = new PriceSource() {
+            @Override
+            public Optional<PriceTick> getLatestTick(String symbol) {
+                calls.incrementAndGet();
+                throw new IllegalStateException("rate limited");
+            }
+
+            @Override
+            public String name() {
+                return "Failing";
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MarketDataService service = new MarketDataService(List.of(new NormalPriceSource(clock), failing),
+                new MarketDataAggregator(clock), mock(PriceRepository.class),
+                new PriceWriteBehind(mock(PriceRepository.class)), new PriceCacheInvalidator(new NoOpCacheManager()),
+                health, registry, Duration.ofMillis(500), Duration.ZERO);
+
+        for (int i = 0; i < 10; i++) {
+            service.pollOnce("BTCUSD");
+        }
+
+        assertEquals(4, calls.get());
+        assertEquals(6, registry.get("marketdata.source.results").tags("source", "Failing", "result", "skipped")
+                .counter().count());
+        assertTrue(service.getBest("BTCUSD").isPresent());
+        List<SourceHealth.SourceStatus> statuses = health.getStatus();
+        assertEquals(List.of("Failing", "NormalPriceSource"), statuses.stream().map(SourceHealth.SourceStatus::source).toList());
+        assertEquals(SourceHealth.State.OPEN, statuses.get(0).state());
+        assertEquals(SourceHealth.State.CLOSED, statuses.get(1).state());
+        service.shutdown();
+    }
+
+    private SourceHealth.SourceStatus status() {
+        return health.getStatus().getFirst();
+    }
+
+    private static long millis(long millis) {
+        return Duration.ofMillis(millis).toNanos();
+    }
+
+    private static PriceSource source(String name) {
+        return new PriceSource() {
+            @Override
+            public Optional<PriceTick> getLatestTick(String symbol) {
+                return Optional.empty();
+            }
+
+            @Override
+            public String name() {
+                return name;
+            }
+        };
+    }
+}
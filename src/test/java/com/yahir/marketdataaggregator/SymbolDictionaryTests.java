@@ -0,0 +1,135 @@
+package com.yahir.marketdataaggregator;
+
+import com.yahir.marketdataaggregator.domain.AggregatedPrice;
+import com.yahir.marketdataaggregator.domain.IdTable;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.domain.SymbolDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SymbolDictionaryTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    private final SymbolDictionary dictionary = new SymbolDictionary();
+    private final SymbolDictionary.Names symbols = dictionary.symbols();
+    private final SymbolDictionary.Names sources = dictionary.sources();
+
+    @Test
+    public void symbolsAreNormalizedOnceAndShareOneId() {
+        int id = symbols.idOf(" dictTest1 ");
+
+        assertEquals("DICTTEST1", symbols.nameOf(id));
+        assertEquals(id, symbols.idOf("DICTTEST1"));
+        assertEquals(id, symbols.find("dicttest1"));
+        assertEquals(SymbolDictionary.NO_ID, new AggregatedPrice("DictTest1", 1, fixedInstant, "SourceA").getSymbolId());
+    }
+
+    @Test
+    public void aggregatorResolvesTicksAgainstItsOwnDictionary() {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock, Duration.ofSeconds(60), 0.25, null,
+                dictionary);
+        PriceTick tick = new PriceTick("dictTest2", 1, fixedInstant, "SourceA");
+        assertEquals(SymbolDictionary.NO_ID, tick.getSymbolId());
+
+        aggregator.ingest(tick);
+
+        int id = symbols.find("DICTTEST2");
+        assertEquals(id, tick.getSymbolId());
+        assertSame(symbols.nameOf(id), tick.getSymbol());
+        assertEquals(sources.find("SourceA"), tick.getSourceId());
+        assertEquals(id, aggregator.getBest("dicttest2").orElseThrow().getSymbolId());
+        assertEquals(SymbolDictionary.NO_ID, new SymbolDictionary().symbols().find("DICTTEST2"));
+    }
+
+    @Test
+    public void findDoesNotAddNames() {
+        int size = symbols.size();
+
+        assertEquals(SymbolDictionary.NO_ID, symbols.find("DICTTEST_NEVER_INGESTED"));
+        assertEquals(size, symbols.size());
+        assertEquals(SymbolDictionary.NO_ID, symbols.idOf(null));
+    }
+
+    @Test
+    public void sourcesKeepTheirSpelling() {
+        int upper = sources.idOf("DictSourceA");
+        int lower = sources.idOf("dictsourcea");
+
+        assertNotEquals(upper, lower);
+        assertEquals("dictsourcea", sources.nameOf(lower));
+    }
+
+    @Test
+    public void concurrentRegistrationAssignsOneIdPerName() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                results.add(pool.submit(() -> {
+                    int[] ids = new int[2_000];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = symbols.idOf("dictconc" + i);
+                    }
+                    return ids;
+                }));
+            }
+            int[] first = results.getFirst().get();
+            for (Future<int[]> result : results) {
+                assertArrayEquals(first, result.get());
+            }
+            Set<Integer> distinct = ConcurrentHashMap.newKeySet();
+            for (int i = 0; i < first.length; i++) {
+                distinct.add(first[i]);
+                assertEquals("DICTCONC" + i, symbols.nameOf(first[i]));
+            }
+            assertEquals(first.length, distinct.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void idTableSpansPagesAndReplacesByIdentity() {
+        IdTable<String> table = new IdTable<>();
+        assertNull(table.putIfAbsent(5_000, "a"));
+        assertEquals("a", table.putIfAbsent(5_000, "b"));
+        assertFalse(table.compareAndSet(5_000, new String("a"), "c"));
+        assertTrue(table.compareAndSet(5_000, table.get(5_000), "c"));
+        assertNull(table.getAndSet(3, "d"));
+        assertNull(table.get(1_000_000));
+        assertNull(table.get(SymbolDictionary.NO_ID));
+
+        List<Integer> ids = new ArrayList<>();
+        table.forEach((value, id) -> ids.add(id));
+        assertEquals(List.of(3, 5_000), ids);
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void aggregatorLooksUpBestByAnySpelling() {
+        MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+        aggregator.ingest(new PriceTick("dictBtc", 25000, fixedInstant, "SourceA"));
+
+        assertEquals(25000, aggregator.getBest(" DICTBTC").orElseThrow().getPrice());
+        assertEquals(25000, aggregator.getBest("dictbtc").orElseThrow().getPrice());
+        assertTrue(aggregator.getBest("DICTETH").isEmpty());
+        assertEquals(Set.of("DICTBTC"), aggregator.getAllBest().keySet());
+    }
+}
@@ -0,0 +1,180 @@
+package com.yahir.marketdataaggregator;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.yahir.marketdataaggregator.domain.IngestOutcome;
+import com.yahir.marketdataaggregator.domain.MarketDataAggregator;
+import com.yahir.marketdataaggregator.domain.PriceTick;
+import com.yahir.marketdataaggregator.service.TickJournal;
+import com.yahir.marketdataaggregator.service.TickJournalReader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TickJournalTests {
+
+    private final Instant fixedInstant = Instant.parse("2026-01-01T00:00:00.00Z");
+    private final ZoneId zoneId = ZoneId.of("UTC");
+    private final Clock fixedClock = Clock.fixed(fixedInstant, zoneId);
+
+    // Per-tick logging would dominate the append timing, so the aggregator is quietened for this class only
+    private static final Logger aggregatorLog = (Logger) LoggerFactory.getLogger(MarketDataAggregator.class);
+    private static Level previousLevel;
+
+    private final MarketDataAggregator aggregator = new MarketDataAggregator(fixedClock);
+
+    @TempDir
+    private Path directory;
+
+    @BeforeAll
+    static void quietAggregatorLogging() {
+        previousLevel = aggregatorLog.getLevel();
+        aggregatorLog.setLevel(Level.ERROR);
+    }
+
+    @AfterAll
+    static void restoreAggregatorLogging() {
+        aggregatorLog.setLevel(previousLevel);
+    }
+
+    @Test
+    public void journalsEveryTickWithItsOutcomeAndTailsNewOnes() {
+        TickJournal journal = journal(DataSize.ofKilobytes(64), 4);
+        TickJournalReader reader = new TickJournalReader(directory);
+
+        aggregator.ingest(new PriceTick("BTCUSD", 25000, fixedInstant, "SourceA"));
+        aggregator.ingest(new PriceTick("BTCUSD", 90000, fixedInstant.plusSeconds(1), "SourceB"));
+        aggregator.ingest(new PriceTick("BTCUSD", 25000, fixedInstant.minusSeconds(120), "SourceB"));
+        aggregator.ingest(new PriceTick());
+
+        List<TickJournalReader.Entry> entries = drain(reader);
+        assertEquals(List.of(IngestOutcome.ACCEPTED, IngestOutcome.OUTLIER, IngestOutcome.STALE),
+                entries.stream().map(TickJournalReader.Entry::outcome).toList());
+        TickJournalReader.Entry first = entries.getFirst();
+        assertEquals("BTCUSD", first.symbol());
+        assertEquals(25000, first.price());
+        assertEquals(fixedInstant, first.timeStamp());
+        assertEquals(fixedInstant, first.ingestedAt());
+        assertEquals("SourceA", first.source());
+
+        assertEquals(0, reader.poll(entry -> {}, 10));
+        aggregator.ingest(new PriceTick("ETHUSD", 1800.5, fixedInstant.plusNanos(123_456_789), "SourceA"));
+        entries = drain(reader);
+        assertEquals(1, entries.size());
+        assertEquals(fixedInstant.plusNanos(123_456_789), entries.getFirst().timeStamp());
+        assertEquals(1800.5, entries.getFirst().toTick().getPrice());
+
+        journal.stop();
+    }
+
+    @Test
+    public void rollsSegmentsAndKeepsOnlyTheNewest() throws IOException {
+        TickJournal journal = journal(DataSize.ofKilobytes(4), 2);
+        for (int i = 0; i < 500; i++) {
+            aggregator.ingest(new PriceTick("BTCUSD", 25000 + i, fixedInstant.plusMillis(i), "SourceA"));
+        }
+
+        // Expired segments are deleted in the background; stop() waits for that to finish
+        journal.stop();
+        TickJournal.JournalStats stats = journal.getStats();
+        assertEquals(500, stats.appended());
+        assertTrue(stats.rolled() > 2);
+        assertEquals(stats.rolled() - 1, stats.deleted());
+        assertEquals(2, segmentCount());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.filter(path -> path.toString().endsWith(".tmp")).count(), "unused segment left behind");
+        }
+
+        List<TickJournalReader.Entry> retained = drain(new TickJournalReader(directory));
+        assertFalse(retained.isEmpty());
+        assertEquals(fixedInstant.plusMillis(499), retained.getLast().timeStamp());
+        for (int i = 1; i < retained.size(); i++) {
+            assertTrue(retained.get(i).timeStamp().isAfter(retained.get(i - 1).timeStamp()));
+        }
+    }
+
+    @Test
+    public void countsTicksItCannotRecordAsDropped() {
+        TickJournal journal = journal(DataSize.ofKilobytes(64), 4);
+
+        journal.append(new PriceTick("BTCUSD", 25000, Instant.MAX, "SourceA"), IngestOutcome.ACCEPTED);
+        journal.append(new PriceTick("BTCUSD", 25000, fixedInstant, "S".repeat(40_000)), IngestOutcome.ACCEPTED);
+        journal.append(new PriceTick("BTCUSD", 25000, fixedInstant, "SourceA"), IngestOutcome.ACCEPTED);
+
+        assertEquals(1, journal.getStats().appended());
+        assertEquals(2, journal.getStats().dropped());
+        journal.stop();
+    }
+
+    @Test
+    public void readerFollowsWriterAcrossRestartWithoutEndMarker() throws IOException {
+        TickJournal crashed = journal(DataSize.ofKilobytes(64), 4);
+        TickJournalReader reader = new TickJournalReader(directory);
+        aggregator.ingest(new PriceTick("BTCUSD", 25000, fixedInstant, "SourceA"));
+        assertEquals(1, drain(reader).size());
+
+        // The first writer never runs stop(), as after a crash, so its segment has no end marker
+        MarketDataAggregator restarted = new MarketDataAggregator(fixedClock);
+        TickJournal journal = new TickJournal(restarted, fixedClock, directory.toString(), DataSize.ofKilobytes(64), 4,
+                TickJournal.FsyncPolicy.NEVER, Duration.ofSeconds(1));
+        journal.start();
+        restarted.ingest(new PriceTick("ETHUSD", 1800, fixedInstant, "SourceA"));
+
+        List<TickJournalReader.Entry> entries = drain(reader);
+        assertEquals(List.of("ETHUSD"), entries.stream().map(TickJournalReader.Entry::symbol).toList());
+        assertEquals(2, segmentCount());
+        journal.stop();
+    }
+
+    @Test
+    public void countsEveryAppendOverALongRun() {
+        TickJournal journal = journal(DataSize.ofMegabytes(16), 4);
+        PriceTick[] ticks = new PriceTick[1_000];
+        for (int i = 0; i < ticks.length; i++) {
+            ticks[i] = new PriceTick("SYM" + i, 100 + i, fixedInstant, "SourceA");
+        }
+        int appends = 400_000;
+        for (int i = 0; i < appends; i++) {
+            journal.append(ticks[i % ticks.length], IngestOutcome.ACCEPTED);
+        }
+        assertEquals(appends, journal.getStats().appended());
+        journal.stop();
+    }
+
+    private TickJournal journal(DataSize segmentSize, int maxSegments) {
+        TickJournal journal = new TickJournal(aggregator, fixedClock, directory.toString(), segmentSize, maxSegments,
+                TickJournal.FsyncPolicy.NEVER, Duration.ofSeconds(1));
+        journal.start();
+        return journal;
+    }
+
+    private List<TickJournalReader.Entry> drain(TickJournalReader reader) {
+        List<TickJournalReader.Entry> entries = new ArrayList<>();
+        while (reader.poll(entries::add, 100) > 0) {
+            // Keep reading until caught up
+        }
+        return entries;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".journal")).count();
+        }
+    }
+}